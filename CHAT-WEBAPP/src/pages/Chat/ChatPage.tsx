@@ -103,11 +103,15 @@ const ChatPage: React.FC = () => {
       const response = await aiAPI.chat({
         message: text,
         mode: 'copilot', // режим, который ты используешь в ChatService
+        conversationId: sessionId, // история диалога хранится на стороне ai-service
       });
 
       const replyText =
-        response.data?.reply ||
-        'Модель не вернула текст ответа, попробуйте ещё раз.';
+        (response.data?.reply ||
+          'Модель не вернула текст ответа, попробуйте ещё раз.') +
+        (response.data?.degraded
+          ? '\n\n(Ограниченный режим: часть данных может быть устаревшей.)'
+          : '');
 
       const botMessage: ChatMessage = {
         id: crypto.randomUUID ? crypto.randomUUID() : `${now}-a`,
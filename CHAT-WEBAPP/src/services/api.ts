@@ -51,10 +51,13 @@ export type BusinessContextResponse = {
 export type ChatRequestDTO = {
   message: string;
   mode?: string;
+  conversationId?: string;
 };
 
 export type ChatResponseDTO = {
   reply: string;
+  // ответ получен в обход недоступного сервиса: из кэша или без актуальных данных компании
+  degraded?: boolean;
 };
 
 // === API-ОБЁРТКИ ===
@@ -71,8 +74,15 @@ export const authAPI = {
     AUTH_API.get<BusinessContextResponse>(`/business/${businessId}`),
 };
 
+// Сколько ждём ответа чата: сервер получает тот же бюджет в X-Request-Timeout
+// и не продолжает работу после того, как клиент сдался
+const CHAT_TIMEOUT_MS = 60_000;
+
 // AI сервис: @RequestMapping("/api") + @PostMapping("/chat")
 export const aiAPI = {
   chat: (data: ChatRequestDTO) =>
-    AI_API.post<ChatResponseDTO>('/chat', data),
+    AI_API.post<ChatResponseDTO>('/chat', data, {
+      timeout: CHAT_TIMEOUT_MS,
+      headers: { 'X-Request-Timeout': String(CHAT_TIMEOUT_MS) },
+    }),
 };
@@ -1,5 +1,7 @@
 package com.example.ai_service.config;
 
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -7,10 +9,16 @@ import org.springframework.web.reactive.function.client.WebClient;
 @Configuration
 public class AuthClientConfig {
 
+    @Value("${app.auth.base-url:http://auth-service:8081}")
+    private String baseUrl;
+
     @Bean(name = "authWebClient")
-    public WebClient authWebClient() {
+    public WebClient authWebClient(HttpClientFactory httpClientFactory, ObservationRegistry observationRegistry) {
         return WebClient.builder()
-                .baseUrl("http://auth-service:8081")
+                .baseUrl(baseUrl)
+                .clientConnector(httpClientFactory.connector("auth", baseUrl))
+                // клиентский спан и traceparent в запросе к auth-service
+                .observationRegistry(observationRegistry)
                 .build();
     }
 }
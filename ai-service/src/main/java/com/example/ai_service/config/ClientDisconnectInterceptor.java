@@ -0,0 +1,50 @@
+package com.example.ai_service.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Сигнал об уходе клиента для асинхронных ответов (Mono и SSE-потоки в MVC идут через DeferredResult).
+ * Когда servlet-контейнер сообщает об обрыве соединения или async-таймауте, Mono из watch()
+ * завершается, и контроллер отменяет всю цепочку: ожидание контекста, очередь к LLM, генерацию.
+ */
+public class ClientDisconnectInterceptor implements DeferredResultProcessingInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientDisconnectInterceptor.class);
+
+    private static final String ATTRIBUTE = ClientDisconnectInterceptor.class.getName() + ".SIGNAL";
+
+    public static Mono<Void> watch(HttpServletRequest request) {
+        Sinks.Empty<Void> signal = Sinks.empty();
+        request.setAttribute(ATTRIBUTE, signal);
+        return signal.asMono();
+    }
+
+    @Override
+    public <T> boolean handleError(NativeWebRequest request, DeferredResult<T> deferredResult, Throwable t) {
+        logger.debug("Client gone, cancelling request: {}", t.toString());
+        fire(request);
+        return true;
+    }
+
+    @Override
+    public <T> boolean handleTimeout(NativeWebRequest request, DeferredResult<T> deferredResult) {
+        fire(request);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void fire(NativeWebRequest request) {
+        Object signal = request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (signal instanceof Sinks.Empty<?> sink) {
+            ((Sinks.Empty<Void>) sink).tryEmitEmpty();
+        }
+    }
+}
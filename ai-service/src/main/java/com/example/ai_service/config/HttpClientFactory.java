@@ -0,0 +1,72 @@
+package com.example.ai_service.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Собирает Reactor Netty клиент с именованным пулом соединений по настройкам HttpClientProperties.
+ * Метрики пула (reactor.netty.connection.provider.active/idle/pending.connections,
+ * время ожидания соединения) публикуются в Micrometer с тегом name = имени клиента.
+ */
+@Component
+public class HttpClientFactory {
+
+    private final HttpClientProperties properties;
+
+    public HttpClientFactory(HttpClientProperties properties) {
+        this.properties = properties;
+    }
+
+    public ReactorClientHttpConnector connector(String name, String baseUrl) {
+        return connector(name, name, baseUrl);
+    }
+
+    // Отдельный пул name с настройками app.http.clients.<settingsName> — например, по пулу на провайдера LLM
+    public ReactorClientHttpConnector connector(String name, String settingsName, String baseUrl) {
+        return new ReactorClientHttpConnector(create(name, settingsName, baseUrl));
+    }
+
+    public HttpClient create(String name, String settingsName, String baseUrl) {
+        HttpClientProperties.Client settings = properties.client(settingsName);
+
+        ConnectionProvider provider = ConnectionProvider.builder(name)
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime())
+                .maxLifeTime(settings.getMaxLifeTime())
+                .evictInBackground(settings.getEvictInterval())
+                // последнее освободившееся соединение — самое "тёплое", его и отдаём
+                .lifo()
+                .metrics(true)
+                .build();
+
+        HttpProtocol[] protocols = settings.getProtocols().toArray(new HttpProtocol[0]);
+        HttpClient client = HttpClient.create(provider)
+                .protocol(protocols)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(settings.getResponseTimeout())
+                .doOnConnected(connection -> connection.addHandlerLast(
+                        new WriteTimeoutHandler(settings.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS)))
+                .metrics(true, uri -> name);
+
+        if (baseUrl.startsWith("https")) {
+            boolean http2 = settings.getProtocols().contains(HttpProtocol.H2);
+            client = client.secure(spec -> (http2
+                    ? spec.sslContext(Http2SslContextSpec.forClient())
+                    : spec.sslContext(Http11SslContextSpec.forClient()))
+                    .handshakeTimeout(settings.getTlsHandshakeTimeout()));
+        }
+        return client;
+    }
+}
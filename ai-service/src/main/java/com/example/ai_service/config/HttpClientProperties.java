@@ -0,0 +1,48 @@
+package com.example.ai_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpProtocol;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки HTTP-клиентов к внешним сервисам: app.http.clients.&lt;имя&gt;.* — у каждого апстрима
+ * свой пул соединений и свои таймауты по фазам запроса.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.http")
+public class HttpClientProperties {
+
+    private Map<String, Client> clients = new LinkedHashMap<>();
+
+    public Client client(String name) {
+        return clients.getOrDefault(name, new Client());
+    }
+
+    @Data
+    public static class Client {
+        // пул
+        private int maxConnections = 50;
+        private int pendingAcquireMaxCount = 200;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(10);
+        private Duration evictInterval = Duration.ofSeconds(15);
+
+        // таймауты по фазам
+        private Duration connectTimeout = Duration.ofSeconds(3);
+        private Duration tlsHandshakeTimeout = Duration.ofSeconds(5);
+        private Duration writeTimeout = Duration.ofSeconds(10);
+        // максимальная пауза при чтении ответа: до заголовков и между кусками тела
+        private Duration responseTimeout = Duration.ofSeconds(60);
+
+        // http11, h2 (TLS + ALPN) или h2c (HTTP/2 без TLS — для внутренних сервисов)
+        private List<HttpProtocol> protocols = List.of(HttpProtocol.HTTP11);
+    }
+}
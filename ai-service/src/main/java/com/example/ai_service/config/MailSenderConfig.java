@@ -0,0 +1,50 @@
+package com.example.ai_service.config;
+
+import com.example.ai_service.services.mail.PooledJavaMailSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Properties;
+
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailSenderConfig {
+
+    // Заменяет автоконфигурированный JavaMailSenderImpl; настройки SMTP берутся из spring.mail.*
+    @Bean
+    public PooledJavaMailSender javaMailSender(
+            MailProperties mailProperties,
+            MeterRegistry meterRegistry,
+            @Value("${app.mail.pool.max-connections:4}") int maxConnections,
+            @Value("${app.mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+            @Value("${app.mail.pool.idle-timeout:60s}") Duration idleTimeout,
+            @Value("${app.mail.pool.validate-after-idle:10s}") Duration validateAfterIdle,
+            @Value("${app.mail.pool.acquire-timeout:30s}") Duration acquireTimeout) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(
+                maxConnections, maxMessagesPerConnection, idleTimeout, validateAfterIdle, acquireTimeout);
+
+        sender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            sender.setPort(mailProperties.getPort());
+        }
+        sender.setUsername(mailProperties.getUsername());
+        sender.setPassword(mailProperties.getPassword());
+        sender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+        if (!mailProperties.getProperties().isEmpty()) {
+            Properties properties = new Properties();
+            properties.putAll(mailProperties.getProperties());
+            sender.setJavaMailProperties(properties);
+        }
+
+        sender.bindTo(meterRegistry);
+        return sender;
+    }
+}
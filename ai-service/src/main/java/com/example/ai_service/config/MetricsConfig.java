@@ -0,0 +1,20 @@
+package com.example.ai_service.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Страховка от взрыва числа рядов: если URI всё же попадут в тег без шаблона, лишние отбрасываются
+    @Bean
+    public MeterFilter boundedHttpServerUris() {
+        return MeterFilter.maximumAllowableTags("http.server.requests", "uri", 100, MeterFilter.deny());
+    }
+
+    @Bean
+    public MeterFilter boundedHttpClientUris() {
+        return MeterFilter.maximumAllowableTags("http.client.requests", "uri", 100, MeterFilter.deny());
+    }
+}
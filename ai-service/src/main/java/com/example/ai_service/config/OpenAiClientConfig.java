@@ -1,10 +1,23 @@
 package com.example.ai_service.config;
 
+import com.example.ai_service.services.llm.cassette.LlmCassette;
+import com.example.ai_service.services.llm.routing.LatencyStats;
+import com.example.ai_service.services.llm.routing.LlmProvider;
+import com.example.ai_service.services.llm.routing.LlmRouter;
+import com.example.ai_service.services.llm.routing.LlmRouterProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class OpenAiClientConfig {
 
@@ -15,11 +28,57 @@ public class OpenAiClientConfig {
     private String apiKey;
 
     @Bean(name = "openAiWebClient")
-    public WebClient openAiWebClient() {
+    public WebClient openAiWebClient(HttpClientFactory httpClientFactory, LlmCassette cassette,
+                                     ObservationRegistry observationRegistry) {
         return WebClient.builder()
                 .baseUrl(baseUrl)
+                // app.llm.cassette: запись ответов LLM или их проигрывание без сети
+                .clientConnector(cassette.wrap(httpClientFactory.connector("llm", baseUrl)))
+                .observationRegistry(observationRegistry)
                 .defaultHeader("Authorization", "Bearer " + apiKey)
                 .defaultHeader("Content-Type","application/json")
                 .build();
     }
+
+    // Без app.llm.providers — один провайдер spring.ai.openai.*, как раньше
+    @Bean
+    public LlmRouter llmRouter(LlmRouterProperties properties,
+                               @Qualifier("openAiWebClient") WebClient openAiWebClient,
+                               HttpClientFactory httpClientFactory,
+                               LlmCassette cassette,
+                               CircuitBreakerRegistry breakers,
+                               ObservationRegistry observationRegistry,
+                               MeterRegistry meterRegistry) {
+        LlmRouterProperties.Router router = properties.getRouter();
+        List<LlmProvider> providers = new ArrayList<>();
+
+        if (properties.getProviders().isEmpty()) {
+            providers.add(new LlmProvider("default", openAiWebClient, null, stats(router),
+                    breaker(breakers, "default")));
+        }
+        for (LlmRouterProperties.Provider provider : properties.getProviders()) {
+            WebClient webClient = WebClient.builder()
+                    .baseUrl(provider.getBaseUrl())
+                    .clientConnector(cassette.wrap(httpClientFactory.connector(
+                            "llm-" + provider.getName(), provider.getHttpClient(), provider.getBaseUrl())))
+                    .defaultHeader("Authorization", "Bearer " + provider.getApiKey())
+                    .defaultHeader("Content-Type", "application/json")
+                    .observationRegistry(observationRegistry)
+                    .build();
+            providers.add(new LlmProvider(provider.getName(), webClient, provider.getModel(), stats(router),
+                    breaker(breakers, provider.getName())));
+        }
+
+        return new LlmRouter(providers, router.isHedgeEnabled(), router.getHedgeDelay(),
+                router.getMinSamples(), router.getMaxErrorRate(), meterRegistry);
+    }
+
+    // Настройки общие для всех провайдеров: resilience4j.circuitbreaker.configs.llm
+    private static CircuitBreaker breaker(CircuitBreakerRegistry breakers, String provider) {
+        return breakers.circuitBreaker("llm-" + provider, "llm");
+    }
+
+    private static LatencyStats stats(LlmRouterProperties.Router router) {
+        return new LatencyStats(router.getStatsSamples(), router.getStatsWindow().toNanos());
+    }
 }
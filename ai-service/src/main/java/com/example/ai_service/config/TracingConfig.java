@@ -0,0 +1,38 @@
+package com.example.ai_service.config;
+
+import com.example.common.tracing.JsonSpanExporter;
+import com.example.common.tracing.TailSamplingSpanProcessor;
+import com.example.common.tracing.TracingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Спаны создаёт Micrometer Tracing (мост в OpenTelemetry): серверные — на каждый HTTP-запрос,
+ * клиентские — в authWebClient и клиентах LLM, traceparent (W3C) уходит в заголовках.
+ * Экспорт — только через этот процессор, чтобы tail-отбор применялся к любому экспортёру.
+ */
+@Configuration
+@EnableConfigurationProperties(TracingProperties.class)
+public class TracingConfig {
+
+    @Bean
+    public TailSamplingSpanProcessor tailSamplingSpanProcessor(TracingProperties properties,
+                                                               MeterRegistry meterRegistry) {
+        return new TailSamplingSpanProcessor(BatchSpanProcessor.builder(exporter(properties)).build(),
+                properties, meterRegistry);
+    }
+
+    private static SpanExporter exporter(TracingProperties properties) {
+        return switch (properties.getExporter()) {
+            case "file" -> JsonSpanExporter.toFile(properties.getFile());
+            case "otlp" -> OtlpHttpSpanExporter.builder().setEndpoint(properties.getOtlpEndpoint()).build();
+            case "none" -> SpanExporter.composite();
+            default -> JsonSpanExporter.toLog();
+        };
+    }
+}
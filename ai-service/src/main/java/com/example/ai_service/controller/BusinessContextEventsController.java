@@ -0,0 +1,36 @@
+package com.example.ai_service.controller;
+
+import com.example.ai_service.entity.dto.Request_BusinessContextEventsDTO;
+import com.example.ai_service.services.context.BusinessContextService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Внутренний webhook: nginx его не проксирует, а принимается он только с сервисным токеном auth-service
+@RestController
+@RequestMapping("/internal/business-context")
+@RequiredArgsConstructor
+public class BusinessContextEventsController {
+
+    private static final String PUBLISHER = "auth-service";
+
+    private final BusinessContextService businessContextService;
+
+    @PostMapping("/events")
+    public ResponseEntity<Void> events(@RequestBody Request_BusinessContextEventsDTO request,
+                                       @AuthenticationPrincipal Jwt jwt) {
+        if (!PUBLISHER.equals(jwt.getClaimAsString("service"))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (request.events() != null) {
+            request.events().forEach(event -> businessContextService.applyChange(event.businessId(), event.version()));
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
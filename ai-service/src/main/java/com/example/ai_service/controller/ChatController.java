@@ -1,17 +1,35 @@
 package com.example.ai_service.controller;
 
+import com.example.ai_service.config.ClientDisconnectInterceptor;
 import com.example.ai_service.entity.dto.Request_ChatDTO;
 import com.example.ai_service.entity.dto.Response_ChatDTO;
 import com.example.ai_service.services.ChatService;
+import com.example.ai_service.services.deadline.Deadline;
+import com.example.ai_service.services.deadline.DeadlinePolicy;
+import com.example.ai_service.services.profiling.RequestIds;
+import com.example.ai_service.services.ratelimit.RateLimitedException;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 @RestController
 @RequestMapping("/api")
@@ -19,23 +37,70 @@ import org.springframework.web.bind.annotation.RestController;
 public class ChatController {
 
     private final ChatService chatService;
+    private final DeadlinePolicy deadlinePolicy;
+    private final ObservationRegistry observationRegistry;
 
+    // X-Request-Timeout — сколько клиент готов ждать (мс); без заголовка действует умолчание сервера
     @PostMapping("/chat")
-    public ResponseEntity<Response_ChatDTO> chat(@Valid @RequestBody Request_ChatDTO request_ChatDTO,
-                                                 @AuthenticationPrincipal Jwt jwt) {
+    public Mono<ResponseEntity<Response_ChatDTO>> chat(@Valid @RequestBody Request_ChatDTO request_ChatDTO,
+                                                       @AuthenticationPrincipal Jwt jwt,
+                                                       @RequestHeader(value = Deadline.HEADER, required = false) String timeout,
+                                                       HttpServletRequest request) {
 
+        String userId = jwt.getClaim("userId");
         String businessId = jwt.getClaim("businessId");
         String authToken = jwt.getTokenValue();
 
-        String reply = chatService.chat(
+        // Servlet-поток освобождается сразу, ответ дописывается по завершении Mono
+        return chatService.chat(
                 request_ChatDTO.message(),
                 request_ChatDTO.mode(),
+                request_ChatDTO.conversationId(),
+                userId,
                 businessId,
-                authToken
-        );
+                authToken,
+                deadlinePolicy.fromHeader(timeout)
+        )
+                // клиент ушёл — отменяем работу, ответ уже некому отдать
+                .takeUntilOther(ClientDisconnectInterceptor.watch(request))
+                .contextWrite(requestContext(request))
+                .map(ResponseEntity::ok);
+    }
+
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> chatStream(@Valid @RequestBody Request_ChatDTO request_ChatDTO,
+                                                    @AuthenticationPrincipal Jwt jwt,
+                                                    @RequestHeader(value = Deadline.HEADER, required = false) String timeout,
+                                                    HttpServletRequest request) {
 
-        return ResponseEntity.ok(new Response_ChatDTO(reply));
+        return chatService.chatStream(
+                request_ChatDTO.message(),
+                request_ChatDTO.mode(),
+                request_ChatDTO.conversationId(),
+                jwt.getClaim("userId"),
+                jwt.getClaim("businessId"),
+                jwt.getTokenValue(),
+                deadlinePolicy.fromHeader(timeout)
+        )
+                .takeUntilOther(ClientDisconnectInterceptor.watch(request))
+                .contextWrite(requestContext(request));
     }
 
+    // Идентификатор запроса для JFR-событий этапов и серверный спан — родитель для вызовов
+    // auth-service и LLM, которые подписываются уже не в servlet-потоке
+    private Context requestContext(HttpServletRequest request) {
+        Context context = Context.of(RequestIds.CONTEXT_KEY, RequestIds.of(request));
+        Observation server = observationRegistry.getCurrentObservation();
+        return server != null ? context.put(ObservationThreadLocalAccessor.KEY, server) : context;
+    }
 
+    // Лимит бизнеса, переполненная очередь или 429 провайдера после повторов
+    @ExceptionHandler(RateLimitedException.class)
+    public ResponseEntity<Response_ChatDTO> rateLimited(RateLimitedException e) {
+        long seconds = e.retryAfterSeconds();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new Response_ChatDTO(e.getMessage() + ". Повторите через " + seconds + " с."));
+    }
 }
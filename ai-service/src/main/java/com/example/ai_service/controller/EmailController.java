@@ -0,0 +1,59 @@
+package com.example.ai_service.controller;
+
+import com.example.ai_service.entity.dto.Response_EmailStatusDTO;
+import com.example.ai_service.services.mail.EmailOutbox;
+import com.example.ai_service.services.mail.OutboxEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/email")
+@RequiredArgsConstructor
+public class EmailController {
+
+    private final EmailOutbox emailOutbox;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Response_EmailStatusDTO> status(@PathVariable String id,
+                                                          @AuthenticationPrincipal Jwt jwt) {
+        String businessId = jwt.getClaimAsString("businessId");
+
+        return emailOutbox.find(id)
+                .filter(entry -> businessId != null && businessId.equals(entry.businessId()))
+                .map(entry -> ResponseEntity.ok(toDto(entry)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Письма своего бизнеса, исчерпавшие попытки отправки (dead-letter), от старых к новым
+    @GetMapping("/dead")
+    public List<Response_EmailStatusDTO> deadLetters(@AuthenticationPrincipal Jwt jwt) {
+        String businessId = jwt.getClaimAsString("businessId");
+        if (businessId == null) return List.of();
+
+        return emailOutbox.deadLetters().stream()
+                .filter(entry -> businessId.equals(entry.businessId()))
+                .map(EmailController::toDto)
+                .toList();
+    }
+
+    private static Response_EmailStatusDTO toDto(OutboxEntry entry) {
+        return new Response_EmailStatusDTO(
+                entry.id(),
+                entry.to(),
+                entry.status().name(),
+                entry.attempts(),
+                entry.lastError(),
+                Instant.ofEpochMilli(entry.createdAt()),
+                Instant.ofEpochMilli(entry.updatedAt())
+        );
+    }
+}
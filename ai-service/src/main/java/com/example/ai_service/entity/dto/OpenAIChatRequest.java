@@ -17,8 +17,11 @@ public class OpenAIChatRequest {
     private String model;
     private List<Message> messages;
     private Double temperature;
+    // потолок длины ответа: выводится из оставшегося до дедлайна времени
+    private Integer max_tokens;
     private List<Tool> tools;
     private String tool_choice = "auto";  // Добавьте это!
+    private Boolean stream;
 
     @Data
     @AllArgsConstructor
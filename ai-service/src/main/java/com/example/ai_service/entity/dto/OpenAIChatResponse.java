@@ -12,6 +12,7 @@ import java.util.List;
 public class OpenAIChatResponse {
 
     private List<Choice> choices;
+    private Usage usage;
 
     @Data
     @NoArgsConstructor
@@ -46,4 +47,14 @@ public class OpenAIChatResponse {
         private String name;
         private String arguments;
     }
-}
\ No newline at end of file
+
+    // Сколько токенов списал провайдер: по нему заряжается лимит бизнеса
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Usage {
+        private Integer prompt_tokens;
+        private Integer completion_tokens;
+        private Integer total_tokens;
+    }
+}
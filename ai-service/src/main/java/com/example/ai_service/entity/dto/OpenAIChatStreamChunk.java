@@ -0,0 +1,66 @@
+package com.example.ai_service.entity.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Один кадр ответа /chat/completions в режиме stream: true
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OpenAIChatStreamChunk {
+
+    private List<Choice> choices;
+    // usage приходит в последнем кадре; Groq кладёт его в x_groq.usage
+    private OpenAIChatResponse.Usage usage;
+    private XGroq x_groq;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Choice {
+        private Integer index;
+        private Delta delta;
+        private String finish_reason;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Delta {
+        private String role;
+        private String content;
+        private List<ToolCallDelta> tool_calls;
+    }
+
+    // Аргументы функции приходят кусками, склеиваются по index
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ToolCallDelta {
+        private Integer index;
+        private String id;
+        private String type;
+        private OpenAIChatResponse.Function function;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class XGroq {
+        private OpenAIChatResponse.Usage usage;
+    }
+
+    public OpenAIChatResponse.Usage usageOrNull() {
+        if (usage != null) return usage;
+        return x_groq != null ? x_groq.getUsage() : null;
+    }
+}
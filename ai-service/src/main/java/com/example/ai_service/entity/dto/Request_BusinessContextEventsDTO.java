@@ -0,0 +1,9 @@
+package com.example.ai_service.entity.dto;
+
+import java.util.List;
+
+// Изменения бизнесов из outbox auth-service; version растёт с каждым изменением бизнеса или сотрудников
+public record Request_BusinessContextEventsDTO(List<Event> events) {
+
+    public record Event(String businessId, long version, String type) { }
+}
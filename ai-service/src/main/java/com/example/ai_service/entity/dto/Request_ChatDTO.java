@@ -2,4 +2,5 @@ package com.example.ai_service.entity.dto;
 
 import jakarta.validation.constraints.NotBlank;
 
-public record Request_ChatDTO(@NotBlank String message, String mode) { }
+// conversationId необязателен: без него каждый запрос обрабатывается без истории
+public record Request_ChatDTO(@NotBlank String message, String mode, String conversationId) { }
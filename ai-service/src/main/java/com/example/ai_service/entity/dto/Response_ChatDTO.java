@@ -1,3 +1,9 @@
 package com.example.ai_service.entity.dto;
 
-public record Response_ChatDTO(String reply) { }
+// degraded — ответ получен в обход отказавшего upstream: из кэша, без актуального контекста бизнеса или вовсе без модели
+public record Response_ChatDTO(String reply, boolean degraded) {
+
+    public Response_ChatDTO(String reply) {
+        this(reply, false);
+    }
+}
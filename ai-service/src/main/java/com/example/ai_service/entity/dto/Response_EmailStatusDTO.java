@@ -0,0 +1,13 @@
+package com.example.ai_service.entity.dto;
+
+import java.time.Instant;
+
+public record Response_EmailStatusDTO(
+        String id,
+        String to,
+        String status,
+        int attempts,
+        String lastError,
+        Instant createdAt,
+        Instant updatedAt
+) { }
@@ -23,5 +23,14 @@ public class ConstantPrompts {
                 Ты — помощник. Отвечай кратко и по делу.
                 """;
     }
+
+    // System prompt режима с контекстом бизнеса; вынесен из ChatService, чтобы его мерили бенчмарки
+    public String systemPrompt(String mode, String businessContext) {
+        String base = switch (mode == null ? "" : mode) {
+            case "copilot" -> getSystemPromptCop();
+            default -> getDefaultPrompt();
+        };
+        return base + (businessContext.isEmpty() ? "" : "\n\n" + businessContext);
+    }
 }
 
@@ -1,5 +1,9 @@
 package com.example.ai_service.security;
 
+import com.example.ai_service.services.profiling.RequestIds;
+import com.example.common.profiling.ProfiledJwtDecoder;
+import com.example.common.security.CachingJwtDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,13 +21,23 @@ public class JwtConfig {
     @Value("${app.jwt.secret}")
     private String secretKey;
 
+    @Value("${app.jwt.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${app.jwt.cache.max-size:4096}")
+    private int cacheMaxSize;
+
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder(MeterRegistry meterRegistry) {
         byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
         SecretKey key = new SecretKeySpec(keyBytes, "HmacSHA256");
-        return NimbusJwtDecoder
+        JwtDecoder decoder = NimbusJwtDecoder
                 .withSecretKey(key)
                 .macAlgorithm(MacAlgorithm.HS256)
                 .build();
+        if (cacheEnabled) {
+            decoder = new CachingJwtDecoder(decoder, cacheMaxSize, meterRegistry);
+        }
+        return new ProfiledJwtDecoder(decoder, RequestIds::current);
     }
 }
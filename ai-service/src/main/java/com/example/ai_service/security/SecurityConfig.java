@@ -1,11 +1,18 @@
 package com.example.ai_service.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.function.Supplier;
 
 @Configuration
 @EnableWebSecurity
@@ -18,7 +25,11 @@ public class SecurityConfig {
                 .cors(Customizer.withDefaults())
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/actuator/health").permitAll()
+                        // асинхронная (SSE) и error-диспетчеризация идут уже после проверки исходного запроса
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        // топ медленных запросов раскрывает чужие запросы — только межсервисный токен
+                        .requestMatchers("/actuator/slowrequests", "/actuator/slowrequests/**").access(SecurityConfig::serviceToken)
                         // при желании можно явно разрешить preflight
                         // .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .anyRequest().authenticated()
@@ -27,4 +38,11 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+    // токен от JwtService.generateServiceToken: вместо userId в нём claim service
+    private static AuthorizationDecision serviceToken(Supplier<Authentication> authentication,
+                                                      RequestAuthorizationContext context) {
+        return new AuthorizationDecision(authentication.get() instanceof JwtAuthenticationToken token
+                && token.getToken().getClaimAsString("service") != null);
+    }
 }
@@ -2,223 +2,372 @@ package com.example.ai_service.services;
 
 import com.example.ai_service.entity.dto.*;
 import com.example.ai_service.prompts.ConstantPrompts;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.example.ai_service.services.context.BusinessContextService;
+import com.example.ai_service.services.deadline.Deadline;
+import com.example.ai_service.services.deadline.DeadlineExceededException;
+import com.example.ai_service.services.deadline.DeadlinePolicy;
+import com.example.ai_service.services.conversation.Conversation;
+import com.example.ai_service.services.conversation.ConversationStore;
+import com.example.ai_service.services.llm.LlmClient;
+import com.example.ai_service.services.llm.LlmResponseCache;
+import com.example.ai_service.services.llm.ToolCallAccumulator;
+import com.example.ai_service.services.mail.EmailOutbox;
+import com.example.ai_service.services.metrics.ChatMetrics;
+import com.example.ai_service.services.ratelimit.LlmAdmission;
+import com.example.ai_service.services.ratelimit.RateLimitedException;
+import com.example.ai_service.services.tools.ToolIntentDetector;
+import com.example.ai_service.services.tools.ToolRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import jakarta.mail.internet.MimeMessage;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class ChatService {
 
-    private final WebClient llmWebClient;
-    private final WebClient authWebCLient;
+    private final LlmClient llmClient;
+    private final LlmResponseCache responseCache;
+    private final ConversationStore conversationStore;
+    private final BusinessContextService businessContextService;
     private final ConstantPrompts prompts;
-    private final JavaMailSender mailSender;
+    private final EmailOutbox emailOutbox;
+    private final ToolRegistry toolRegistry;
+    private final ToolIntentDetector intentDetector;
+    private final LlmAdmission llmAdmission;
+    private final DeadlinePolicy deadlinePolicy;
+    private final ChatMetrics metrics;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
 
+    private static final String UNAVAILABLE = "Ассистент временно недоступен, попробуйте позже.";
+    private static final String TIMED_OUT = "Не удалось ответить за отведённое время, попробуйте ещё раз.";
+    // ответ упёрся в max_tokens
+    private static final String TRUNCATED = "length";
+
+    // degraded — контекст бизнеса взят из последнего известного или недоступен
+    private record PreparedRequest(OpenAIChatRequest request, boolean degraded) { }
+
     @Value("${spring.ai.openai.chat.options.model}")
     private String model;
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
-
     public ChatService(
-            @Qualifier("openAiWebClient") WebClient llmWebClient,
-            @Qualifier("authWebClient") WebClient authWebCLient,
+            LlmClient llmClient,
+            LlmResponseCache responseCache,
+            ConversationStore conversationStore,
+            BusinessContextService businessContextService,
             ConstantPrompts prompts,
-            JavaMailSender mailSender) {
-        this.llmWebClient = llmWebClient;
-        this.authWebCLient = authWebCLient;
+            EmailOutbox emailOutbox,
+            ToolRegistry toolRegistry,
+            ToolIntentDetector intentDetector,
+            LlmAdmission llmAdmission,
+            DeadlinePolicy deadlinePolicy,
+            ChatMetrics metrics) {
+        this.llmClient = llmClient;
+        this.responseCache = responseCache;
+        this.conversationStore = conversationStore;
+        this.businessContextService = businessContextService;
         this.prompts = prompts;
-        this.mailSender = mailSender;
+        this.emailOutbox = emailOutbox;
+        this.toolRegistry = toolRegistry;
+        this.intentDetector = intentDetector;
+        this.llmAdmission = llmAdmission;
+        this.deadlinePolicy = deadlinePolicy;
+        this.metrics = metrics;
     }
 
-    public String chat(String message, String mode, String businessId, String authToken) {
-        try {
-            BusinessContextDTO businessContext = fetchBusinessContext(businessId, authToken);
-            String busContext = buildBusinessContext(businessContext);
-            String systemPrompt = buildSystemPrompt(mode, busContext);
-
-            List<OpenAIChatRequest.Message> messages = new ArrayList<>();
-            messages.add(new OpenAIChatRequest.Message("system", systemPrompt));
-            messages.add(new OpenAIChatRequest.Message("user", message));
-
-            // решаем: вообще разрешать ли функцию отправки письма
-            boolean allowEmailTool = shouldEnableEmailTool(message);
-
-            OpenAIChatRequest request = new OpenAIChatRequest();
-            request.setModel(model);
-            request.setMessages(messages);
-            request.setTemperature(0.7);
-
-            if (allowEmailTool) {
-                // Описание функции send_email
-                ObjectNode parameters = objectMapper.createObjectNode();
-                parameters.put("type", "object");
-                ObjectNode props = objectMapper.createObjectNode();
-                props.set("to", jsonProp("string", "Email получателя"));
-                props.set("subject", jsonProp("string", "Тема письма"));
-                props.set("body", jsonProp("string", "Текст письма"));
-                props.set("isHtml", jsonProp("boolean", "true — если HTML"));
-                parameters.set("properties", props);
-
-                ArrayNode required = objectMapper.createArrayNode();
-                required.add("to");
-                required.add("subject");
-                required.add("body");
-                parameters.set("required", required);
-
-                OpenAIChatRequest.Function function = new OpenAIChatRequest.Function(
-                        "send_email",
-                        "Отправляет настоящее письмо на email. " +
-                                "Вызывай только если пользователь явно просит написать и отправить письмо.",
-                        parameters
-                );
-
-                OpenAIChatRequest.Tool tool = new OpenAIChatRequest.Tool("function", function);
-                request.setTools(List.of(tool));
-                request.setTool_choice("auto");
-            } else {
-                // никакой функции отправки почты для этого запроса
-                request.setTools(null);
-                request.setTool_choice("none");
-            }
-
-            logger.info("Sending request to LLM API with model: {}, allowEmailTool={}", model, allowEmailTool);
-
-            OpenAIChatResponse response = llmWebClient.post()
-                    .uri("/chat/completions")
-                    .bodyValue(request)
-                    .retrieve()
-                    .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                            clientResponse -> clientResponse.bodyToMono(String.class)
-                                    .flatMap(error -> {
-                                        logger.error("LLM API error: {}", error);
-                                        return Mono.error(new RuntimeException("LLM API error: " + error));
-                                    }))
-                    .bodyToMono(OpenAIChatResponse.class)
-                    .block();
-
-            if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
-                return "Не удалось получить ответ от модели.";
-            }
-
-            var choice = response.getChoices().get(0);
-            var msg = choice.getMessage();
-
-            // Проверка на tool call (сработает только если allowEmailTool = true)
-            if (msg.getTool_calls() != null && !msg.getTool_calls().isEmpty()) {
-                var toolCall = msg.getTool_calls().get(0);
-                if ("function".equals(toolCall.getType()) && "send_email".equals(toolCall.getFunction().getName())) {
-                    return handleSendEmail(toolCall.getFunction().getArguments());
-                }
-            }
-
-            return msg.getContent() != null ? msg.getContent() : "Готов помочь!";
-
-        } catch (Exception e) {
-            logger.error("Error in chat method", e);
-            return "Произошла ошибка при обработке запроса: " + e.getMessage();
-        }
+    // Всё, что не успело до дедлайна (контекст, очередь, генерация), отменяется
+    public Mono<Response_ChatDTO> chat(String message, String mode, String conversationId,
+                                       String userId, String businessId, String authToken, Deadline deadline) {
+        Conversation conversation = conversationStore.get(userId, conversationId);
+
+        Mono<Response_ChatDTO> result = prepareRequest(message, mode, conversation, businessId, authToken, deadline)
+                .flatMap(prepared -> {
+                    OpenAIChatRequest request = prepared.request();
+                    String cacheKey = responseCacheKey(request, mode, message);
+                    String cached = responseCache.get(cacheKey);
+                    metrics.cache(mode, cacheKey, cached != null);
+                    if (cached != null) {
+                        return Mono.just(new Response_ChatDTO(cached, prepared.degraded()));
+                    }
+
+                    long startedAt = System.nanoTime();
+                    return metrics.timed(ChatMetrics.LLM, mode, llmAdmission.admit(businessId,
+                                    llmAdmission.estimate(request), llmClient.complete(request), ChatService::usedTokens))
+                            .doOnNext(response -> {
+                                metrics.tokens(mode, businessId, response.getUsage());
+                                responseCache.put(cacheKey, cacheableContent(response), System.nanoTime() - startedAt);
+                            })
+                            .flatMap(response -> toReply(response, mode, businessId))
+                            .map(reply -> new Response_ChatDTO(reply, prepared.degraded()))
+                            // LLM недоступен: устаревший ответ на тот же вопрос лучше, чем ошибка
+                            .onErrorResume(ChatService::isLlmFailure, e -> staleReply(cacheKey, e));
+                })
+                .timeout(deadline.remaining())
+                .doOnNext(response -> conversationStore.appendExchange(conversation, message, response.reply()))
+                .defaultIfEmpty(new Response_ChatDTO("Не удалось получить ответ от модели."))
+                // 429 уходит контроллеру как есть: клиенту нужен Retry-After, а не текст ошибки
+                .onErrorResume(ChatService::isLlmFailure, e -> Mono.just(new Response_ChatDTO(failureReply(e), true)));
+        return metrics.timed(ChatMetrics.TOTAL, mode, result);
     }
 
+    // Тот же запрос, что и chat, но ответ уходит клиенту по мере генерации:
+    // token — очередной кусок текста, tool — результат вызова функции, error, done;
+    // degraded — ответ без актуального контекста, из кэша вместо модели или вместо него ошибка;
+    // rate_limited — запрос не допущен к LLM, в данных — через сколько секунд повторить
+    public Flux<ServerSentEvent<String>> chatStream(String message, String mode, String conversationId,
+                                                    String userId, String businessId, String authToken,
+                                                    Deadline deadline) {
+        Conversation conversation = conversationStore.get(userId, conversationId);
+
+        Flux<ServerSentEvent<String>> events = prepareRequest(message, mode, conversation, businessId, authToken, deadline)
+                .flatMapMany(prepared -> {
+                    OpenAIChatRequest request = prepared.request();
+                    String cacheKey = responseCacheKey(request, mode, message);
+                    String cached = responseCache.get(cacheKey);
+                    metrics.cache(mode, cacheKey, cached != null);
+                    if (cached != null) {
+                        conversationStore.appendExchange(conversation, message, cached);
+                        return prepared.degraded()
+                                ? Flux.just(sseEvent("degraded", ""), sseEvent("token", cached))
+                                : Flux.just(sseEvent("token", cached));
+                    }
+
+                    long startedAt = System.nanoTime();
+                    AtomicBoolean firstToken = new AtomicBoolean(true);
+                    ToolCallAccumulator toolCalls = new ToolCallAccumulator();
+                    StringBuilder content = new StringBuilder();
+                    AtomicLong usedTokens = new AtomicLong();
+                    AtomicReference<String> finishReason = new AtomicReference<>();
+
+                    Flux<OpenAIChatStreamChunk> chunks = metrics.timed(ChatMetrics.LLM, mode, llmAdmission.admitStream(
+                            businessId, llmAdmission.estimate(request), llmClient.stream(request), usedTokens));
+
+                    Flux<ServerSentEvent<String>> tokens = chunks
+                            .doOnNext(chunk -> {
+                                var usage = chunk.usageOrNull();
+                                if (usage != null && usage.getTotal_tokens() != null) {
+                                    usedTokens.set(usage.getTotal_tokens());
+                                }
+                                metrics.tokens(mode, businessId, usage);
+                            })
+                            .filter(chunk -> chunk.getChoices() != null && !chunk.getChoices().isEmpty())
+                            // finish_reason приходит в последнем куске с choices
+                            .doOnNext(chunk -> {
+                                String reason = chunk.getChoices().get(0).getFinish_reason();
+                                if (reason != null) finishReason.set(reason);
+                            })
+                            .map(chunk -> chunk.getChoices().get(0).getDelta())
+                            .filter(Objects::nonNull)
+                            .handle((delta, sink) -> {
+                                toolCalls.accept(delta.getTool_calls());
+                                if (delta.getContent() != null && !delta.getContent().isEmpty()) {
+                                    if (firstToken.compareAndSet(true, false)) {
+                                        long ttft = System.nanoTime() - startedAt;
+                                        metrics.firstToken(mode, ttft);
+                                        logger.info("LLM time to first token: {} ms", ttft / 1_000_000);
+                                    }
+                                    content.append(delta.getContent());
+                                    sink.next(sseEvent("token", delta.getContent()));
+                                }
+                            });
+
+                    Flux<ServerSentEvent<String>> answer = tokens
+                            .concatWith(Flux.defer(() -> handleToolCalls(toolCalls.toolCalls(), mode, businessId)
+                                    .doOnNext(result -> conversationStore.appendExchange(conversation, message, result))
+                                    .map(result -> sseEvent("tool", result))))
+                            .doOnComplete(() -> {
+                                long elapsed = System.nanoTime() - startedAt;
+                                logger.info("LLM stream completed in {} ms", elapsed / 1_000_000);
+                                if (toolCalls.isEmpty()) {
+                                    if (!TRUNCATED.equals(finishReason.get())) {
+                                        responseCache.put(cacheKey, content.toString(), elapsed);
+                                    }
+                                    conversationStore.appendExchange(conversation, message, content.toString());
+                                }
+                            })
+                            // пока клиент не получил ни одного токена, отказ LLM можно закрыть устаревшим ответом
+                            .onErrorResume(e -> isLlmFailure(e) && firstToken.get(), e -> {
+                                String stale = responseCache.getStale(cacheKey);
+                                if (stale == null) return Flux.error(e);
+                                conversationStore.appendExchange(conversation, message, stale);
+                                return Flux.just(sseEvent("degraded", ""), sseEvent("token", stale));
+                            });
+                    // degraded — только вместе с первым событием ответа: пока ничего не записано,
+                    // отказ в допуске к LLM ещё может уйти клиенту отдельным событием rate_limited
+                    return !prepared.degraded() ? answer : answer.switchOnFirst((first, flux) ->
+                            first.hasValue() && !"degraded".equals(first.get().event())
+                                    ? Flux.just(sseEvent("degraded", "")).concatWith(flux)
+                                    : flux);
+                })
+                // дедлайн на весь поток: таймаут каждого следующего кадра — остаток до дедлайна
+                .timeout(Mono.delay(deadline.remaining()), event -> Mono.delay(deadline.remaining()))
+                .concatWith(Mono.fromSupplier(() -> sseEvent("done", "")))
+                .onErrorResume(ChatService::isLlmFailure,
+                        e -> Flux.just(sseEvent("degraded", ""), sseEvent("error", failureReply(e))))
+                // заголовки SSE-ответа к этому моменту могут быть уже отправлены, поэтому не 429, а событие
+                .onErrorResume(RateLimitedException.class,
+                        e -> Flux.just(sseEvent("rate_limited", String.valueOf(e.retryAfterSeconds()))));
+        return metrics.timed(ChatMetrics.TOTAL, mode, events);
+    }
 
-    private boolean shouldEnableEmailTool(String userMessage) {
-        if (userMessage == null) return false;
-        String lower = userMessage.toLowerCase();
+    private Mono<String> toReply(OpenAIChatResponse response, String mode, String businessId) {
+        if (response.getChoices() == null || response.getChoices().isEmpty()) {
+            return Mono.just("Не удалось получить ответ от модели.");
+        }
 
-        if (lower.contains("напиши и отправь письмо")) return true;
-        if (lower.contains("напиши письмо и отправь")) return true;
-        if (lower.contains("напиши и отправь e-mail")) return true;
-        if (lower.contains("напиши и отправь email")) return true;
+        var msg = response.getChoices().get(0).getMessage();
 
-        return false;
+        // Проверка на tool call (сработает только если функция была показана модели)
+        return handleToolCalls(msg.getTool_calls(), mode, businessId)
+                .defaultIfEmpty(msg.getContent() != null ? msg.getContent() : "Готов помочь!");
     }
 
-    private String handleSendEmail(String argumentsJson) {
-        try {
-            JsonNode args = objectMapper.readTree(argumentsJson);
-            String to = args.get("to").asText();
-            String subject = args.get("subject").asText();
-            String body = args.get("body").asText();
-            boolean isHtml = args.has("isHtml") && args.get("isHtml").asBoolean();
-
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(body, isHtml);
-            mailSender.send(mimeMessage);
-
-            return "Письмо успешно отправлено на " + to + "!";
-        } catch (Exception e) {
-            logger.error("Ошибка отправки письма", e);
-            return "Ошибка: " + e.getMessage();
+    private static String failureReply(Throwable e) {
+        if (e instanceof CallNotPermittedException) {
+            logger.warn("LLM circuit breaker open: {}", e.getMessage());
+            return UNAVAILABLE;
         }
+        if (e instanceof TimeoutException || e instanceof DeadlineExceededException) {
+            logger.warn("Chat request deadline exceeded: {}", e.getMessage());
+            return TIMED_OUT;
+        }
+        logger.error("Error in chat request", e);
+        return "Произошла ошибка при обработке запроса: " + e.getMessage();
+    }
+
+    private Mono<Response_ChatDTO> staleReply(String cacheKey, Throwable e) {
+        String stale = responseCache.getStale(cacheKey);
+        return stale != null ? Mono.just(new Response_ChatDTO(stale, true)) : Mono.error(e);
+    }
+
+    // 429 уходит контроллеру как есть, всё остальное закрывается fallback-ответом
+    private static boolean isLlmFailure(Throwable e) {
+        return !(e instanceof RateLimitedException);
     }
 
-    private JsonNode jsonProp(String type, String description) {
-        ObjectNode node = objectMapper.createObjectNode();
-        node.put("type", type);
-        node.put("description", description);
-        return node;
+    private static long usedTokens(OpenAIChatResponse response) {
+        var usage = response.getUsage();
+        return usage != null && usage.getTotal_tokens() != null ? usage.getTotal_tokens() : 0;
+    }
+
+    // Кэшируются только запросы без истории и без send_email: [system, user]
+    private String responseCacheKey(OpenAIChatRequest request, String mode, String message) {
+        return responseCache.key(
+                request.getModel(),
+                mode,
+                request.getMessages().get(0).getContent(),
+                message,
+                request.getTools() != null || request.getMessages().size() > 2
+        );
+    }
+
+    // В кэш идёт только обычный текстовый ответ, без вызовов функций
+    private static String cacheableContent(OpenAIChatResponse response) {
+        if (response.getChoices() == null || response.getChoices().isEmpty()) return null;
+        // max_tokens зависит от остатка дедлайна и в ключ не входит: обрезанный ответ не должен
+        // достаться запросу с полным бюджетом
+        if (TRUNCATED.equals(response.getChoices().get(0).getFinish_reason())) return null;
+        var msg = response.getChoices().get(0).getMessage();
+        if (msg == null || (msg.getTool_calls() != null && !msg.getTool_calls().isEmpty())) return null;
+        return msg.getContent();
+    }
+
+    private Mono<PreparedRequest> prepareRequest(String message, String mode, Conversation conversation,
+                                                 String businessId, String authToken, Deadline deadline) {
+        List<OpenAIChatRequest.Message> history = conversation == null
+                ? List.of()
+                : conversation.window(conversationStore.historyTokenBudget());
+
+        return metrics.timed(ChatMetrics.CONTEXT, mode, businessContextService.renderedContext(businessId, authToken,
+                        message, deadline, deadlinePolicy.contextTimeout(deadline)))
+                .flatMap(busContext -> metrics.timed(ChatMetrics.PROMPT, mode, Mono.fromSupplier(() -> new PreparedRequest(
+                        buildRequest(message, mode, busContext.text(), history, deadline), busContext.degraded()))));
+    }
+
+    private OpenAIChatRequest buildRequest(String message, String mode, String busContext,
+                                           List<OpenAIChatRequest.Message> history, Deadline deadline) {
+        String systemPrompt = prompts.systemPrompt(mode, busContext);
+
+        List<OpenAIChatRequest.Message> messages = new ArrayList<>(history.size() + 2);
+        messages.add(new OpenAIChatRequest.Message("system", systemPrompt));
+        messages.addAll(history);
+        messages.add(new OpenAIChatRequest.Message("user", message));
+
+        // какие функции показать модели решает словарь триггеров (app.tools.triggers)
+        Set<String> toolNames = intentDetector.detect(message);
+        ToolRegistry.ToolSet tools = toolRegistry.tools(toolNames);
+
+        OpenAIChatRequest request = new OpenAIChatRequest();
+        request.setModel(model);
+        request.setMessages(messages);
+        request.setTemperature(0.7);
+        // длинный ответ, который не успеет до дедлайна, генерировать незачем
+        request.setMax_tokens(deadlinePolicy.maxTokens(deadline));
+
+        if (tools != null) {
+            // описания функций собраны и сериализованы один раз при старте
+            request.setTools(tools);
+            request.setTool_choice("auto");
+        } else {
+            // никакой функции для этого запроса
+            request.setTools(null);
+            request.setTool_choice("none");
+        }
+
+        logger.info("Sending request to LLM API with model: {}, tools={}", model, toolNames);
+        return request;
     }
 
-    private BusinessContextDTO fetchBusinessContext(String businessId, String token) {
-        try {
-            return authWebCLient.get()
-                    .uri("/api/business/{businessId}", businessId)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
-                    .retrieve()
-                    .bodyToMono(BusinessContextDTO.class)
-                    .block();
-        } catch (Exception e) {
-            logger.error("Ошибка получения контекста", e);
-            return null;
+    // пусто — если модель не вызывала send_email; запись в журнал outbox синхронная, поэтому на boundedElastic
+    private Mono<String> handleToolCalls(List<OpenAIChatResponse.ToolCall> toolCalls, String mode, String businessId) {
+        if (toolCalls == null || toolCalls.isEmpty()) return Mono.empty();
+        var toolCall = toolCalls.get(0);
+        if ("function".equals(toolCall.getType()) && ToolRegistry.SEND_EMAIL.equals(toolCall.getFunction().getName())) {
+            metrics.toolCall(mode, ToolRegistry.SEND_EMAIL);
+            return metrics.timed(ChatMetrics.TOOL, mode,
+                    handleSendEmail(toolCall.getFunction().getArguments(), mode, businessId)
+                            .subscribeOn(Schedulers.boundedElastic()));
         }
+        // имя функции придумала модель — в тег идёт только "other"
+        metrics.toolCall(mode, "other");
+        return Mono.empty();
     }
 
-    private String buildBusinessContext(BusinessContextDTO ctx) {
-        if (ctx == null) return "";
-        String employees = ctx.employees().isEmpty() ? "Нет сотрудников" :
-                ctx.employees().stream()
-                        .map(e -> " - " + e.name() + " (" + e.position() + ", " + e.email() + ")")
-                        .reduce((a, b) -> a + "\n" + b).orElse("");
-
-        return """
-                Контекст бизнеса:
-                - ID: %s
-                - Название: %s
-                - Сфера: %s
-                - Владелец: %s
-                - Прибыль: %s
-                - Сотрудники:
-                %s
-                """.formatted(ctx.businessId(), ctx.businessName(), ctx.area(), ctx.ownerName(), ctx.profit(), employees);
+    private static ServerSentEvent<String> sseEvent(String event, String data) {
+        return ServerSentEvent.builder(data).event(event).build();
     }
 
-    private String buildSystemPrompt(String mode, String busContext) {
-        String base = switch (mode == null ? "" : mode) {
-            case "copilot" -> prompts.getSystemPromptCop();
-            default -> prompts.getDefaultPrompt();
-        };
-        return base + (busContext.isEmpty() ? "" : "\n\n" + busContext);
+    private Mono<String> handleSendEmail(String argumentsJson, String mode, String businessId) {
+        return Mono.fromCallable(() -> objectMapper.readTree(argumentsJson))
+                .flatMap(args -> {
+                    String to = args.get("to").asText();
+                    String subject = args.get("subject").asText();
+                    String body = args.get("body").asText();
+                    boolean isHtml = args.has("isHtml") && args.get("isHtml").asBoolean();
+
+                    return metrics.timed(ChatMetrics.EMAIL, mode,
+                                    Mono.fromCallable(() -> emailOutbox.enqueue(businessId, to, subject, body, isHtml)))
+                            .map(id -> "Письмо поставлено в очередь на отправку на " + to + " (id: " + id + ")");
+                })
+                .onErrorResume(e -> {
+                    logger.error("Ошибка отправки письма", e);
+                    return Mono.just("Ошибка: " + e.getMessage());
+                });
     }
 }
@@ -0,0 +1,224 @@
+package com.example.ai_service.services.context;
+
+import com.example.ai_service.entity.dto.BusinessContextDTO;
+import com.example.ai_service.entity.dto.EmployeeDTO;
+import com.example.ai_service.services.llm.TokenCounter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Текст контекста бизнеса для system prompt в пределах app.business-context.max-tokens.
+ * prepare() один раз на загрузку контекста раскладывает его на строки с посчитанными токенами;
+ * render() для крупных компаний сначала берёт сотрудников, чьё имя или должность упомянуты
+ * в сообщении, затем остальных по порядку, пока хватает бюджета, а оставшихся сводит
+ * в число сотрудников по должностям.
+ */
+@Component
+public class BusinessContextRenderer {
+
+    // Грубый стемминг: у русских слов окончание обычно дальше 4-й буквы ("Ивану" ~ "Иван")
+    private static final int KEY_LENGTH = 4;
+    private static final int MIN_WORD = 3;
+    private static final int NAME_SCORE = 2;
+    private static final int POSITION_SCORE = 1;
+
+    private final TokenCounter tokenCounter;
+    private final int maxTokens;
+
+    public BusinessContextRenderer(
+            TokenCounter tokenCounter,
+            @Value("${app.business-context.max-tokens:1500}") int maxTokens) {
+        this.tokenCounter = tokenCounter;
+        this.maxTokens = maxTokens;
+    }
+
+    /** Контекст, разложенный для быстрого рендера под конкретное сообщение. */
+    public static final class Prepared {
+        private final String header;
+        private final int headerTokens;
+        private final String full;
+        private final int fullTokens;
+        private final String[] lines;
+        private final int[] lineTokens;
+        private final String[] positions;
+        private final String[][] nameKeys;
+        private final String[][] positionKeys;
+        private final int summaryReserve;
+
+        private Prepared(String header, int headerTokens, String full, int fullTokens, String[] lines,
+                         int[] lineTokens, String[] positions, String[][] nameKeys, String[][] positionKeys,
+                         int summaryReserve) {
+            this.header = header;
+            this.headerTokens = headerTokens;
+            this.full = full;
+            this.fullTokens = fullTokens;
+            this.lines = lines;
+            this.lineTokens = lineTokens;
+            this.positions = positions;
+            this.nameKeys = nameKeys;
+            this.positionKeys = positionKeys;
+            this.summaryReserve = summaryReserve;
+        }
+
+        // Полный текст со всеми сотрудниками, как он был бы без бюджета
+        public String full() {
+            return full;
+        }
+
+        public int fullTokens() {
+            return fullTokens;
+        }
+    }
+
+    public Prepared prepare(BusinessContextDTO ctx) {
+        if (ctx == null) {
+            return new Prepared("", 0, "", 0, new String[0], new int[0], new String[0],
+                    new String[0][], new String[0][], 0);
+        }
+
+        String header = """
+                Контекст бизнеса:
+                - ID: %s
+                - Название: %s
+                - Сфера: %s
+                - Владелец: %s
+                - Прибыль: %s
+                - Сотрудники:
+                """.formatted(ctx.businessId(), ctx.businessName(), ctx.area(), ctx.ownerName(), ctx.profit());
+
+        List<EmployeeDTO> employees = ctx.employees() == null ? List.of() : ctx.employees();
+        int count = employees.size();
+        String[] lines = new String[count];
+        int[] lineTokens = new int[count];
+        String[] positions = new String[count];
+        String[][] nameKeys = new String[count][];
+        String[][] positionKeys = new String[count][];
+
+        // один буфер на весь текст вместо конкатенации строк в reduce
+        StringBuilder full = new StringBuilder(header.length() + count * 64).append(header);
+        int headerTokens = tokenCounter.count(header);
+        int fullTokens = headerTokens;
+        if (count == 0) {
+            full.append("Нет сотрудников\n");
+            fullTokens = tokenCounter.count(full);
+        }
+        for (int i = 0; i < count; i++) {
+            EmployeeDTO e = employees.get(i);
+            lines[i] = " - " + e.name() + " (" + e.position() + ", " + e.email() + ")\n";
+            lineTokens[i] = tokenCounter.count(lines[i]);
+            positions[i] = e.position() == null ? "" : e.position();
+            nameKeys[i] = keys(e.name()).toArray(new String[0]);
+            positionKeys[i] = keys(e.position()).toArray(new String[0]);
+            full.append(lines[i]);
+            fullTokens += lineTokens[i];
+        }
+
+        // сводка по всем должностям — верхняя оценка сводки по любой их части
+        int summaryReserve = tokenCounter.count(summary(positions, new boolean[count]));
+        return new Prepared(header, headerTokens, full.toString(), fullTokens, lines, lineTokens,
+                positions, nameKeys, positionKeys, summaryReserve);
+    }
+
+    public String render(Prepared prepared, String message) {
+        if (prepared.fullTokens <= maxTokens || prepared.lines.length == 0) {
+            return prepared.full;
+        }
+
+        int count = prepared.lines.length;
+        boolean[] included = new boolean[count];
+        int budget = maxTokens - prepared.headerTokens - prepared.summaryReserve;
+        StringBuilder out = new StringBuilder(maxTokens * 3).append(prepared.header);
+
+        // упомянутые в сообщении — первыми, по убыванию совпадений
+        for (int index : ranked(prepared, message)) {
+            if (prepared.lineTokens[index] <= budget) {
+                out.append(prepared.lines[index]);
+                budget -= prepared.lineTokens[index];
+                included[index] = true;
+            }
+        }
+        for (int i = 0; i < count && budget > 0; i++) {
+            if (included[i]) continue;
+            if (prepared.lineTokens[i] > budget) break;
+            out.append(prepared.lines[i]);
+            budget -= prepared.lineTokens[i];
+            included[i] = true;
+        }
+
+        out.append(summary(prepared.positions, included));
+        return out.toString();
+    }
+
+    private static List<Integer> ranked(Prepared prepared, String message) {
+        Set<String> messageKeys = keys(message);
+        if (messageKeys.isEmpty()) return List.of();
+
+        List<Integer> matched = new ArrayList<>();
+        int[] scores = new int[prepared.lines.length];
+        for (int i = 0; i < prepared.lines.length; i++) {
+            scores[i] = NAME_SCORE * matches(prepared.nameKeys[i], messageKeys)
+                    + POSITION_SCORE * matches(prepared.positionKeys[i], messageKeys);
+            if (scores[i] > 0) matched.add(i);
+        }
+        // сортировка стабильная: при равенстве сохраняется исходный порядок
+        matched.sort((a, b) -> Integer.compare(scores[b], scores[a]));
+        return matched;
+    }
+
+    private static int matches(String[] keys, Set<String> messageKeys) {
+        int matches = 0;
+        for (String key : keys) {
+            if (messageKeys.contains(key)) matches++;
+        }
+        return matches;
+    }
+
+    // " - Остальные сотрудники (N) по должностям: Курьер — 120, Повар — 15"
+    private static String summary(String[] positions, boolean[] included) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        int rest = 0;
+        for (int i = 0; i < positions.length; i++) {
+            if (included[i]) continue;
+            counts.merge(positions[i].isBlank() ? "без должности" : positions[i], 1, Integer::sum);
+            rest++;
+        }
+        if (rest == 0) return "";
+
+        StringBuilder summary = new StringBuilder(32 + counts.size() * 24)
+                .append(" - Остальные сотрудники (").append(rest).append(") по должностям: ");
+        List<Map.Entry<String, Integer>> byCount = new ArrayList<>(counts.entrySet());
+        byCount.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        for (int i = 0; i < byCount.size(); i++) {
+            if (i > 0) summary.append(", ");
+            summary.append(byCount.get(i).getKey()).append(" — ").append(byCount.get(i).getValue());
+        }
+        return summary.append('\n').toString();
+    }
+
+    private static Set<String> keys(String text) {
+        if (text == null || text.isEmpty()) return Set.of();
+        Set<String> keys = new HashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                if (i - start >= MIN_WORD) {
+                    keys.add(text.substring(start, Math.min(i, start + KEY_LENGTH))
+                            .toLowerCase(Locale.ROOT).replace('ё', 'е'));
+                }
+                start = -1;
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.ai_service.services.context;
+
+import com.example.ai_service.entity.dto.BusinessContextDTO;
+import com.example.ai_service.services.deadline.Deadline;
+import com.example.ai_service.services.profiling.RequestIds;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Контекст бизнеса из auth-service. Имя, сфера, прибыль и сотрудники меняются редко,
+ * поэтому DTO и подготовленный для system prompt текст кэшируются по businessId:
+ * в установившемся режиме ход чата не обращается к auth-service вовсе.
+ *
+ * Вызовы auth-service идут через circuit breaker "auth-service". Если загрузить контекст не удалось
+ * (breaker открыт или auth-service ответил ошибкой), отдаётся последний известный контекст бизнеса
+ * из lastKnown, который живёт дольше основного кэша; ответ в этом случае помечается как degraded.
+ *
+ * Изменения бизнеса и сотрудников auth-service присылает через outbox (applyChange) с версией бизнеса:
+ * запись сбрасывается сразу, а повторная или запоздавшая доставка старой версии ничего не трогает.
+ * Поэтому ttl и refresh-after — лишь подстраховка на случай потерянного события.
+ */
+@Service
+public class BusinessContextService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusinessContextService.class);
+
+    private final WebClient authWebClient;
+    private final BusinessContextRenderer renderer;
+    private final AsyncCache<String, CachedContext> cache;
+    private final Cache<String, CachedContext> lastKnown;
+    // последняя версия бизнеса из outbox auth-service
+    private final Cache<String, Long> versions;
+    private final CircuitBreaker breaker;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Duration refreshAfter;
+    private final Counter refreshCounter;
+    private final Counter fallbackCounter;
+    private final Counter invalidationCounter;
+
+    public record CachedContext(BusinessContextDTO context, BusinessContextRenderer.Prepared prepared,
+                                long loadedAtNanos) { }
+
+    // degraded — текст взят из последнего известного контекста или контекста нет из-за отказа auth-service
+    public record Rendered(String text, boolean degraded) {
+        public static final Rendered EMPTY = new Rendered("", false);
+    }
+
+    public BusinessContextService(
+            @Qualifier("authWebClient") WebClient authWebClient,
+            BusinessContextRenderer renderer,
+            MeterRegistry meterRegistry,
+            CircuitBreakerRegistry breakers,
+            @Value("${app.business-context.cache.max-size:10000}") long maxSize,
+            @Value("${app.business-context.cache.ttl:30m}") Duration ttl,
+            @Value("${app.business-context.cache.refresh-after:1m}") Duration refreshAfter,
+            @Value("${app.business-context.cache.last-known-ttl:24h}") Duration lastKnownTtl) {
+        this.authWebClient = authWebClient;
+        this.renderer = renderer;
+        this.refreshAfter = refreshAfter;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "business-context");
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(lastKnownTtl)
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(lastKnownTtl)
+                .build();
+        this.breaker = breakers.circuitBreaker("auth-service", "auth");
+        this.refreshCounter = Counter.builder("business.context.refresh")
+                .description("Фоновые обновления контекста бизнеса (refresh-ahead)")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("business.context.fallback")
+                .description("Ответы с последним известным контекстом при отказе auth-service")
+                .register(meterRegistry);
+        this.invalidationCounter = Counter.builder("business.context.invalidations")
+                .description("Сбросы контекста по событиям об изменении бизнеса из auth-service")
+                .register(meterRegistry);
+    }
+
+    // Ошибка — если контекст не удалось получить; fallback на последний известный делает renderedContext
+    // Загрузку ведёт первый промахнувшийся запрос и передаёт auth-service свой дедлайн;
+    // остальные ждут общий future не дольше своего timeout
+    public Mono<CachedContext> get(String businessId, String token, Deadline deadline, Duration timeout) {
+        if (businessId == null) return Mono.empty();
+        // suppressCancel: общий future загрузки не должен отменяться, если ушёл один из ожидающих
+        return Mono.deferContextual(context -> Mono.fromFuture(() -> cache.get(businessId,
+                        (id, executor) -> load(id, token, deadline, RequestIds.from(context)).toFuture()), true))
+                .timeout(timeout)
+                .doOnNext(cached -> refreshIfStale(businessId, token, cached));
+    }
+
+    // Текст под конкретное сообщение: у крупных компаний в бюджет попадают прежде всего упомянутые сотрудники
+    public Mono<Rendered> renderedContext(String businessId, String token, String message,
+                                          Deadline deadline, Duration timeout) {
+        return get(businessId, token, deadline, timeout)
+                .map(cached -> new Rendered(renderer.render(cached.prepared(), message), false))
+                .defaultIfEmpty(Rendered.EMPTY)
+                .onErrorResume(e -> {
+                    // 401/403/404 — ошибка в самом запросе, auth-service жив: подменять контекст нечем
+                    if (e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+                        logger.error("Ошибка получения контекста", e);
+                        return Mono.just(Rendered.EMPTY);
+                    }
+                    CachedContext known = lastKnown.getIfPresent(businessId);
+                    logger.warn("Контекст бизнеса {} недоступен ({}), последний известный: {}",
+                            businessId, e.toString(), known != null ? "есть" : "нет");
+                    fallbackCounter.increment();
+                    String text = known != null ? renderer.render(known.prepared(), message) : "";
+                    return Mono.just(new Rendered(text, true));
+                });
+    }
+
+    // lastKnown не трогаем: устаревший контекст при отказе auth-service лучше, чем никакого
+    public void invalidate(String businessId) {
+        cache.synchronous().invalidate(businessId);
+    }
+
+    // Событие outbox: сбрасывает кэш, только если версия новее уже виденной; false — повтор или старое событие
+    public boolean applyChange(String businessId, long version) {
+        if (businessId == null) return false;
+        boolean[] newer = {false};
+        versions.asMap().compute(businessId, (id, seen) -> {
+            if (seen != null && seen >= version) return seen;
+            newer[0] = true;
+            return version;
+        });
+        if (!newer[0]) return false;
+        // загрузка, начатая до изменения, в кэш уже не попадёт: Caffeine забывает и незавершённый future
+        invalidate(businessId);
+        invalidationCounter.increment();
+        return true;
+    }
+
+    // refresh-ahead: запись отдаётся сразу, а перезагрузка идёт в фоне с токеном текущего запроса
+    private void refreshIfStale(String businessId, String token, CachedContext cached) {
+        if (System.nanoTime() - cached.loadedAtNanos() < refreshAfter.toNanos()) return;
+        if (!refreshing.add(businessId)) return;
+        refreshCounter.increment();
+        Long version = versions.getIfPresent(businessId);
+        // фоновая перезагрузка не привязана к дедлайну запроса, её ограничивают таймауты WebClient
+        load(businessId, token, null, null)
+                .doFinally(signal -> refreshing.remove(businessId))
+                .subscribe(
+                        fresh -> {
+                            // пока шла загрузка, пришло событие об изменении: ответ мог быть прочитан до него
+                            if (Objects.equals(version, versions.getIfPresent(businessId))) {
+                                cache.put(businessId, CompletableFuture.completedFuture(fresh));
+                            }
+                        },
+                        e -> logger.warn("Не удалось обновить контекст бизнеса {}: {}", businessId, e.getMessage())
+                );
+    }
+
+    private Mono<CachedContext> load(String businessId, String token, Deadline deadline, String requestId) {
+        return authWebClient.get()
+                .uri("/api/business/{businessId}", businessId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                // auth-service выставит по нему statement timeout своих запросов к БД
+                .headers(headers -> {
+                    if (deadline != null) headers.set(Deadline.HEADER, deadline.headerValue());
+                    // тот же X-Request-Id в JFR-событиях обоих сервисов
+                    if (requestId != null && !requestId.isEmpty()) headers.set(RequestIds.HEADER, requestId);
+                })
+                .retrieve()
+                .bodyToMono(BusinessContextDTO.class)
+                .transformDeferred(CircuitBreakerOperator.of(breaker))
+                .map(ctx -> new CachedContext(ctx, renderer.prepare(ctx), System.nanoTime()))
+                .doOnNext(loaded -> lastKnown.put(businessId, loaded));
+    }
+}
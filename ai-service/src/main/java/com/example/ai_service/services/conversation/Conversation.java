@@ -0,0 +1,103 @@
+package com.example.ai_service.services.conversation;
+
+import com.example.ai_service.entity.dto.OpenAIChatRequest;
+import com.example.ai_service.services.llm.TokenCounter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * История одного диалога: последние ходы целиком и свёрнутое краткое содержание всего,
+ * что в бюджет токенов уже не помещается. Стоимость хранения ограничена сверху
+ * числом ходов, длиной хода и длиной сводки.
+ */
+public class Conversation {
+
+    private static final String SUMMARY_PREFIX = "Краткое содержание предыдущей части разговора:";
+    private static final int SUMMARY_LINE_CHARS = 200;
+    private static final int TURN_OVERHEAD_BYTES = 64;
+
+    public record Turn(String role, String content, int tokens) { }
+
+    private final ConversationStore.Key key;
+    private final TokenCounter tokenCounter;
+    private final int maxTurns;
+    private final int maxTurnChars;
+    private final int summaryMaxChars;
+
+    private final ArrayDeque<Turn> turns = new ArrayDeque<>();
+    private final StringBuilder summary = new StringBuilder();
+    private int turnsTokens;
+    private int summaryTokens;
+    private long contentChars;
+
+    Conversation(ConversationStore.Key key, TokenCounter tokenCounter, int maxTurns, int maxTurnChars, int summaryMaxChars) {
+        this.key = key;
+        this.tokenCounter = tokenCounter;
+        this.maxTurns = maxTurns;
+        this.maxTurnChars = maxTurnChars;
+        this.summaryMaxChars = summaryMaxChars;
+    }
+
+    ConversationStore.Key key() {
+        return key;
+    }
+
+    synchronized void append(String role, String content) {
+        if (content == null || content.isBlank()) return;
+        String stored = content.length() > maxTurnChars ? content.substring(0, maxTurnChars) : content;
+        Turn turn = new Turn(role, stored, tokenCounter.countMessage(stored));
+        turns.addLast(turn);
+        turnsTokens += turn.tokens();
+        contentChars += stored.length();
+        while (turns.size() > maxTurns) {
+            fold(turns.pollFirst());
+        }
+    }
+
+    /**
+     * Сообщения истории, которые помещаются в budget токенов: ходы набираются от новых к старым,
+     * а не поместившиеся старые ходы сворачиваются в сводку (один раз — дальше они уже не нужны).
+     */
+    public synchronized List<OpenAIChatRequest.Message> window(int budget) {
+        while (!turns.isEmpty() && summaryTokens + turnsTokens > budget) {
+            fold(turns.pollFirst());
+        }
+
+        List<OpenAIChatRequest.Message> messages = new ArrayList<>(turns.size() + 1);
+        if (!summary.isEmpty()) {
+            messages.add(new OpenAIChatRequest.Message("system", SUMMARY_PREFIX + summary));
+        }
+        for (Turn turn : turns) {
+            messages.add(new OpenAIChatRequest.Message(turn.role(), turn.content()));
+        }
+        return messages;
+    }
+
+    synchronized int approximateBytes() {
+        long bytes = 2 * (contentChars + summary.length()) + (long) TURN_OVERHEAD_BYTES * turns.size();
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    // Сводка экстрактивная: по строке на ход, самые старые строки отбрасываются при переполнении
+    private void fold(Turn turn) {
+        turnsTokens -= turn.tokens();
+        contentChars -= turn.content().length();
+
+        String text = turn.content().replace('\n', ' ');
+        if (text.length() > SUMMARY_LINE_CHARS) {
+            text = text.substring(0, SUMMARY_LINE_CHARS) + "…";
+        }
+        summary.append("\n- ")
+                .append("user".equals(turn.role()) ? "Пользователь" : "Ассистент")
+                .append(": ")
+                .append(text);
+
+        if (summary.length() > summaryMaxChars) {
+            int cut = summary.indexOf("\n", summary.length() - summaryMaxChars);
+            summary.delete(0, cut < 0 ? summary.length() - summaryMaxChars : cut);
+        }
+        summaryTokens = tokenCounter.count(summary);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ai_service.services.conversation;
+
+import com.example.ai_service.services.llm.TokenCounter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Диалоги в памяти ai-service по (userId, conversationId). Поиск — один hash lookup
+ * независимо от длины диалога; общий объём ограничен max-memory, простаивающие диалоги
+ * вытесняются через idle-ttl.
+ */
+@Component
+public class ConversationStore {
+
+    public record Key(String userId, String conversationId) { }
+
+    private final Cache<Key, Conversation> conversations;
+    private final TokenCounter tokenCounter;
+    private final int historyTokenBudget;
+    private final int maxTurns;
+    private final int maxTurnChars;
+    private final int summaryMaxChars;
+
+    public ConversationStore(
+            TokenCounter tokenCounter,
+            MeterRegistry meterRegistry,
+            @Value("${app.conversation.history-token-budget:2000}") int historyTokenBudget,
+            @Value("${app.conversation.max-turns:40}") int maxTurns,
+            @Value("${app.conversation.max-turn-chars:8000}") int maxTurnChars,
+            @Value("${app.conversation.summary-max-chars:2000}") int summaryMaxChars,
+            @Value("${app.conversation.idle-ttl:2h}") Duration idleTtl,
+            @Value("${app.conversation.max-memory:64MB}") DataSize maxMemory) {
+        this.tokenCounter = tokenCounter;
+        this.historyTokenBudget = historyTokenBudget;
+        this.maxTurns = maxTurns;
+        this.maxTurnChars = maxTurnChars;
+        this.summaryMaxChars = summaryMaxChars;
+        this.conversations = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((Key key, Conversation conversation) -> conversation.approximateBytes())
+                .expireAfterAccess(idleTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, conversations, "conversations");
+    }
+
+    // null — клиент не передал conversationId, история не ведётся
+    public Conversation get(String userId, String conversationId) {
+        if (userId == null || conversationId == null || conversationId.isBlank()) return null;
+        Key key = new Key(userId, conversationId);
+        return conversations.get(key, k -> new Conversation(k, tokenCounter, maxTurns, maxTurnChars, summaryMaxChars));
+    }
+
+    public int historyTokenBudget() {
+        return historyTokenBudget;
+    }
+
+    public void appendExchange(Conversation conversation, String userMessage, String reply) {
+        if (conversation == null) return;
+        conversation.append("user", userMessage);
+        conversation.append("assistant", reply);
+        // повторный put пересчитывает вес диалога для вытеснения по памяти
+        conversations.put(conversation.key(), conversation);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.ai_service.services.deadline;
+
+import java.time.Duration;
+
+/**
+ * Момент, после которого ответ клиенту уже не нужен. Задаётся в ChatController и расходуется
+ * каждым следующим шагом: контекст бизнеса, очередь к LLM, сама генерация. Между сервисами
+ * передаётся заголовком X-Request-Timeout — оставшиеся миллисекунды (относительное время
+ * не зависит от расхождения часов).
+ */
+public final class Deadline {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    // Не больше limit: шагу, который может подождать и fallback, не отдаём весь остаток
+    public Duration remaining(Duration limit) {
+        Duration remaining = remaining();
+        return remaining.compareTo(limit) < 0 ? remaining : limit;
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    public String headerValue() {
+        return Long.toString(remaining().toMillis());
+    }
+}
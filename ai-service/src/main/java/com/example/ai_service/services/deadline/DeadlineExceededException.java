@@ -0,0 +1,11 @@
+package com.example.ai_service.services.deadline;
+
+/**
+ * До дедлайна запроса не осталось времени на следующий шаг: выполнять его бессмысленно.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
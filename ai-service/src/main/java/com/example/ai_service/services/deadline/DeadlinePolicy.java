@@ -0,0 +1,69 @@
+package com.example.ai_service.services.deadline;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Дедлайн запроса из заголовка клиента (X-Request-Timeout, миллисекунды) с умолчанием сервера
+ * и потолок max_tokens для LLM из оставшегося времени: (остаток - reserve) * tokens-per-second.
+ * max_tokens округляется вниз до степени двойки, чтобы одинаковые вопросы с разными
+ * дедлайнами давали одно тело запроса (single-flight и кэши по отпечатку тела).
+ */
+@Component
+public class DeadlinePolicy {
+
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+    private final Duration contextTimeout;
+    private final Duration llmReserve;
+    private final int tokensPerSecond;
+    private final int minTokens;
+    private final int maxTokens;
+
+    public DeadlinePolicy(
+            @Value("${app.deadline.default:60s}") Duration defaultTimeout,
+            @Value("${app.deadline.max:115s}") Duration maxTimeout,
+            @Value("${app.deadline.context-timeout:3s}") Duration contextTimeout,
+            @Value("${app.deadline.llm.reserve:1s}") Duration llmReserve,
+            @Value("${app.deadline.llm.tokens-per-second:100}") int tokensPerSecond,
+            @Value("${app.deadline.llm.min-tokens:64}") int minTokens,
+            @Value("${app.deadline.llm.max-tokens:2048}") int maxTokens) {
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+        this.contextTimeout = contextTimeout;
+        this.llmReserve = llmReserve;
+        this.tokensPerSecond = tokensPerSecond;
+        this.minTokens = minTokens;
+        this.maxTokens = maxTokens;
+    }
+
+    // Нет заголовка или он нечитаем — умолчание сервера; больше max клиент попросить не может
+    public Deadline fromHeader(String header) {
+        Duration timeout = defaultTimeout;
+        if (header != null && !header.isBlank()) {
+            try {
+                timeout = Duration.ofMillis(Long.parseLong(header.trim()));
+            } catch (NumberFormatException e) {
+                // остаётся умолчание
+            }
+        }
+        if (timeout.compareTo(maxTimeout) > 0) timeout = maxTimeout;
+        return Deadline.after(timeout);
+    }
+
+    // Сколько ждать auth-service: после этого лучше последний известный контекст, чем пустой ответ
+    public Duration contextTimeout(Deadline deadline) {
+        return deadline.remaining(contextTimeout);
+    }
+
+    public int maxTokens(Deadline deadline) {
+        long budgetMillis = deadline.remaining().minus(llmReserve).toMillis();
+        long tokens = budgetMillis * tokensPerSecond / 1000;
+        if (tokens < minTokens) {
+            throw new DeadlineExceededException("Недостаточно времени для ответа модели");
+        }
+        return Integer.highestOneBit((int) Math.min(tokens, maxTokens));
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.ai_service.services.llm;
+
+import com.example.ai_service.entity.dto.OpenAIChatRequest;
+import com.example.ai_service.prompts.ConstantPrompts;
+import com.example.ai_service.services.tools.ToolRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Пишет тело /chat/completions сразу в байты, без дерева Jackson. Неизменные куски — поле model,
+ * массив tools из ToolRegistry и статическая часть system prompt — экранируются один раз и
+ * вставляются копированием; экранируется только контекст бизнеса, история и сообщение пользователя.
+ * Результат побайтно совпадает с ObjectMapper.writeValueAsBytes(request).
+ */
+@Component
+public class ChatRequestEncoder {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MESSAGES = ascii(",\"messages\":[");
+    private static final byte[] ROLE = ascii("{\"role\":");
+    private static final byte[] CONTENT = ascii(",\"content\":");
+    private static final byte[] TEMPERATURE = ascii(",\"temperature\":");
+    private static final byte[] MAX_TOKENS = ascii(",\"max_tokens\":");
+    private static final byte[] TOOLS = ascii(",\"tools\":");
+    private static final byte[] TOOL_CHOICE = ascii(",\"tool_choice\":");
+    private static final byte[] STREAM_TRUE = ascii(",\"stream\":true");
+    private static final byte[] STREAM_FALSE = ascii(",\"stream\":false");
+    private static final byte[] NULL = ascii("null");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // {"model":"..." — моделей единицы, кэш не растёт
+    private final Map<String, byte[]> modelPrefixes = new ConcurrentHashMap<>();
+    private final List<StaticPrefix> staticPrefixes;
+
+    // Начало system prompt, уже экранированное (без открывающей кавычки)
+    private record StaticPrefix(String text, byte[] escaped) { }
+
+    public ChatRequestEncoder(ConstantPrompts prompts) {
+        this.staticPrefixes = List.of(
+                staticPrefix(prompts.getSystemPromptCop()),
+                staticPrefix(prompts.getDefaultPrompt()));
+    }
+
+    public byte[] encode(OpenAIChatRequest request) {
+        // без модели запрос к LLM не отправляется; собирать такой вручную незачем
+        if (request.getModel() == null) return jackson(request);
+
+        Buffer out = new Buffer(estimateSize(request));
+        out.write(modelPrefixes.computeIfAbsent(request.getModel(), this::modelPrefix));
+        if (request.getMessages() != null) {
+            out.write(MESSAGES);
+            for (int i = 0; i < request.getMessages().size(); i++) {
+                if (i > 0) out.write(',');
+                writeMessage(out, request.getMessages().get(i));
+            }
+            out.write(']');
+        }
+        if (request.getTemperature() != null) {
+            out.write(TEMPERATURE);
+            out.writeAscii(Double.toString(request.getTemperature()));
+        }
+        if (request.getMax_tokens() != null) {
+            out.write(MAX_TOKENS);
+            out.writeAscii(Integer.toString(request.getMax_tokens()));
+        }
+        if (request.getTools() != null) {
+            out.write(TOOLS);
+            out.write(request.getTools() instanceof ToolRegistry.ToolSet toolSet
+                    ? toolSet.json()
+                    : jackson(request.getTools()));
+        }
+        if (request.getTool_choice() != null) {
+            out.write(TOOL_CHOICE);
+            out.writeString(request.getTool_choice());
+        }
+        if (request.getStream() != null) {
+            out.write(request.getStream() ? STREAM_TRUE : STREAM_FALSE);
+        }
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    private void writeMessage(Buffer out, OpenAIChatRequest.Message message) {
+        out.write(ROLE);
+        if (message.getRole() == null) out.write(NULL);
+        else out.writeString(message.getRole());
+        out.write(CONTENT);
+
+        String content = message.getContent();
+        if (content == null) {
+            out.write(NULL);
+        } else if ("system".equals(message.getRole())) {
+            writeSystemContent(out, content);
+        } else {
+            out.writeString(content);
+        }
+        out.write('}');
+    }
+
+    private void writeSystemContent(Buffer out, String content) {
+        for (StaticPrefix prefix : staticPrefixes) {
+            if (content.startsWith(prefix.text())) {
+                out.write('"');
+                out.write(prefix.escaped());
+                out.writeEscaped(content, prefix.text().length());
+                out.write('"');
+                return;
+            }
+        }
+        out.writeString(content);
+    }
+
+    private byte[] modelPrefix(String model) {
+        Buffer out = new Buffer(model.length() + 16);
+        out.write(ascii("{\"model\":"));
+        out.writeString(model);
+        return out.toByteArray();
+    }
+
+    private static StaticPrefix staticPrefix(String text) {
+        Buffer out = new Buffer(text.length() * 2);
+        out.writeEscaped(text, 0);
+        return new StaticPrefix(text, out.toByteArray());
+    }
+
+    private byte[] jackson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать запрос к LLM", e);
+        }
+    }
+
+    // Кириллица занимает 2 байта в UTF-8; tools и префиксы уже посчитаны
+    private static int estimateSize(OpenAIChatRequest request) {
+        int size = 256;
+        if (request.getMessages() != null) {
+            for (OpenAIChatRequest.Message message : request.getMessages()) {
+                size += 32 + (message.getContent() == null ? 0 : message.getContent().length() * 2);
+            }
+        }
+        if (request.getTools() instanceof ToolRegistry.ToolSet toolSet) {
+            size += toolSet.json().length;
+        }
+        return size;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Растущий массив байт с JSON-экранированием строк в том же виде, что и у Jackson. */
+    private static final class Buffer {
+        private byte[] bytes;
+        private int size;
+
+        private Buffer(int capacity) {
+            this.bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, size, data.length);
+            size += data.length;
+        }
+
+        void writeAscii(String value) {
+            ensure(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                bytes[size++] = (byte) value.charAt(i);
+            }
+        }
+
+        void writeString(String value) {
+            write('"');
+            writeEscaped(value, 0);
+            write('"');
+        }
+
+        void writeEscaped(String value, int from) {
+            // худший случай — \\u00XX на символ
+            ensure((value.length() - from) * 6);
+            for (int i = from; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c >= 0x20 && c < 0x80) {
+                    if (c == '"' || c == '\\') bytes[size++] = '\\';
+                    bytes[size++] = (byte) c;
+                } else if (c < 0x20) {
+                    writeControl(c);
+                } else if (c < 0x800) {
+                    bytes[size++] = (byte) (0xC0 | (c >> 6));
+                    bytes[size++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    bytes[size++] = (byte) (0xF0 | (cp >> 18));
+                    bytes[size++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    bytes[size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    bytes[size++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // непарный суррогат в UTF-8 не кодируется
+                    bytes[size++] = '?';
+                } else {
+                    bytes[size++] = (byte) (0xE0 | (c >> 12));
+                    bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[size++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private void writeControl(char c) {
+            bytes[size++] = '\\';
+            switch (c) {
+                case '\n' -> bytes[size++] = 'n';
+                case '\r' -> bytes[size++] = 'r';
+                case '\t' -> bytes[size++] = 't';
+                case '\b' -> bytes[size++] = 'b';
+                case '\f' -> bytes[size++] = 'f';
+                default -> {
+                    bytes[size++] = 'u';
+                    bytes[size++] = '0';
+                    bytes[size++] = '0';
+                    bytes[size++] = HEX[c >> 4];
+                    bytes[size++] = HEX[c & 0xF];
+                }
+            }
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return size == bytes.length ? bytes : Arrays.copyOf(bytes, size);
+        }
+    }
+}
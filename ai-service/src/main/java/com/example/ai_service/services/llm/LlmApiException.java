@@ -0,0 +1,40 @@
+package com.example.ai_service.services.llm;
+
+import java.time.Duration;
+
+/**
+ * Ответ LLM API с кодом 4xx/5xx. Код нужен роутеру: ошибка в самом запросе (400, 422)
+ * не говорит о проблемах провайдера, а 429 и 5xx — говорят.
+ */
+public class LlmApiException extends RuntimeException {
+
+    private final int status;
+    // Retry-After из ответа провайдера; null — не передан
+    private final Duration retryAfter;
+
+    public LlmApiException(int status, String body) {
+        this(status, body, null);
+    }
+
+    public LlmApiException(int status, String body, Duration retryAfter) {
+        super("LLM API error: " + body);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    public boolean isRateLimited() {
+        return status == 429;
+    }
+
+    public boolean isProviderFailure() {
+        return status == 429 || status >= 500;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.ai_service.services.llm;
+
+import com.example.ai_service.entity.dto.OpenAIChatRequest;
+import com.example.ai_service.entity.dto.OpenAIChatResponse;
+import com.example.ai_service.entity.dto.OpenAIChatStreamChunk;
+import com.example.ai_service.services.llm.routing.LlmProvider;
+import com.example.ai_service.services.llm.routing.LlmRouter;
+import com.example.ai_service.services.ratelimit.RateLimitedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Objects;
+
+@Component
+public class LlmClient {
+
+    private static final String STREAM_DONE = "[DONE]";
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() { };
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmClient.class);
+
+    private final LlmRouter router;
+    private final ChatRequestEncoder encoder;
+    private final Duration retryMaxBackoff;
+    private final Retry rateLimitRetry;
+    private final Counter retries;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SingleFlight<String, OpenAIChatResponse> singleFlight;
+
+    public LlmClient(LlmRouter router,
+                     ChatRequestEncoder encoder,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.llm.coalescing.max-wait:60s}") Duration coalescingMaxWait,
+                     @Value("${app.llm.retry.max-attempts:2}") int retryMaxAttempts,
+                     @Value("${app.llm.retry.min-backoff:500ms}") Duration retryMinBackoff,
+                     @Value("${app.llm.retry.max-backoff:5s}") Duration retryMaxBackoff) {
+        this.router = router;
+        this.encoder = encoder;
+        this.retryMaxBackoff = retryMaxBackoff;
+        this.retries = Counter.builder("llm.requests.retried")
+                .description("Повторы запросов к LLM после 429 провайдера")
+                .register(meterRegistry);
+        // 429 провайдера: экспоненциальная пауза с jitter ±50%, чтобы повторы не шли залпом;
+        // если провайдер просит ждать дольше max-backoff — сразу отдаём 429 клиенту
+        this.rateLimitRetry = Retry.backoff(retryMaxAttempts, retryMinBackoff)
+                .maxBackoff(retryMaxBackoff)
+                .jitter(0.5)
+                .filter(e -> isUpstreamRateLimit(e) && !exceeds(((LlmApiException) e).retryAfter(), retryMaxBackoff))
+                .doBeforeRetry(signal -> retries.increment())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+        Counter coalesced = Counter.builder("llm.requests.coalesced")
+                .description("Запросы к LLM, получившие результат уже летящего одинакового запроса")
+                .register(meterRegistry);
+        this.singleFlight = new SingleFlight<>(coalescingMaxWait, coalesced::increment);
+        Gauge.builder("llm.requests.inflight", singleFlight, SingleFlight::inFlightCount)
+                .description("Уникальные запросы к LLM в полёте")
+                .register(meterRegistry);
+    }
+
+    // Одинаковые (модель, сообщения, tools) одновременные запросы делят один вызов /chat/completions;
+    // тело кодируется один раз и служит и ключом объединения, и телом HTTP-запроса
+    public Mono<OpenAIChatResponse> complete(OpenAIChatRequest request) {
+        request.setStream(null);
+        byte[] body = encoder.encode(request);
+        return singleFlight.execute(fingerprint(body),
+                () -> router.route(provider -> send(provider, bodyFor(provider, request, body))))
+                .onErrorMap(LlmClient::isUpstreamRateLimit, LlmClient::toRateLimited);
+    }
+
+    private Mono<OpenAIChatResponse> send(LlmProvider provider, byte[] body) {
+        return provider.webClient().post()
+                .uri("/chat/completions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(), this::toError)
+                .bodyToMono(OpenAIChatResponse.class)
+                .retryWhen(rateLimitRetry);
+    }
+
+    // Кадры choices[].delta в том порядке, в котором их отдаёт модель; "[DONE]" завершает поток
+    public Flux<OpenAIChatStreamChunk> stream(OpenAIChatRequest request) {
+        request.setStream(true);
+        byte[] body = encoder.encode(request);
+        return router.routeStream(provider -> stream(provider, bodyFor(provider, request, body)))
+                .onErrorMap(LlmClient::isUpstreamRateLimit, LlmClient::toRateLimited);
+    }
+
+    private Flux<OpenAIChatStreamChunk> stream(LlmProvider provider, byte[] body) {
+        return provider.webClient().post()
+                .uri("/chat/completions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(body)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(), this::toError)
+                .bodyToFlux(SSE_TYPE)
+                // 429 приходит статусом, до первого кадра — повтор не дублирует текст
+                .retryWhen(rateLimitRetry)
+                .map(ServerSentEvent::data)
+                .filter(Objects::nonNull)
+                .takeWhile(data -> !STREAM_DONE.equals(data.trim()))
+                .map(this::parseChunk);
+    }
+
+    // У провайдера может быть своя модель: тело тогда кодируется заново с подменённым model
+    private byte[] bodyFor(LlmProvider provider, OpenAIChatRequest request, byte[] body) {
+        if (provider.model() == null || provider.model().equals(request.getModel())) return body;
+        return encoder.encode(new OpenAIChatRequest(provider.model(), request.getMessages(), request.getTemperature(),
+                request.getMax_tokens(), request.getTools(), request.getTool_choice(), request.getStream()));
+    }
+
+    private Mono<? extends Throwable> toError(ClientResponse clientResponse) {
+        return clientResponse.bodyToMono(String.class)
+                .defaultIfEmpty("")
+                .flatMap(error -> {
+                    logger.error("LLM API error: {}", error);
+                    return Mono.error(new LlmApiException(
+                            clientResponse.statusCode().value(), error, retryAfter(clientResponse)));
+                });
+    }
+
+    private static boolean exceeds(Duration retryAfter, Duration limit) {
+        return retryAfter != null && retryAfter.compareTo(limit) > 0;
+    }
+
+    private static Duration retryAfter(ClientResponse clientResponse) {
+        String header = clientResponse.headers().asHttpHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (header == null) return null;
+        try {
+            return Duration.ofMillis((long) (Double.parseDouble(header.trim()) * 1000));
+        } catch (NumberFormatException e) {
+            // HTTP-date вместо секунд — отдаём решение backoff
+            return null;
+        }
+    }
+
+    private static boolean isUpstreamRateLimit(Throwable e) {
+        return e instanceof LlmApiException api && api.isRateLimited();
+    }
+
+    // Повторы исчерпаны: клиент получает 429 с Retry-After провайдера (или максимальной паузой)
+    private Throwable toRateLimited(Throwable e) {
+        Duration retryAfter = ((LlmApiException) e).retryAfter();
+        return new RateLimitedException(retryAfter != null ? retryAfter : retryMaxBackoff,
+                "Провайдер LLM ограничил частоту запросов");
+    }
+
+    private static String fingerprint(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Не удалось вычислить отпечаток запроса к LLM", e);
+        }
+    }
+
+    private OpenAIChatStreamChunk parseChunk(String data) {
+        try {
+            return objectMapper.readValue(data, OpenAIChatStreamChunk.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось разобрать кадр потока LLM: " + data, e);
+        }
+    }
+}
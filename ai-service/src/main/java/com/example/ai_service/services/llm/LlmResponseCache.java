@@ -0,0 +1,142 @@
+package com.example.ai_service.services.llm;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+/**
+ * Кэш готовых ответов модели. Ключ — SHA-256 от модели, режима, полного system prompt
+ * (вместе с контекстом бизнеса) и нормализованного сообщения пользователя.
+ * Запросы с включённым send_email сюда не попадают: письмо должно уходить каждый раз.
+ * Запись отдаётся как свежая в течение ttl, а до stale-ttl хранится на случай отказа LLM
+ * (getStale — ответ в degraded-режиме, когда circuit breaker провайдеров открыт).
+ * Устаревшие ответы лежат в отдельном кэше, как lastKnown в BusinessContextService: иначе
+ * статистика Caffeine (cache.gets{cache=llm-response}) считала бы их попаданиями.
+ * Обе записи ссылаются на один CachedReply, поэтому текст ответа в памяти не дублируется.
+ */
+@Component
+public class LlmResponseCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s.!?…]+$");
+
+    // ключ (64 hex-символа) + служебные поля записи, в байтах
+    private static final int ENTRY_OVERHEAD = 160;
+
+    private final boolean enabled;
+    private final Cache<String, CachedReply> cache;
+    private final Cache<String, CachedReply> stale;
+    private final Counter latencySaved;
+
+    private record CachedReply(String reply, long upstreamNanos) { }
+
+    @Autowired
+    public LlmResponseCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.llm.response-cache.enabled:true}") boolean enabled,
+            @Value("${app.llm.response-cache.ttl:10m}") Duration ttl,
+            @Value("${app.llm.response-cache.stale-ttl:24h}") Duration staleTtl,
+            @Value("${app.llm.response-cache.max-memory:32MB}") DataSize maxMemory) {
+        this(meterRegistry, enabled, ttl, staleTtl, maxMemory, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    // ticker и executor — для тестов: управляемое время и вытеснение в вызывающем потоке
+    LlmResponseCache(MeterRegistry meterRegistry, boolean enabled, Duration ttl, Duration staleTtl,
+                     DataSize maxMemory, Ticker ticker, Executor executor) {
+        this.enabled = enabled;
+        // Caffeine вытесняет по W-TinyLFU: учитывает и частоту, и давность обращений
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher(LlmResponseCache::weigh)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "llm-response");
+        this.stale = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher(LlmResponseCache::weigh)
+                .expireAfterWrite(staleTtl.compareTo(ttl) > 0 ? staleTtl : ttl)
+                .ticker(ticker)
+                .executor(executor)
+                .build();
+        this.latencySaved = Counter.builder("llm.response.cache.latency.saved")
+                .description("Суммарное время ответа LLM, сэкономленное попаданиями в кэш")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    // null — кэш для этого запроса не используется (bypass: включён send_email или есть история диалога)
+    public String key(String model, String mode, String systemPrompt, String userMessage, boolean bypass) {
+        if (!enabled || bypass || userMessage == null) return null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, model);
+            update(digest, mode == null ? "" : mode);
+            update(digest, systemPrompt);
+            update(digest, normalize(userMessage));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String get(String key) {
+        if (key == null) return null;
+        CachedReply cached = cache.getIfPresent(key);
+        if (cached == null) return null;
+        latencySaved.increment(cached.upstreamNanos() / 1e9);
+        return cached.reply();
+    }
+
+    // Ответ любой давности в пределах stale-ttl — только когда свежий получить не удалось
+    public String getStale(String key) {
+        if (key == null) return null;
+        CachedReply cached = stale.getIfPresent(key);
+        return cached == null ? null : cached.reply();
+    }
+
+    public void put(String key, String reply, long upstreamNanos) {
+        if (key == null || reply == null || reply.isBlank()) return;
+        CachedReply cached = new CachedReply(reply, upstreamNanos);
+        cache.put(key, cached);
+        stale.put(key, cached);
+    }
+
+    private static int weigh(String key, CachedReply value) {
+        return ENTRY_OVERHEAD + value.reply().length() * 2;
+    }
+
+    // Регистр, юникод-формы, лишние пробелы и финальная пунктуация на ответ не влияют
+    static String normalize(String message) {
+        String normalized = Normalizer.normalize(message, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)
+                .replace('ё', 'е');
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return TRAILING_PUNCTUATION.matcher(normalized).replaceAll("");
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
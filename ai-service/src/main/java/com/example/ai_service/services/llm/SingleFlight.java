@@ -0,0 +1,48 @@
+package com.example.ai_service.services.llm;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Объединяет одинаковые одновременные вызовы: пока вызов с ключом K в полёте,
+ * остальные подписчики получают его результат (или ошибку) вместо нового запроса.
+ * Каждый подписчик ждёт не дольше maxWait; если ушли все — исходный вызов отменяется.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration maxWait;
+    private final Runnable onCoalesced;
+
+    public SingleFlight(Duration maxWait, Runnable onCoalesced) {
+        this.maxWait = maxWait;
+        this.onCoalesced = onCoalesced;
+    }
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<V>> created = new AtomicReference<>();
+            Mono<V> shared = inFlight.computeIfAbsent(key, k -> {
+                AtomicReference<Mono<V>> self = new AtomicReference<>();
+                Mono<V> mono = Mono.defer(call)
+                        .doFinally(signal -> inFlight.remove(k, self.get()))
+                        .share();
+                self.set(mono);
+                created.set(mono);
+                return mono;
+            });
+            if (created.get() != shared) {
+                onCoalesced.run();
+            }
+            return shared.timeout(maxWait);
+        });
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
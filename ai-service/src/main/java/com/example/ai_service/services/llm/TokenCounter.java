@@ -0,0 +1,36 @@
+package com.example.ai_service.services.llm;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Подсчёт токенов локальным BPE-токенизатором (jtokkit), без обращения к модели.
+ * Кодировка задаётся app.llm.tokenizer: o200k_base для gpt-4o, cl100k_base для gpt-4/3.5.
+ */
+@Component
+public class TokenCounter {
+
+    // служебные токены роли и разделителей на каждое сообщение чата
+    public static final int MESSAGE_OVERHEAD = 4;
+
+    private final Encoding encoding;
+
+    public TokenCounter(@Value("${app.llm.tokenizer:o200k_base}") String encodingName) {
+        EncodingType type = EncodingType.fromName(encodingName)
+                .orElseThrow(() -> new IllegalArgumentException("Неизвестная кодировка токенизатора: " + encodingName));
+        this.encoding = Encodings.newLazyEncodingRegistry().getEncoding(type);
+    }
+
+    public int count(CharSequence text) {
+        if (text == null || text.isEmpty()) return 0;
+        // "Ordinary": служебные последовательности вроде <|endoftext|> считаются обычным текстом
+        return encoding.countTokensOrdinary(text.toString());
+    }
+
+    public int countMessage(CharSequence content) {
+        return MESSAGE_OVERHEAD + count(content);
+    }
+}
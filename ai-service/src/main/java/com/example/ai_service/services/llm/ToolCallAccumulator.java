@@ -0,0 +1,55 @@
+package com.example.ai_service.services.llm;
+
+import com.example.ai_service.entity.dto.OpenAIChatResponse;
+import com.example.ai_service.entity.dto.OpenAIChatStreamChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Собирает tool_calls из потоковых кадров: id и имя приходят в первом кусочке,
+ * arguments — частями, которые нужно склеить по index вызова.
+ */
+public class ToolCallAccumulator {
+
+    private final Map<Integer, PartialCall> calls = new TreeMap<>();
+
+    public void accept(List<OpenAIChatStreamChunk.ToolCallDelta> deltas) {
+        if (deltas == null) return;
+        for (OpenAIChatStreamChunk.ToolCallDelta delta : deltas) {
+            int index = delta.getIndex() != null ? delta.getIndex() : 0;
+            PartialCall call = calls.computeIfAbsent(index, i -> new PartialCall());
+            if (delta.getId() != null) call.id = delta.getId();
+            if (delta.getType() != null) call.type = delta.getType();
+            if (delta.getFunction() != null) {
+                if (delta.getFunction().getName() != null) call.name = delta.getFunction().getName();
+                if (delta.getFunction().getArguments() != null) call.arguments.append(delta.getFunction().getArguments());
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return calls.isEmpty();
+    }
+
+    public List<OpenAIChatResponse.ToolCall> toolCalls() {
+        List<OpenAIChatResponse.ToolCall> result = new ArrayList<>(calls.size());
+        for (PartialCall call : calls.values()) {
+            result.add(new OpenAIChatResponse.ToolCall(
+                    call.id,
+                    call.type,
+                    new OpenAIChatResponse.Function(call.name, call.arguments.toString())
+            ));
+        }
+        return result;
+    }
+
+    private static final class PartialCall {
+        private String id;
+        private String type = "function";
+        private String name;
+        private final StringBuilder arguments = new StringBuilder();
+    }
+}
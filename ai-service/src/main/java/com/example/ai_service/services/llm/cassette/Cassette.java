@@ -0,0 +1,150 @@
+package com.example.ai_service.services.llm.cassette;
+
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Кассета с ответами LLM, отображённая в память целиком: открытие не читает файл, запись находится
+ * по индексу за O(1), а куски тела отдаются срезами отображения без копирования.
+ *
+ * Формат (big-endian):
+ * <pre>
+ * заголовок, 32 байта:  magic "LLMCASS1" | версия int | записей int | смещение индекса long | слотов int | резерв int
+ * запись:               SHA-256 запроса 32 байта | status short | headersMicros int
+ *                       | заголовков short | (short длина, имя UTF-8, short длина, значение UTF-8)...
+ *                       | кусков int | (offsetMicros int, длина int, байты)...
+ * индекс:               слотов × (первые 8 байт SHA-256 long, смещение записи long); открытая адресация,
+ *                       число слотов — степень двойки, пустой слот — смещение 0
+ * </pre>
+ * headersMicros и offsetMicros отсчитываются от начала запроса: время до заголовков ответа
+ * и до прихода каждого куска.
+ */
+public final class Cassette {
+
+    static final long MAGIC = 0x4C4C4D4341535331L;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int FINGERPRINT_SIZE = 32;
+    static final int SLOT_SIZE = 16;
+
+    /** Кусок тела ответа в том виде, в каком он пришёл из сети. */
+    public record Chunk(int offsetMicros, ByteBuffer data) {
+    }
+
+    public record Recording(int status, HttpHeaders headers, int headersMicros, List<Chunk> chunks) {
+    }
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int entries;
+    private final long indexOffset;
+    private final int slots;
+
+    private Cassette(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        this.entries = buffer.getInt(12);
+        this.indexOffset = buffer.getLong(16);
+        this.slots = buffer.getInt(24);
+    }
+
+    public static Cassette open(Path path) {
+        // отображение остаётся действительным и после закрытия канала
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Кассета больше 2 ГБ, запишите её частями: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < HEADER_SIZE || buffer.getLong(0) != MAGIC) {
+                throw new IllegalStateException("Файл не является кассетой LLM: " + path);
+            }
+            if (buffer.getInt(8) != VERSION) {
+                throw new IllegalStateException("Версия кассеты " + buffer.getInt(8) + " не поддерживается: " + path);
+            }
+            return new Cassette(path, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть кассету " + path, e);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    // null — запроса с таким отпечатком в кассете нет
+    public Recording find(byte[] fingerprint) {
+        if (slots == 0) return null;
+        long key = key(fingerprint);
+        int mask = slots - 1;
+        int slot = (int) (key & mask);
+        for (int probe = 0; probe < slots; probe++, slot = (slot + 1) & mask) {
+            int at = (int) (indexOffset + (long) slot * SLOT_SIZE);
+            long offset = buffer.getLong(at + 8);
+            if (offset == 0) return null;
+            if (buffer.getLong(at) == key && matches((int) offset, fingerprint)) return read((int) offset);
+        }
+        return null;
+    }
+
+    // SHA-256 и так равномерен: его первые 8 байт годятся в хэш без перемешивания
+    static long key(byte[] fingerprint) {
+        return ByteBuffer.wrap(fingerprint).getLong();
+    }
+
+    private boolean matches(int offset, byte[] fingerprint) {
+        for (int i = 0; i < FINGERPRINT_SIZE; i++) {
+            if (buffer.get(offset + i) != fingerprint[i]) return false;
+        }
+        return true;
+    }
+
+    private Recording read(int offset) {
+        int at = offset + FINGERPRINT_SIZE;
+        int status = buffer.getShort(at) & 0xFFFF;
+        int headersMicros = buffer.getInt(at + 2);
+        int headerCount = buffer.getShort(at + 6) & 0xFFFF;
+        at += 8;
+
+        HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < headerCount; i++) {
+            int nameLength = buffer.getShort(at) & 0xFFFF;
+            String name = string(at + 2, nameLength);
+            at += 2 + nameLength;
+            int valueLength = buffer.getShort(at) & 0xFFFF;
+            headers.add(name, string(at + 2, valueLength));
+            at += 2 + valueLength;
+        }
+
+        int chunkCount = buffer.getInt(at);
+        at += 4;
+        List<Chunk> chunks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            int offsetMicros = buffer.getInt(at);
+            int length = buffer.getInt(at + 4);
+            chunks.add(new Chunk(offsetMicros, buffer.slice(at + 8, length)));
+            at += 8 + length;
+        }
+        return new Recording(status, headers, headersMicros, chunks);
+    }
+
+    private String string(int at, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(at, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.ai_service.services.llm.cassette;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.client.reactive.AbstractClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.http.client.reactive.ClientHttpResponseDecorator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Коннектор WebClient под кассетой. Стоит ниже кодеков: видит тело запроса байтами в том виде,
+ * в каком оно уходит в сеть, и куски ответа в момент их прихода, поэтому обычные и потоковые
+ * ответы пишутся и проигрываются одинаково, а LlmClient о кассете ничего не знает.
+ * В record запрос уходит в настоящий коннектор; в replay сеть не трогается вовсе.
+ */
+final class CassetteConnector implements ClientHttpConnector {
+
+    private final ClientHttpConnector delegate;
+    private final LlmCassette cassette;
+
+    CassetteConnector(ClientHttpConnector delegate, LlmCassette cassette) {
+        this.delegate = delegate;
+        this.cassette = cassette;
+    }
+
+    @Override
+    public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri,
+                                            Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+        // defer: повтор запроса (retry, hedge) должен начинаться с чистого состояния и своего отсчёта времени
+        return Mono.defer(() -> cassette.mode() == CassetteProperties.Mode.REPLAY
+                ? replay(method, uri, requestCallback)
+                : record(method, uri, requestCallback));
+    }
+
+    // ---------- record ----------
+
+    private Mono<ClientHttpResponse> record(HttpMethod method, URI uri,
+                                            Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+        long startedAt = System.nanoTime();
+        AtomicReference<CapturingRequest> captured = new AtomicReference<>();
+        return delegate.connect(method, uri, request -> {
+                    CapturingRequest capturing = new CapturingRequest(request);
+                    captured.set(capturing);
+                    return requestCallback.apply(capturing);
+                })
+                .map(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        // ошибки провайдера не пишем: в replay они превратились бы в вечный отказ
+                        cassette.skipped();
+                        return response;
+                    }
+                    return new CapturingResponse(response, startedAt, recording -> cassette.record(method, uri,
+                            captured.get().body(), recording));
+                });
+    }
+
+    private static final class CapturingRequest extends ClientHttpRequestDecorator {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        CapturingRequest(ClientHttpRequest delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return super.writeWith(Flux.from(body).doOnNext(this::copy));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return super.writeAndFlushWith(Flux.from(body).map(part -> Flux.from(part).doOnNext(this::copy)));
+        }
+
+        byte[] body() {
+            synchronized (body) {
+                return body.toByteArray();
+            }
+        }
+
+        // копия без сдвига позиции чтения: буфер дальше уходит в сеть
+        private void copy(DataBuffer buffer) {
+            int position = buffer.readPosition();
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            buffer.readPosition(position);
+            synchronized (body) {
+                body.writeBytes(bytes);
+            }
+        }
+    }
+
+    private static final class CapturingResponse extends ClientHttpResponseDecorator {
+
+        private final long startedAt;
+        private final int headersMicros;
+        private final Consumer<Cassette.Recording> onComplete;
+
+        CapturingResponse(ClientHttpResponse delegate, long startedAt, Consumer<Cassette.Recording> onComplete) {
+            super(delegate);
+            this.startedAt = startedAt;
+            this.headersMicros = micros(startedAt);
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            List<Cassette.Chunk> chunks = new ArrayList<>();
+            return super.getBody()
+                    .doOnNext(buffer -> {
+                        int position = buffer.readPosition();
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        buffer.readPosition(position);
+                        chunks.add(new Cassette.Chunk(micros(startedAt), ByteBuffer.wrap(bytes)));
+                    })
+                    // оборванный или отменённый ответ неполон — в кассету не попадает
+                    .doOnComplete(() -> onComplete.accept(new Cassette.Recording(getStatusCode().value(),
+                            copyOf(getHeaders()), headersMicros, chunks)));
+        }
+
+        private static HttpHeaders copyOf(HttpHeaders headers) {
+            HttpHeaders copy = new HttpHeaders();
+            copy.addAll(headers);
+            return copy;
+        }
+
+        private static int micros(long startedAt) {
+            return (int) Math.min(Integer.MAX_VALUE, (System.nanoTime() - startedAt) / 1_000);
+        }
+    }
+
+    // ---------- replay ----------
+
+    private Mono<ClientHttpResponse> replay(HttpMethod method, URI uri,
+                                            Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+        ReplayRequest request = new ReplayRequest(method, uri);
+        return requestCallback.apply(request)
+                .then(Mono.fromCallable(() -> cassette.replay(method, uri, request.body())))
+                .flatMap(recording -> {
+                    double scale = cassette.latencyScale();
+                    return delayed(Mono.just((ClientHttpResponse) new ReplayResponse(recording, scale)),
+                            recording.headersMicros(), scale);
+                });
+    }
+
+    private static <T> Mono<T> delayed(Mono<T> mono, long micros, double scale) {
+        long nanos = (long) (micros * 1_000 * scale);
+        // без задержки не прыгаем на таймерный поток
+        return nanos > 0 ? mono.delaySubscription(Duration.ofNanos(nanos)) : mono;
+    }
+
+    /** Запрос, который никуда не отправляется: тело только собирается для отпечатка. */
+    private static final class ReplayRequest extends AbstractClientHttpRequest {
+
+        private final HttpMethod method;
+        private final URI uri;
+        private volatile byte[] body = new byte[0];
+
+        ReplayRequest(HttpMethod method, URI uri) {
+            this.method = method;
+            this.uri = uri;
+        }
+
+        byte[] body() {
+            return body;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public DataBufferFactory bufferFactory() {
+            return DefaultDataBufferFactory.sharedInstance;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getNativeRequest() {
+            return (T) this;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return doCommit(() -> DataBufferUtils.join(body)
+                    .doOnNext(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        this.body = bytes;
+                    })
+                    .then());
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return doCommit();
+        }
+
+        @Override
+        protected void applyHeaders() {
+        }
+
+        @Override
+        protected void applyCookies() {
+        }
+    }
+
+    /** Ответ из кассеты: куски — срезы отображённого файла, с теми же паузами, что при записи. */
+    private static final class ReplayResponse implements ClientHttpResponse {
+
+        private final Cassette.Recording recording;
+        private final double scale;
+
+        ReplayResponse(Cassette.Recording recording, double scale) {
+            this.recording = recording;
+            this.scale = scale;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatusCode.valueOf(recording.status());
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return recording.headers();
+        }
+
+        @Override
+        public MultiValueMap<String, ResponseCookie> getCookies() {
+            return new LinkedMultiValueMap<>();
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            List<Cassette.Chunk> chunks = recording.chunks();
+            return Flux.range(0, chunks.size()).concatMap(i -> {
+                Cassette.Chunk chunk = chunks.get(i);
+                long previous = i == 0 ? recording.headersMicros() : chunks.get(i - 1).offsetMicros();
+                Mono<DataBuffer> buffer = Mono.fromSupplier(() ->
+                        DefaultDataBufferFactory.sharedInstance.wrap(chunk.data().duplicate()));
+                return delayed(buffer, chunk.offsetMicros() - previous, scale);
+            });
+        }
+    }
+}
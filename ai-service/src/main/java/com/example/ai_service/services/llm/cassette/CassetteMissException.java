@@ -0,0 +1,21 @@
+package com.example.ai_service.services.llm.cassette;
+
+import org.springframework.web.reactive.function.client.WebClientException;
+
+/**
+ * В режиме replay запроса нет в кассете. Наследует WebClientException, чтобы WebClient
+ * не заворачивал её в WebClientRequestException и причина была видна как есть.
+ */
+public class CassetteMissException extends WebClientException {
+
+    private final String fingerprint;
+
+    public CassetteMissException(String fingerprint, String message) {
+        super(message);
+        this.fingerprint = fingerprint;
+    }
+
+    public String fingerprint() {
+        return fingerprint;
+    }
+}
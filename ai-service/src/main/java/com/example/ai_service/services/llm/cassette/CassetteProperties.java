@@ -0,0 +1,29 @@
+package com.example.ai_service.services.llm.cassette;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запись и воспроизведение ответов LLM (app.llm.cassette). record — запросы идут к провайдеру,
+ * успешные ответы сохраняются в path при остановке сервиса; replay — провайдер не вызывается,
+ * ответы берутся из кассеты с паузами исходной записи, умноженными на latency-scale.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.llm.cassette")
+public class CassetteProperties {
+
+    public enum Mode { OFF, RECORD, REPLAY }
+
+    private Mode mode = Mode.OFF;
+    private Path path = Path.of("./data/llm.cassette");
+    // 1 — как записано, 0 — без пауз, 0.5 — вдвое быстрее
+    private double latencyScale = 1.0;
+    // поля тела, которые не входят в отпечаток: max_tokens зависит от оставшегося до дедлайна времени
+    private List<String> ignoreFields = new ArrayList<>(List.of("max_tokens"));
+}
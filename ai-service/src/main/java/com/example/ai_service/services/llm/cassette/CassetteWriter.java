@@ -0,0 +1,141 @@
+package com.example.ai_service.services.llm.cassette;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пишет кассету в формате Cassette: записи дописываются во временный файл по мере прихода ответов,
+ * индекс и заголовок — в close(), после чего файл атомарно занимает место старой кассеты.
+ * Из одинаковых запросов в кассете остаётся первый ответ.
+ */
+public final class CassetteWriter implements AutoCloseable {
+
+    private final Path path;
+    private final Path tmp;
+    private final FileChannel channel;
+    // ключ — SHA-256 запроса (ByteBuffer сравнивается по содержимому)
+    private final Map<ByteBuffer, Long> offsets = new LinkedHashMap<>();
+    private long position = Cassette.HEADER_SIZE;
+    private boolean closed;
+
+    public CassetteWriter(Path path) {
+        this.path = path;
+        this.tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            this.channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать кассету " + tmp, e);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public synchronized int size() {
+        return offsets.size();
+    }
+
+    // false — запрос уже записан или кассета закрыта
+    public synchronized boolean append(byte[] fingerprint, Cassette.Recording recording) {
+        if (closed || offsets.containsKey(ByteBuffer.wrap(fingerprint))) return false;
+        ByteBuffer entry = encode(fingerprint, recording);
+        long offset = position;
+        try {
+            while (entry.hasRemaining()) {
+                position += channel.write(entry, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось дописать кассету " + tmp, e);
+        }
+        offsets.put(ByteBuffer.wrap(fingerprint.clone()), offset);
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        try (channel) {
+            int slots = Integer.highestOneBit(Math.max(16, offsets.size() * 2) - 1) << 1;
+            int mask = slots - 1;
+            ByteBuffer index = ByteBuffer.allocate(slots * Cassette.SLOT_SIZE);
+            for (Map.Entry<ByteBuffer, Long> entry : offsets.entrySet()) {
+                long key = entry.getKey().getLong(0);
+                int slot = (int) (key & mask);
+                while (index.getLong(slot * Cassette.SLOT_SIZE + 8) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index.putLong(slot * Cassette.SLOT_SIZE, key);
+                index.putLong(slot * Cassette.SLOT_SIZE + 8, entry.getValue());
+            }
+            long indexOffset = position;
+            write(index, indexOffset);
+
+            ByteBuffer header = ByteBuffer.allocate(Cassette.HEADER_SIZE)
+                    .putLong(Cassette.MAGIC)
+                    .putInt(Cassette.VERSION)
+                    .putInt(offsets.size())
+                    .putLong(indexOffset)
+                    .putInt(slots)
+                    .putInt(0)
+                    .flip();
+            write(header, 0);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось завершить кассету " + tmp, e);
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить кассету " + path, e);
+        }
+    }
+
+    private void write(ByteBuffer buffer, long at) throws IOException {
+        while (buffer.hasRemaining()) {
+            at += channel.write(buffer, at);
+        }
+    }
+
+    private static ByteBuffer encode(byte[] fingerprint, Cassette.Recording recording) {
+        List<Map.Entry<byte[], byte[]>> headers = new ArrayList<>();
+        recording.headers().forEach((name, values) -> values.forEach(value -> headers.add(Map.entry(
+                name.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8)))));
+        int size = Cassette.FINGERPRINT_SIZE + 2 + 4 + 2 + 4;
+        for (Map.Entry<byte[], byte[]> header : headers) {
+            size += 4 + header.getKey().length + header.getValue().length;
+        }
+        for (Cassette.Chunk chunk : recording.chunks()) {
+            size += 8 + chunk.data().remaining();
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size)
+                .put(fingerprint)
+                .putShort((short) recording.status())
+                .putInt(recording.headersMicros())
+                .putShort((short) headers.size());
+        for (Map.Entry<byte[], byte[]> header : headers) {
+            out.putShort((short) header.getKey().length).put(header.getKey());
+            out.putShort((short) header.getValue().length).put(header.getValue());
+        }
+        out.putInt(recording.chunks().size());
+        for (Cassette.Chunk chunk : recording.chunks()) {
+            out.putInt(chunk.offsetMicros()).putInt(chunk.data().remaining()).put(chunk.data().duplicate());
+        }
+        return out.flip();
+    }
+}
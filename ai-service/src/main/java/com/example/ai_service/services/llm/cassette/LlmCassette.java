@@ -0,0 +1,203 @@
+package com.example.ai_service.services.llm.cassette;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кассета клиента LLM: отпечатки запросов, запись, поиск и отчёт о промахах.
+ * Отпечаток — SHA-256 от метода, пути и тела без полей ignore-fields: хост не входит,
+ * поэтому кассету, записанную на одном провайдере или заглушке, можно проигрывать с любым base-url.
+ * Промах в replay — WARN в лог, счётчик llm.cassette.requests{result=miss} и строка
+ * в <path>.misses.jsonl с полным телом запроса (по одной на отпечаток), чтобы было видно,
+ * что изменилось в запросе по сравнению с записью.
+ */
+@Component
+public class LlmCassette implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmCassette.class);
+    private static final int PREVIEW_CHARS = 80;
+
+    private final CassetteProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Cassette cassette;
+    private final CassetteWriter writer;
+    private final Path missLog;
+    private final Set<String> reportedMisses = ConcurrentHashMap.newKeySet();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter recorded;
+    private final Counter skipped;
+
+    public LlmCassette(CassetteProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        Path path = properties.getPath();
+        this.missLog = path.resolveSibling(path.getFileName() + ".misses.jsonl");
+        this.cassette = properties.getMode() == CassetteProperties.Mode.REPLAY ? openForReplay(path) : null;
+        this.writer = properties.getMode() == CassetteProperties.Mode.RECORD ? new CassetteWriter(path) : null;
+
+        String mode = properties.getMode().name().toLowerCase();
+        this.hits = counter(meterRegistry, mode, "hit");
+        this.misses = counter(meterRegistry, mode, "miss");
+        this.recorded = counter(meterRegistry, mode, "recorded");
+        // повтор уже записанного запроса или ответ, который не пишется (не 2xx, оборван)
+        this.skipped = counter(meterRegistry, mode, "skipped");
+
+        if (cassette != null) {
+            logger.info("LLM cassette replay: {} recordings from {}, latency scale {}", cassette.size(), path,
+                    properties.getLatencyScale());
+        } else if (writer != null) {
+            logger.info("LLM cassette record: successful responses will be saved to {} on shutdown", path);
+        }
+    }
+
+    public CassetteProperties.Mode mode() {
+        return properties.getMode();
+    }
+
+    public double latencyScale() {
+        return Math.max(0, properties.getLatencyScale());
+    }
+
+    // Коннектор клиента LLM; при mode: off возвращается как есть и ничего не стоит
+    public ClientHttpConnector wrap(ClientHttpConnector connector) {
+        return properties.getMode() == CassetteProperties.Mode.OFF ? connector : new CassetteConnector(connector, this);
+    }
+
+    Cassette.Recording replay(HttpMethod method, URI uri, byte[] body) {
+        byte[] normalized = normalize(body);
+        byte[] fingerprint = fingerprint(method, uri, normalized);
+        Cassette.Recording recording = cassette.find(fingerprint);
+        if (recording != null) {
+            hits.increment();
+            return recording;
+        }
+        misses.increment();
+        String hex = HexFormat.of().formatHex(fingerprint);
+        if (reportedMisses.add(hex)) reportMiss(hex, method, uri, normalized);
+        throw new CassetteMissException(hex, "Запроса к LLM нет в кассете " + cassette.path() + ": " + method + " "
+                + uri.getPath() + ", отпечаток " + hex.substring(0, 16) + ", сообщение \"" + lastUserMessage(normalized) + "\"");
+    }
+
+    void record(HttpMethod method, URI uri, byte[] body, Cassette.Recording recording) {
+        byte[] fingerprint = fingerprint(method, uri, normalize(body));
+        if (writer.append(fingerprint, recording)) recorded.increment();
+        else skipped.increment();
+    }
+
+    void skipped() {
+        skipped.increment();
+    }
+
+    private static Cassette openForReplay(Path path) {
+        if (!Files.exists(path)) {
+            throw new IllegalStateException("app.llm.cassette.mode=replay, но кассеты нет: " + path
+                    + " (запишите её в режиме record)");
+        }
+        return Cassette.open(path);
+    }
+
+    private byte[] normalize(byte[] body) {
+        if (properties.getIgnoreFields().isEmpty()) return body;
+        try {
+            JsonNode tree = objectMapper.readTree(body);
+            if (tree instanceof ObjectNode object) {
+                object.remove(properties.getIgnoreFields());
+                return objectMapper.writeValueAsBytes(object);
+            }
+        } catch (IOException e) {
+            // не JSON — отпечаток по телу как есть
+        }
+        return body;
+    }
+
+    private static byte[] fingerprint(HttpMethod method, URI uri, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((method.name() + " " + uri.getPath() + "\n").getBytes(StandardCharsets.UTF_8));
+            return digest.digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Не удалось вычислить отпечаток запроса к LLM", e);
+        }
+    }
+
+    private void reportMiss(String fingerprint, HttpMethod method, URI uri, byte[] body) {
+        logger.warn("LLM cassette miss {} {} {} (message \"{}\"): not in {}; request body appended to {}",
+                fingerprint.substring(0, 16), method, uri.getPath(), lastUserMessage(body), cassette.path(), missLog);
+        try {
+            ObjectNode line = objectMapper.createObjectNode()
+                    .put("at", Instant.now().toString())
+                    .put("fingerprint", fingerprint)
+                    .put("method", method.name())
+                    .put("path", uri.getPath());
+            line.set("request", readTree(body));
+            synchronized (this) {
+                Files.write(missLog, (objectMapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write cassette miss report {}: {}", missLog, e.getMessage());
+        }
+    }
+
+    // Последнее сообщение пользователя — по нему промах проще всего узнать в логе
+    private String lastUserMessage(byte[] body) {
+        JsonNode messages = readTree(body).path("messages");
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if ("user".equals(messages.get(i).path("role").asText())) {
+                String content = messages.get(i).path("content").asText("");
+                return content.length() > PREVIEW_CHARS ? content.substring(0, PREVIEW_CHARS) + "…" : content;
+            }
+        }
+        return "";
+    }
+
+    private JsonNode readTree(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            return objectMapper.getNodeFactory().textNode(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String mode, String result) {
+        return Counter.builder("llm.cassette.requests")
+                .description("Запросы к LLM через кассету: попадания и промахи replay, записи record")
+                .tag("mode", mode)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        if (writer != null) {
+            writer.close();
+            logger.info("LLM cassette saved: {} recordings in {}", writer.size(), writer.path());
+        }
+        if (cassette != null && misses.count() > 0) {
+            logger.warn("LLM cassette replay finished with {} misses ({} distinct), see {}",
+                    (long) misses.count(), reportedMisses.size(), missLog);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.ai_service.services.llm.routing;
+
+import java.util.Arrays;
+
+/**
+ * Скользящая статистика провайдера: последние N исходов за окно времени.
+ * Из неё считаются p50/p95 задержки и доля ошибок; устаревшие исходы не учитываются,
+ * поэтому провайдер, который давно не вызывали, снова считается "неизвестным" и пробуется.
+ * Если в окне только ошибки, p50/p95 равны Long.MAX_VALUE.
+ */
+public class LatencyStats {
+
+    private final long[] latencies;
+    private final long[] recordedAt;
+    private final boolean[] errors;
+    private final long windowNanos;
+    private int next;
+    private int size;
+
+    public record Snapshot(int samples, long p50Nanos, long p95Nanos, double errorRate) { }
+
+    public LatencyStats(int capacity, long windowNanos) {
+        this.latencies = new long[capacity];
+        this.recordedAt = new long[capacity];
+        this.errors = new boolean[capacity];
+        this.windowNanos = windowNanos;
+    }
+
+    public synchronized void recordSuccess(long latencyNanos) {
+        record(latencyNanos, false);
+    }
+
+    public synchronized void recordFailure(long latencyNanos) {
+        record(latencyNanos, true);
+    }
+
+    // Отменённый вызов (проигравший hedge, дедлайн, уход клиента): настоящая задержка не меньше latencyNanos.
+    // Такой отсчёт учитывается, только если он выше текущей медианы или других отсчётов нет:
+    // тогда он сдвигает p50 в верную сторону, и зависший провайдер не выглядит быстрым.
+    public synchronized void recordCancelled(long latencyNanos) {
+        Snapshot snapshot = snapshot();
+        if (snapshot.samples() == 0 || latencyNanos > snapshot.p50Nanos()) {
+            record(latencyNanos, false);
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        long now = System.nanoTime();
+        long[] window = new long[size];
+        int samples = 0;
+        int failures = 0;
+        for (int i = 0; i < size; i++) {
+            if (now - recordedAt[i] > windowNanos) continue;
+            if (errors[i]) failures++;
+            else window[samples++] = latencies[i];
+            // ошибки в перцентили не попадают, но входят в знаменатель доли ошибок
+        }
+        int total = samples + failures;
+        if (total == 0) return new Snapshot(0, 0, 0, 0);
+        // одни ошибки: провайдер не «быстрый», а неработающий — в конец списка, даже пока отсчётов мало
+        if (samples == 0) return new Snapshot(total, Long.MAX_VALUE, Long.MAX_VALUE, 1.0);
+
+        Arrays.sort(window, 0, samples);
+        return new Snapshot(total, percentile(window, samples, 0.50), percentile(window, samples, 0.95),
+                (double) failures / total);
+    }
+
+    private void record(long latencyNanos, boolean error) {
+        latencies[next] = latencyNanos;
+        recordedAt[next] = System.nanoTime();
+        errors[next] = error;
+        next = (next + 1) % latencies.length;
+        if (size < latencies.length) size++;
+    }
+
+    private static long percentile(long[] sorted, int count, double quantile) {
+        int index = (int) Math.ceil(quantile * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))];
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.ai_service.services.llm.routing;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * OpenAI-совместимый эндпоинт: свой WebClient (с пулом соединений), своя модель
+ * (null — модель из запроса), своя статистика задержек и свой circuit breaker.
+ */
+public record LlmProvider(String name, WebClient webClient, String model, LatencyStats stats,
+                          CircuitBreaker breaker) { }
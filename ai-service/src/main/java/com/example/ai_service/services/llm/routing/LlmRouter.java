@@ -0,0 +1,209 @@
+package com.example.ai_service.services.llm.routing;
+
+import com.example.ai_service.services.resilience.UpstreamFailurePredicate;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Выбирает провайдера LLM по скользящей статистике: из здоровых (доля ошибок не выше
+ * max-error-rate) — с наименьшей p50. Если ответа нет дольше hedge-delay (или основной
+ * провайдер упал раньше), тот же запрос уходит второму провайдеру; побеждает первый
+ * ответ, проигравший запрос отменяется. Ошибка в самом запросе (400, 422) hedge не запускает:
+ * второй провайдер ответил бы так же, а квота ушла бы дважды.
+ *
+ * У каждого провайдера свой circuit breaker: провайдер с открытым breaker уходит в конец списка,
+ * а запрос к нему падает сразу с CallNotPermittedException, не дожидаясь таймаута.
+ */
+public class LlmRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmRouter.class);
+    // тот же критерий, что у circuit breaker провайдеров
+    private static final Predicate<Throwable> PROVIDER_FAILURE = new UpstreamFailurePredicate();
+
+    private final List<LlmProvider> providers;
+    private final boolean hedgeEnabled;
+    private final Duration hedgeDelay;
+    private final int minSamples;
+    private final double maxErrorRate;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+
+    public LlmRouter(List<LlmProvider> providers, boolean hedgeEnabled, Duration hedgeDelay,
+                     int minSamples, double maxErrorRate, MeterRegistry meterRegistry) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("Не задан ни один провайдер LLM");
+        }
+        this.providers = List.copyOf(providers);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeDelay = hedgeDelay;
+        this.minSamples = minSamples;
+        this.maxErrorRate = maxErrorRate;
+        this.hedgesSent = Counter.builder("llm.hedge.sent")
+                .description("Дублирующие запросы ко второму провайдеру")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("llm.hedge.won")
+                .description("Дублирующие запросы, ответившие раньше основного")
+                .register(meterRegistry);
+
+        for (LlmProvider provider : this.providers) {
+            Gauge.builder("llm.provider.latency.p50", provider, p -> seconds(p.stats().snapshot().p50Nanos()))
+                    .tag("provider", provider.name()).baseUnit("seconds").register(meterRegistry);
+            Gauge.builder("llm.provider.latency.p95", provider, p -> seconds(p.stats().snapshot().p95Nanos()))
+                    .tag("provider", provider.name()).baseUnit("seconds").register(meterRegistry);
+            Gauge.builder("llm.provider.error.rate", provider, p -> p.stats().snapshot().errorRate())
+                    .tag("provider", provider.name()).register(meterRegistry);
+        }
+    }
+
+    public List<LlmProvider> providers() {
+        return providers;
+    }
+
+    // Задержка — время до полного ответа
+    public <T> Mono<T> route(Function<LlmProvider, Mono<T>> call) {
+        return Mono.defer(() -> {
+            List<LlmProvider> ranked = ranked();
+            LlmProvider primary = ranked.get(0);
+            if (!hedgeEnabled || ranked.size() < 2) {
+                return measured(primary, call.apply(primary));
+            }
+            LlmProvider secondary = ranked.get(1);
+
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+            Mono<T> first = measured(primary, call.apply(primary))
+                    .doOnError(PROVIDER_FAILURE, e -> primaryFailed.tryEmitEmpty());
+            Mono<T> second = hedgeTrigger(primaryFailed)
+                    .then(Mono.defer(() -> {
+                        hedgesSent.increment();
+                        logger.info("LLM hedge: {} -> {}", primary.name(), secondary.name());
+                        return measured(secondary, call.apply(secondary));
+                    }))
+                    .doOnNext(value -> hedgesWon.increment());
+
+            // первый пришедший ответ побеждает; ошибка — только если упали оба
+            return Mono.firstWithValue(first, second).onErrorMap(LlmRouter::firstFailure);
+        });
+    }
+
+    // Задержка — время до первого кадра (TTFT): после него поток уже не переключить
+    public <T> Flux<T> routeStream(Function<LlmProvider, Flux<T>> call) {
+        return Flux.defer(() -> {
+            List<LlmProvider> ranked = ranked();
+            LlmProvider primary = ranked.get(0);
+            if (!hedgeEnabled || ranked.size() < 2) {
+                return measuredStream(primary, call.apply(primary));
+            }
+            LlmProvider secondary = ranked.get(1);
+
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+            Flux<T> first = measuredStream(primary, call.apply(primary))
+                    .doOnError(PROVIDER_FAILURE, e -> primaryFailed.tryEmitEmpty());
+            Flux<T> second = hedgeTrigger(primaryFailed)
+                    .thenMany(Flux.defer(() -> {
+                        hedgesSent.increment();
+                        logger.info("LLM stream hedge: {} -> {}", primary.name(), secondary.name());
+                        return measuredStream(secondary, call.apply(secondary));
+                    }));
+
+            return Flux.firstWithValue(first, second).onErrorMap(LlmRouter::firstFailure);
+        });
+    }
+
+    // Здоровые по возрастанию p50, за ними остальные; провайдеры без статистики идут первыми,
+    // провайдеры с открытым breaker — в любом случае среди нездоровых
+    List<LlmProvider> ranked() {
+        List<Ranked> ranked = new ArrayList<>(providers.size());
+        for (LlmProvider provider : providers) {
+            LatencyStats.Snapshot snapshot = provider.stats().snapshot();
+            boolean healthy = provider.breaker().getState() != CircuitBreaker.State.OPEN
+                    && (snapshot.samples() < minSamples || snapshot.errorRate() <= maxErrorRate);
+            ranked.add(new Ranked(provider, healthy, snapshot.p50Nanos()));
+        }
+        ranked.sort(Comparator.comparing((Ranked r) -> !r.healthy()).thenComparingLong(Ranked::p50Nanos));
+        List<LlmProvider> result = new ArrayList<>(ranked.size());
+        for (Ranked r : ranked) {
+            result.add(r.provider());
+        }
+        return result;
+    }
+
+    private record Ranked(LlmProvider provider, boolean healthy, long p50Nanos) { }
+
+    private Mono<Void> hedgeTrigger(Sinks.Empty<Void> primaryFailed) {
+        return Mono.firstWithSignal(Mono.delay(hedgeDelay).then(), primaryFailed.asMono());
+    }
+
+    // Отменённый запрос — отсчёт снизу (LatencyStats.recordCancelled): провайдер был как минимум настолько медленным
+    // breaker снаружи: отказ без вызова провайдера не портит его статистику задержек
+    private <T> Mono<T> measured(LlmProvider provider, Mono<T> call) {
+        return Mono.<T>defer(() -> {
+            long startedAt = System.nanoTime();
+            return call
+                    .doOnSuccess(value -> provider.stats().recordSuccess(System.nanoTime() - startedAt))
+                    .doOnError(e -> recordError(provider, e, startedAt))
+                    .doOnCancel(() -> provider.stats().recordCancelled(System.nanoTime() - startedAt));
+        }).transformDeferred(CircuitBreakerOperator.of(provider.breaker()));
+    }
+
+    private <T> Flux<T> measuredStream(LlmProvider provider, Flux<T> call) {
+        return Flux.<T>defer(() -> {
+            long startedAt = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+            return call
+                    .doOnNext(value -> {
+                        if (first.compareAndSet(true, false)) {
+                            provider.stats().recordSuccess(System.nanoTime() - startedAt);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (first.compareAndSet(true, false)) recordError(provider, e, startedAt);
+                    })
+                    .doOnCancel(() -> {
+                        if (first.compareAndSet(true, false)) {
+                            provider.stats().recordCancelled(System.nanoTime() - startedAt);
+                        }
+                    });
+        }).transformDeferred(CircuitBreakerOperator.of(provider.breaker()));
+    }
+
+    // firstWithValue при отказе обоих заворачивает ошибки в NoSuchElementException — отдаём ошибку основного
+    private static Throwable firstFailure(Throwable e) {
+        if (!(e instanceof NoSuchElementException)) return e;
+        if (e.getCause() != null && Exceptions.isMultiple(e.getCause())) {
+            return Exceptions.unwrapMultiple(e.getCause()).get(0);
+        }
+        return e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e;
+    }
+
+    // Long.MAX_VALUE — успешных ответов в окне нет, только ошибки
+    private static double seconds(long nanos) {
+        return nanos == Long.MAX_VALUE ? Double.NaN : nanos / 1e9;
+    }
+
+    private static void recordError(LlmProvider provider, Throwable e, long startedAt) {
+        // ошибка в самом запросе (400, 422) — не повод уводить трафик с провайдера
+        if (!PROVIDER_FAILURE.test(e)) {
+            provider.stats().recordSuccess(System.nanoTime() - startedAt);
+        } else {
+            provider.stats().recordFailure(System.nanoTime() - startedAt);
+        }
+    }
+}
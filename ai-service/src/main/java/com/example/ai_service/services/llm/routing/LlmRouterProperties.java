@@ -0,0 +1,43 @@
+package com.example.ai_service.services.llm.routing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Провайдеры LLM (app.llm.providers) и настройки роутера (app.llm.router).
+ * Если список провайдеров пуст, используется единственный spring.ai.openai.*.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.llm")
+public class LlmRouterProperties {
+
+    private List<Provider> providers = new ArrayList<>();
+    private Router router = new Router();
+
+    @Data
+    public static class Provider {
+        private String name;
+        private String baseUrl;
+        private String apiKey;
+        // null — модель из spring.ai.openai.chat.options.model
+        private String model;
+        // настройки пула из app.http.clients.<http-client>
+        private String httpClient = "llm";
+    }
+
+    @Data
+    public static class Router {
+        private boolean hedgeEnabled = true;
+        private Duration hedgeDelay = Duration.ofSeconds(2);
+        private int statsSamples = 256;
+        private Duration statsWindow = Duration.ofMinutes(1);
+        private int minSamples = 10;
+        private double maxErrorRate = 0.5;
+    }
+}
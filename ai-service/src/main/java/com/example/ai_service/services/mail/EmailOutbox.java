@@ -0,0 +1,313 @@
+package com.example.ai_service.services.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Очередь писем: вызов send_email только записывает письмо в журнал и сразу возвращает id,
+ * а SMTP-отправкой с повторами и экспоненциальной задержкой занимается пул воркеров.
+ * Письма, исчерпавшие попытки, остаются в dead-letter со статусом DEAD: у них своя граница
+ * retain-dead, отдельная от retain-completed, поэтому поток успешных писем их не вытесняет,
+ * и при сжатии журнала на старте они переписываются вместе с остальными.
+ */
+@Component
+public class EmailOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutbox.class);
+
+    private final JavaMailSender mailSender;
+    private final OutboxJournal journal;
+    private final String fromEmail;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int retainCompleted;
+    private final int retainDead;
+
+    private final Map<String, OutboxEntry> entries = new ConcurrentHashMap<>();
+    // id завершённых писем от старых к новым: отправленные и dead-letter вытесняются независимо
+    private final ConcurrentLinkedQueue<String> completed = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String> dead = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter deadCounter;
+    private final Timer sendTimer;
+
+    private final BlockingQueue<OutboxEntry> ready = new LinkedBlockingQueue<>();
+    private ExecutorService workerPool;
+    private ScheduledExecutorService retryScheduler;
+
+    public EmailOutbox(
+            JavaMailSender mailSender,
+            MeterRegistry meterRegistry,
+            @Value("${spring.mail.username}") String fromEmail,
+            @Value("${app.mail.outbox.journal:./data/mail-outbox.log}") Path journalPath,
+            @Value("${app.mail.outbox.workers:2}") int workers,
+            @Value("${app.mail.outbox.batch-size:10}") int batchSize,
+            @Value("${app.mail.outbox.max-attempts:6}") int maxAttempts,
+            @Value("${app.mail.outbox.initial-backoff:2s}") Duration initialBackoff,
+            @Value("${app.mail.outbox.max-backoff:5m}") Duration maxBackoff,
+            @Value("${app.mail.outbox.retain-completed:1000}") int retainCompleted,
+            @Value("${app.mail.outbox.retain-dead:10000}") int retainDead) {
+        this.mailSender = mailSender;
+        this.journal = new OutboxJournal(journalPath);
+        this.fromEmail = fromEmail;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retainCompleted = retainCompleted;
+        this.retainDead = retainDead;
+
+        Gauge.builder("mail.outbox.pending", pending, AtomicInteger::get)
+                .description("Письма, ожидающие отправки")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("mail.outbox.sent").register(meterRegistry);
+        this.retryCounter = Counter.builder("mail.outbox.retries").register(meterRegistry);
+        this.deadCounter = Counter.builder("mail.outbox.dead").register(meterRegistry);
+        // сама отправка в SMTP, пачкой; постановка в очередь из чата — chat.stage{stage=email}
+        this.sendTimer = Timer.builder("mail.outbox.send")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        replay();
+        journal.compact(entries.values().stream()
+                .sorted(Comparator.comparingLong(OutboxEntry::createdAt))
+                .toList());
+
+        workerPool = Executors.newFixedThreadPool(workers, daemon("mail-outbox"));
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(daemon("mail-outbox-retry"));
+        for (OutboxEntry entry : entries.values()) {
+            if (entry.status() == EmailStatus.PENDING) {
+                ready.add(entry);
+            }
+        }
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::workLoop);
+        }
+        logger.info("Mail outbox started, pending messages: {}", pending.get());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        retryScheduler.shutdownNow();
+        workerPool.shutdownNow();
+        workerPool.awaitTermination(5, TimeUnit.SECONDS);
+        journal.close();
+    }
+
+    public String enqueue(String businessId, String to, String subject, String body, boolean html) {
+        OutboxEntry entry = new OutboxEntry(UUID.randomUUID().toString(), businessId, to, subject, body, html,
+                System.currentTimeMillis());
+        journal.append(OutboxJournal.Record.enqueued(entry), true);
+        entries.put(entry.id(), entry);
+        pending.incrementAndGet();
+        ready.add(entry);
+        return entry.id();
+    }
+
+    public Optional<OutboxEntry> find(String id) {
+        return Optional.ofNullable(entries.get(id));
+    }
+
+    // От старых к новым
+    public List<OutboxEntry> deadLetters() {
+        List<OutboxEntry> letters = new ArrayList<>();
+        for (String id : dead) {
+            OutboxEntry entry = entries.get(id);
+            if (entry != null) letters.add(entry);
+        }
+        return letters;
+    }
+
+    // Воркер забирает все готовые письма (до batchSize) и отправляет их одним пакетом через одно SMTP-соединение
+    private void workLoop() {
+        List<OutboxEntry> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(ready.take());
+                ready.drainTo(batch, batchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.error("Ошибка воркера outbox", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<OutboxEntry> batch) {
+        Map<MimeMessage, OutboxEntry> messages = new LinkedHashMap<>();
+        for (OutboxEntry entry : batch) {
+            try {
+                messages.put(toMimeMessage(entry), entry);
+            } catch (Exception e) {
+                onFailure(entry, e);
+            }
+        }
+        if (messages.isEmpty()) return;
+
+        Map<Object, Exception> failures = Map.of();
+        Exception batchError = null;
+        Timer.Sample sample = Timer.start();
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) batchError = e;
+        } catch (Exception e) {
+            batchError = e;
+        } finally {
+            sample.stop(sendTimer);
+        }
+
+        for (Map.Entry<MimeMessage, OutboxEntry> message : messages.entrySet()) {
+            Exception failure = batchError != null ? batchError : failures.get(message.getKey());
+            if (failure == null) {
+                onSent(message.getValue());
+            } else {
+                onFailure(message.getValue(), failure);
+            }
+        }
+    }
+
+    private void onSent(OutboxEntry entry) {
+        entry.markSent(entry.attempts() + 1, System.currentTimeMillis());
+        journal.append(OutboxJournal.Record.sent(entry), false);
+        sentCounter.increment();
+        complete(entry);
+    }
+
+    private void onFailure(OutboxEntry entry, Exception e) {
+        int attempt = entry.attempts() + 1;
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        boolean permanent = e instanceof MailPreparationException || e instanceof MailParseException
+                || e instanceof AddressException;
+        if (permanent || attempt >= maxAttempts) {
+            logger.error("Письмо {} не отправлено после {} попыток, перенесено в dead-letter", entry.id(), attempt, e);
+            entry.markDead(attempt, error, System.currentTimeMillis());
+            journal.append(OutboxJournal.Record.dead(entry), false);
+            deadCounter.increment();
+            complete(entry);
+        } else {
+            Duration backoff = backoff(attempt);
+            logger.warn("Письмо {}: попытка {} не удалась ({}), повтор через {}", entry.id(), attempt, error, backoff);
+            entry.markFailed(attempt, error, System.currentTimeMillis());
+            journal.append(OutboxJournal.Record.failed(entry), false);
+            retryCounter.increment();
+            retryScheduler.schedule(() -> ready.add(entry), backoff.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private MimeMessage toMimeMessage(OutboxEntry entry) throws Exception {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(entry.to());
+        helper.setSubject(entry.subject());
+        helper.setText(entry.body(), entry.html());
+        return mimeMessage;
+    }
+
+    // initial * 2^(attempt-1), но не больше maxBackoff
+    private Duration backoff(int attempt) {
+        long millis = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+        return Duration.ofMillis(Math.min(millis, maxBackoff.toMillis()));
+    }
+
+    // В памяти храним не больше retainCompleted отправленных и retainDead dead-letter писем,
+    // чтобы статус можно было запросить
+    private void complete(OutboxEntry entry) {
+        pending.decrementAndGet();
+        retain(entry);
+    }
+
+    private void retain(OutboxEntry entry) {
+        boolean isDead = entry.status() == EmailStatus.DEAD;
+        ConcurrentLinkedQueue<String> queue = isDead ? dead : completed;
+        queue.add(entry.id());
+        int limit = isDead ? retainDead : retainCompleted;
+        while (queue.size() > limit) {
+            String oldest = queue.poll();
+            if (oldest != null) entries.remove(oldest);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private void replay() {
+        for (OutboxJournal.Record record : journal.read()) {
+            switch (record.type()) {
+                case OutboxJournal.ENQUEUED -> entries.put(record.id(), new OutboxEntry(record.id(), record.businessId(),
+                        record.to(), record.subject(), record.body(), Boolean.TRUE.equals(record.html()), record.at()));
+                case OutboxJournal.FAILED -> find(record.id())
+                        .ifPresent(e -> e.markFailed(record.attempts(), record.error(), record.at()));
+                case OutboxJournal.SENT -> find(record.id())
+                        .ifPresent(e -> e.markSent(record.attempts(), record.at()));
+                case OutboxJournal.DEAD -> find(record.id())
+                        .ifPresent(e -> e.markDead(record.attempts(), record.error(), record.at()));
+                default -> logger.warn("Неизвестный тип записи журнала outbox: {}", record.type());
+            }
+        }
+
+        List<OutboxEntry> done = entries.values().stream()
+                .filter(e -> e.status() != EmailStatus.PENDING)
+                .sorted(Comparator.comparingLong(OutboxEntry::updatedAt))
+                .toList();
+        for (OutboxEntry entry : done) {
+            retain(entry);
+        }
+        pending.set((int) entries.values().stream().filter(e -> e.status() == EmailStatus.PENDING).count());
+    }
+}
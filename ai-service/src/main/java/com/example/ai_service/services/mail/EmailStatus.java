@@ -0,0 +1,7 @@
+package com.example.ai_service.services.mail;
+
+public enum EmailStatus {
+    PENDING,
+    SENT,
+    DEAD
+}
@@ -0,0 +1,62 @@
+package com.example.ai_service.services.mail;
+
+/**
+ * Письмо в outbox. Содержимое неизменно, состояние доставки меняет только воркер.
+ */
+public class OutboxEntry {
+
+    private final String id;
+    private final String businessId;
+    private final String to;
+    private final String subject;
+    private final String body;
+    private final boolean html;
+    private final long createdAt;
+
+    private volatile EmailStatus status = EmailStatus.PENDING;
+    private volatile int attempts;
+    private volatile String lastError;
+    private volatile long updatedAt;
+
+    public OutboxEntry(String id, String businessId, String to, String subject, String body, boolean html, long createdAt) {
+        this.id = id;
+        this.businessId = businessId;
+        this.to = to;
+        this.subject = subject;
+        this.body = body;
+        this.html = html;
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+    }
+
+    public String id() { return id; }
+    public String businessId() { return businessId; }
+    public String to() { return to; }
+    public String subject() { return subject; }
+    public String body() { return body; }
+    public boolean html() { return html; }
+    public long createdAt() { return createdAt; }
+    public EmailStatus status() { return status; }
+    public int attempts() { return attempts; }
+    public String lastError() { return lastError; }
+    public long updatedAt() { return updatedAt; }
+
+    void markFailed(int attempts, String error, long at) {
+        this.attempts = attempts;
+        this.lastError = error;
+        this.updatedAt = at;
+    }
+
+    void markSent(int attempts, long at) {
+        this.attempts = attempts;
+        this.status = EmailStatus.SENT;
+        this.updatedAt = at;
+    }
+
+    void markDead(int attempts, String error, long at) {
+        this.attempts = attempts;
+        this.lastError = error;
+        this.status = EmailStatus.DEAD;
+        this.updatedAt = at;
+    }
+}
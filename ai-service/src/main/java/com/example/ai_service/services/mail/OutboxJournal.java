@@ -0,0 +1,147 @@
+package com.example.ai_service.services.mail;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Append-only журнал outbox: одна JSON-строка на событие. При старте журнал проигрывается
+ * заново и переписывается компактно — только с письмами, которые ещё нужно помнить.
+ */
+public class OutboxJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxJournal.class);
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Record(
+            String type,
+            String id,
+            String businessId,
+            String to,
+            String subject,
+            String body,
+            Boolean html,
+            Integer attempts,
+            String error,
+            long at
+    ) {
+        static Record enqueued(OutboxEntry e) {
+            return new Record(ENQUEUED, e.id(), e.businessId(), e.to(), e.subject(), e.body(), e.html(), null, null, e.createdAt());
+        }
+
+        static Record failed(OutboxEntry e) {
+            return new Record(FAILED, e.id(), null, null, null, null, null, e.attempts(), e.lastError(), e.updatedAt());
+        }
+
+        static Record sent(OutboxEntry e) {
+            return new Record(SENT, e.id(), null, null, null, null, null, e.attempts(), null, e.updatedAt());
+        }
+
+        static Record dead(OutboxEntry e) {
+            return new Record(DEAD, e.id(), null, null, null, null, null, e.attempts(), e.lastError(), e.updatedAt());
+        }
+    }
+
+    static final String ENQUEUED = "ENQUEUED";
+    static final String FAILED = "FAILED";
+    static final String SENT = "SENT";
+    static final String DEAD = "DEAD";
+
+    private final Path path;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private FileChannel channel;
+
+    public OutboxJournal(Path path) {
+        this.path = path;
+    }
+
+    public List<Record> read() {
+        List<Record> records = new ArrayList<>();
+        if (!Files.exists(path)) return records;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                try {
+                    records.add(objectMapper.readValue(line, Record.class));
+                } catch (IOException e) {
+                    // недописанная строка после аварийной остановки
+                    logger.warn("Пропущена повреждённая запись журнала outbox: {}", e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать журнал outbox " + path, e);
+        }
+        return records;
+    }
+
+    // Переписывает журнал снимком entries и открывает его на дозапись
+    public synchronized void compact(Collection<OutboxEntry> entries) {
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (OutboxEntry entry : entries) {
+                    write(out, Record.enqueued(entry));
+                    switch (entry.status()) {
+                        case SENT -> write(out, Record.sent(entry));
+                        case DEAD -> write(out, Record.dead(entry));
+                        case PENDING -> {
+                            if (entry.attempts() > 0) write(out, Record.failed(entry));
+                        }
+                    }
+                }
+                out.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (channel != null) channel.close();
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось переписать журнал outbox " + path, e);
+        }
+    }
+
+    // force: письмо считается принятым только после того, как запись дошла до диска
+    public synchronized void append(Record record, boolean force) {
+        try {
+            write(channel, record);
+            if (force) channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать в журнал outbox " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void write(FileChannel out, Record record) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(record);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1);
+        buffer.put(json).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
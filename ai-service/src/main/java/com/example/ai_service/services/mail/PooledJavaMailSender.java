@@ -0,0 +1,227 @@
+package com.example.ai_service.services.mail;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JavaMailSender, который держит ограниченный пул уже аутентифицированных SMTP-соединений
+ * вместо TCP + TLS + AUTH на каждое письмо. Соединение проверяется (NOOP) после простоя,
+ * пересоздаётся после max-messages-per-connection писем и закрывается по idle-timeout.
+ * send(MimeMessage...) отправляет весь пакет через одно соединение.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledJavaMailSender.class);
+
+    private final int maxMessagesPerConnection;
+    private final Duration idleTimeout;
+    private final Duration validateAfterIdle;
+    private final Duration acquireTimeout;
+
+    // permit = право держать соединение в работе; простаивающие лежат в idle (LIFO)
+    private final Semaphore permits;
+    private final Deque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong handshakes = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final ScheduledExecutorService evictor;
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private int messagesSent;
+        private long lastUsedNanos = System.nanoTime();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    public PooledJavaMailSender(int maxConnections, int maxMessagesPerConnection, Duration idleTimeout,
+                                Duration validateAfterIdle, Duration acquireTimeout) {
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.idleTimeout = idleTimeout;
+        this.validateAfterIdle = validateAfterIdle;
+        this.acquireTimeout = acquireTimeout;
+        this.permits = new Semaphore(maxConnections, true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mail-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1_000, idleTimeout.toMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("mail.pool.connections.active", active, AtomicInteger::get)
+                .description("SMTP-соединения, занятые отправкой")
+                .register(meterRegistry);
+        Gauge.builder("mail.pool.connections.idle", idle, Deque::size)
+                .description("Открытые SMTP-соединения в ожидании")
+                .register(meterRegistry);
+        Gauge.builder("mail.pool.connections.pending", permits, Semaphore::getQueueLength)
+                .description("Потоки, ожидающие свободного соединения")
+                .register(meterRegistry);
+        FunctionCounter.builder("mail.pool.handshakes", handshakes, AtomicLong::get)
+                .description("Новые SMTP-соединения (TCP + TLS + AUTH)")
+                .register(meterRegistry);
+        FunctionCounter.builder("mail.pool.recycled", recycled, AtomicLong::get)
+                .description("Соединения, закрытые по лимиту писем, простою или ошибке")
+                .register(meterRegistry);
+    }
+
+    public long handshakeCount() {
+        return handshakes.get();
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        PooledTransport pooled = null;
+
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage mimeMessage = mimeMessages[i];
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessage;
+
+                if (pooled == null) {
+                    try {
+                        pooled = acquire();
+                    } catch (MessagingException | InterruptedException ex) {
+                        // без соединения не уйдёт ни одно из оставшихся писем
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+                        }
+                        if (ex instanceof InterruptedException) Thread.currentThread().interrupt();
+                        throw new MailSendException("Mail server connection failed", ex, failedMessages);
+                    }
+                }
+
+                try {
+                    if (mimeMessage.getSentDate() == null) {
+                        mimeMessage.setSentDate(new Date());
+                    }
+                    String messageId = mimeMessage.getMessageID();
+                    mimeMessage.saveChanges();
+                    if (messageId != null) {
+                        mimeMessage.setHeader("Message-ID", messageId);
+                    }
+                    Address[] addresses = mimeMessage.getAllRecipients();
+                    pooled.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+                    pooled.messagesSent++;
+                } catch (MessagingException ex) {
+                    failedMessages.put(original, ex);
+                    if (!pooled.transport.isConnected()) {
+                        release(pooled, false);
+                        pooled = null;
+                    }
+                }
+            }
+        } finally {
+            if (pooled != null) {
+                release(pooled, true);
+            }
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        evictor.shutdownNow();
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            close(pooled);
+        }
+    }
+
+    private PooledTransport acquire() throws MessagingException, InterruptedException {
+        if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new MessagingException("No SMTP connection available within " + acquireTimeout);
+        }
+        try {
+            PooledTransport pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                long idleNanos = System.nanoTime() - pooled.lastUsedNanos;
+                if (idleNanos > idleTimeout.toNanos()) {
+                    close(pooled);
+                } else if (idleNanos > validateAfterIdle.toNanos() && !pooled.transport.isConnected()) {
+                    // isConnected у SMTPTransport отправляет NOOP
+                    close(pooled);
+                } else {
+                    active.incrementAndGet();
+                    return pooled;
+                }
+            }
+
+            Transport transport = connectTransport();
+            handshakes.incrementAndGet();
+            active.incrementAndGet();
+            return new PooledTransport(transport);
+        } catch (MessagingException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private void release(PooledTransport pooled, boolean reusable) {
+        active.decrementAndGet();
+        try {
+            if (reusable && pooled.messagesSent < maxMessagesPerConnection) {
+                pooled.lastUsedNanos = System.nanoTime();
+                idle.offerFirst(pooled);
+            } else {
+                close(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        Iterator<PooledTransport> iterator = idle.descendingIterator();
+        while (iterator.hasNext()) {
+            PooledTransport pooled = iterator.next();
+            if (System.nanoTime() - pooled.lastUsedNanos > idleTimeout.toNanos() && idle.remove(pooled)) {
+                close(pooled);
+            }
+        }
+    }
+
+    private void close(PooledTransport pooled) {
+        recycled.incrementAndGet();
+        try {
+            pooled.transport.close();
+        } catch (MessagingException ex) {
+            logger.debug("Failed to close SMTP transport", ex);
+        }
+    }
+}
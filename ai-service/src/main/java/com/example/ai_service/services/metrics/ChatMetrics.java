@@ -0,0 +1,146 @@
+package com.example.ai_service.services.metrics;
+
+import com.example.ai_service.entity.dto.OpenAIChatResponse;
+import com.example.ai_service.services.profiling.ChatStageEvent;
+import com.example.ai_service.services.profiling.RequestIds;
+import com.example.ai_service.services.ratelimit.FairSchedulerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики хода чата. chat.stage{stage, mode, outcome} — гистограммы по этапам: context, prompt,
+ * llm, tool, email и total; llm.tokens{type, mode, plan} — токены по usage провайдера;
+ * chat.tool.calls{tool, mode}; chat.response.cache{result, mode}.
+ * Значения тегов ограничены: режим — copilot/default, бизнес представлен тарифом, а не businessId.
+ * Каждый этап также пишется JFR-событием ChatStageEvent с X-Request-Id из Reactor Context.
+ */
+@Component
+public class ChatMetrics {
+
+    public static final String CONTEXT = "context";
+    public static final String PROMPT = "prompt";
+    public static final String LLM = "llm";
+    public static final String TOOL = "tool";
+    public static final String EMAIL = "email";
+    public static final String TOTAL = "total";
+
+    private final MeterRegistry registry;
+    private final FairSchedulerProperties plans;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public ChatMetrics(MeterRegistry registry, FairSchedulerProperties plans) {
+        this.registry = registry;
+        this.plans = plans;
+    }
+
+    public static String mode(String mode) {
+        return "copilot".equals(mode) ? "copilot" : "default";
+    }
+
+    // Время от подписки до завершения; отмена (клиент ушёл, дедлайн) — отдельный outcome
+    public <T> Mono<T> timed(String stage, String mode, Mono<T> source) {
+        return Mono.deferContextual(context -> {
+            ChatStageEvent event = begin();
+            long startedAt = System.nanoTime();
+            return source.doFinally(signal -> finish(event, RequestIds.from(context), stage, mode, outcome(signal),
+                    System.nanoTime() - startedAt));
+        });
+    }
+
+    public <T> Flux<T> timed(String stage, String mode, Flux<T> source) {
+        return Flux.deferContextual(context -> {
+            ChatStageEvent event = begin();
+            long startedAt = System.nanoTime();
+            return source.doFinally(signal -> finish(event, RequestIds.from(context), stage, mode, outcome(signal),
+                    System.nanoTime() - startedAt));
+        });
+    }
+
+    public void firstToken(String mode, long nanos) {
+        timer("chat.llm.ttft", "mode", mode(mode)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void tokens(String mode, String businessId, OpenAIChatResponse.Usage usage) {
+        if (usage == null) return;
+        String plan = plans.plan(businessId);
+        if (usage.getPrompt_tokens() != null) {
+            counter("llm.tokens", "type", "prompt", "mode", mode(mode), "plan", plan)
+                    .increment(usage.getPrompt_tokens());
+        }
+        if (usage.getCompletion_tokens() != null) {
+            counter("llm.tokens", "type", "completion", "mode", mode(mode), "plan", plan)
+                    .increment(usage.getCompletion_tokens());
+        }
+    }
+
+    public void toolCall(String mode, String tool) {
+        counter("chat.tool.calls", "tool", tool, "mode", mode(mode)).increment();
+    }
+
+    // hit, miss или bypass (запрос с историей или функциями в кэш не ходит)
+    public void cache(String mode, String key, boolean hit) {
+        String result = key == null ? "bypass" : hit ? "hit" : "miss";
+        counter("chat.response.cache", "result", result, "mode", mode(mode)).increment();
+    }
+
+    private static ChatStageEvent begin() {
+        ChatStageEvent event = new ChatStageEvent();
+        event.begin();
+        return event;
+    }
+
+    private void finish(ChatStageEvent event, String requestId, String stage, String mode, String outcome, long nanos) {
+        record(stage, mode, outcome, nanos);
+        event.end();
+        if (event.shouldCommit()) {
+            event.requestId = requestId;
+            event.stage = stage;
+            event.mode = mode(mode);
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    private void record(String stage, String mode, String outcome, long nanos) {
+        Timer timer = timers.computeIfAbsent(stage + '|' + mode(mode) + '|' + outcome, key -> Timer.builder("chat.stage")
+                .tags("stage", stage, "mode", mode(mode), "outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .register(registry));
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String name, String... tags) {
+        return timers.computeIfAbsent(name + String.join("|", tags), key -> Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .register(registry));
+    }
+
+    private Counter counter(String name, String... tags) {
+        return counters.computeIfAbsent(name + String.join("|", tags),
+                key -> Counter.builder(name).tags(tags).register(registry));
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_ERROR -> "error";
+            case CANCEL -> "cancelled";
+            default -> "success";
+        };
+    }
+}
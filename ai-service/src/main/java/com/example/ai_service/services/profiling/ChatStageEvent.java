@@ -0,0 +1,29 @@
+package com.example.ai_service.services.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Этап чата (context, prompt, llm, tool, email, total): пишется из ChatMetrics.timed
+@Name(ChatStageEvent.NAME)
+@Label("Chat Stage")
+@Category({"Copilot", "ai-service"})
+@StackTrace(false)
+public class ChatStageEvent extends Event {
+
+    static final String NAME = "copilot.ai.ChatStage";
+
+    @Label("Request Id")
+    public String requestId;
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,40 @@
+package com.example.ai_service.services.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// HTTP-запрос целиком; для асинхронных ответов — до завершения AsyncContext
+@Name(HttpRequestEvent.NAME)
+@Label("HTTP Request")
+@Category({"Copilot", "ai-service"})
+@StackTrace(false)
+class HttpRequestEvent extends Event {
+
+    static final String NAME = "copilot.ai.HttpRequest";
+
+    @Label("Request Id")
+    String requestId;
+
+    @Label("Method")
+    String method;
+
+    // шаблон маршрута (/api/chat), а не сырой URI
+    @Label("Route")
+    String route;
+
+    @Label("Status")
+    int status;
+
+    // ответ дописывается в потоках Netty и boundedElastic, их выделения сюда не входят
+    @Label("Async")
+    boolean async;
+
+    // только servlet-поток: у асинхронных запросов это разбор запроса и запуск цепочки, а не весь ответ
+    @Label("Allocated (servlet thread only)")
+    @DataAmount
+    long servletAllocatedBytes;
+}
@@ -0,0 +1,32 @@
+package com.example.ai_service.services.profiling;
+
+import com.example.common.profiling.ProfiledJwtDecoder;
+import com.example.common.profiling.SlowRequestRecorder;
+import com.example.common.profiling.SlowRequestsEndpoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+// Топ медленных запросов: разбивка по этапам чата и проверке JWT
+@Configuration
+public class ProfilingConfig {
+
+    @Bean
+    public SlowRequestRecorder slowRequestRecorder(
+            @Value("${app.profiling.enabled:true}") boolean enabled,
+            @Value("${app.profiling.slowest:20}") int slowest,
+            @Value("${app.profiling.max-pending:10000}") int maxPending,
+            @Value("${app.profiling.max-stages:100}") int maxStages) {
+        return new SlowRequestRecorder(enabled, slowest, maxPending, maxStages, HttpRequestEvent.NAME, List.of(
+                new SlowRequestRecorder.StageType(ChatStageEvent.NAME, event -> event.getString("stage"),
+                        event -> event.getString("mode") + ", " + event.getString("outcome")),
+                ProfiledJwtDecoder.stage()));
+    }
+
+    @Bean
+    public SlowRequestsEndpoint slowRequestsEndpoint(SlowRequestRecorder recorder) {
+        return new SlowRequestsEndpoint(recorder);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ai_service.services.profiling;
+
+import jakarta.servlet.http.HttpServletRequest;
+import reactor.util.context.ContextView;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Идентификатор запроса (X-Request-Id): приходит от клиента или создаётся фильтром. В servlet-потоке
+ * лежит в атрибуте запроса, в реактивной цепочке чата — в Reactor Context под CONTEXT_KEY.
+ */
+public final class RequestIds {
+
+    public static final String HEADER = "X-Request-Id";
+    public static final String CONTEXT_KEY = RequestIds.class.getName();
+    static final String ATTRIBUTE = RequestIds.class.getName() + ".id";
+
+    // чужой идентификатор принимаем, только если он короткий и без спецсимволов
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RequestIds() {
+    }
+
+    static String resolve(String header) {
+        return header != null && VALID.matcher(header).matches() ? header : UUID.randomUUID().toString();
+    }
+
+    static void bind(HttpServletRequest request, String requestId) {
+        request.setAttribute(ATTRIBUTE, requestId);
+        CURRENT.set(requestId);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    public static String of(HttpServletRequest request) {
+        Object id = request.getAttribute(ATTRIBUTE);
+        return id != null ? id.toString() : "";
+    }
+
+    // Запрос, который сейчас обрабатывает servlet-поток; пусто вне запроса
+    public static String current() {
+        String id = CURRENT.get();
+        return id != null ? id : "";
+    }
+
+    public static String from(ContextView context) {
+        return context.getOrDefault(CONTEXT_KEY, "");
+    }
+}
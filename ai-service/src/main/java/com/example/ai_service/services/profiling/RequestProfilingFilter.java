@@ -0,0 +1,86 @@
+package com.example.ai_service.services.profiling;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Назначает запросу X-Request-Id (в ответ, в MDC и для JFR-событий) и пишет HttpRequestEvent.
+ * Стоит раньше Spring Security, чтобы проверка JWT попала в тот же запрос.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestProfilingFilter extends OncePerRequestFilter {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requestId = RequestIds.resolve(request.getHeader(RequestIds.HEADER));
+        response.setHeader(RequestIds.HEADER, requestId);
+        RequestIds.bind(request, requestId);
+        MDC.put("requestId", requestId);
+
+        HttpRequestEvent event = new HttpRequestEvent();
+        event.begin();
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            if (request.isAsyncStarted()) {
+                // чат отвечает асинхронно: запрос заканчивается вместе с AsyncContext
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent e) {
+                        commit(event, request, response, requestId, true, allocated);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent e) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent e) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent e) {
+                    }
+                });
+            } else {
+                commit(event, request, response, requestId, false, allocated);
+            }
+            MDC.remove("requestId");
+            RequestIds.unbind();
+        }
+    }
+
+    private static void commit(HttpRequestEvent event, HttpServletRequest request, HttpServletResponse response,
+                               String requestId, boolean async, long allocated) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        event.requestId = requestId;
+        event.method = request.getMethod();
+        event.route = route != null ? route.toString() : "unmatched";
+        event.status = response.getStatus();
+        event.async = async;
+        event.servletAllocatedBytes = allocated;
+        event.commit();
+    }
+}
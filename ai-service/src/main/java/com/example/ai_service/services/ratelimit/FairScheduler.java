@@ -0,0 +1,238 @@
+package com.example.ai_service.services.ratelimit;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Планировщик вызовов LLM: у каждого бизнеса своя очередь, освободившееся место отдаётся
+ * по deficit round-robin. За круг бизнес получает quantum * weight токенов кредита и тратит их
+ * на оценку своих запросов, поэтому тяжёлый бизнес не вытесняет лёгких, а тариф с весом 4
+ * получает вчетверо больше токенов, чем с весом 1.
+ *
+ * Лимит одновременных вызовов адаптивный (AIMD): +1 за быстрый ответ при загруженном лимите,
+ * умножение на backoffRatio за ошибку или ответ дольше latencyThreshold.
+ */
+public class FairScheduler {
+
+    private final int maxLimit;
+    private final int minLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final long quantum;
+    private final int maxQueue;
+    private final int maxQueuePerTenant;
+    private final Duration queueTimeout;
+
+    private final Map<String, Tenant> tenants = new HashMap<>();
+    // бизнесы с непустой очередью в порядке обхода
+    private final ArrayDeque<Tenant> active = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private int queued;
+
+    private static final class Tenant {
+        private final String id;
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        private int weight;
+        private long deficit;
+        // кредит за текущий круг уже начислен
+        private boolean credited;
+
+        private Tenant(String id) {
+            this.id = id;
+        }
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Permit> sink;
+        private final Tenant tenant;
+        private final long cost;
+        private final AtomicBoolean done = new AtomicBoolean();
+        // выставляется до done, чтобы отменивший ожидание мог вернуть уже выданное место
+        private volatile Permit permit;
+
+        private Waiter(MonoSink<Permit> sink, Tenant tenant, long cost) {
+            this.sink = sink;
+            this.tenant = tenant;
+            this.cost = cost;
+        }
+    }
+
+    /**
+     * Место в лимите. success() фиксирует задержку ответа (для потока — до первого токена),
+     * dropped() — что вызов завершился ошибкой; release() идемпотентен и учитывает замер в лимите.
+     */
+    public final class Permit {
+        private final long startedAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile long latencyNanos = -1;
+        private volatile boolean dropped;
+
+        public void success() {
+            if (latencyNanos < 0) latencyNanos = System.nanoTime() - startedAt;
+        }
+
+        public void dropped() {
+            dropped = true;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                onRelease(this);
+            }
+        }
+    }
+
+    public FairScheduler(int maxLimit, int initialLimit, int minLimit, Duration latencyThreshold,
+                         double backoffRatio, long quantum, int maxQueue, int maxQueuePerTenant,
+                         Duration queueTimeout) {
+        this.maxLimit = maxLimit;
+        this.minLimit = Math.min(minLimit, maxLimit);
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.quantum = quantum;
+        this.maxQueue = maxQueue;
+        this.maxQueuePerTenant = maxQueuePerTenant;
+        this.queueTimeout = queueTimeout;
+        this.limit = Math.max(this.minLimit, Math.min(initialLimit, maxLimit));
+    }
+
+    public Mono<Permit> acquire(String tenantId, int weight, long cost) {
+        return Mono.<Permit>create(sink -> {
+            boolean granted = false;
+            boolean rejected = false;
+            Waiter waiter = null;
+            synchronized (this) {
+                if (inFlight < (int) limit && queued == 0) {
+                    inFlight++;
+                    granted = true;
+                } else {
+                    Tenant tenant = tenants.computeIfAbsent(tenantId == null ? "" : tenantId, Tenant::new);
+                    tenant.weight = Math.max(1, weight);
+                    if (queued >= maxQueue || tenant.queue.size() >= maxQueuePerTenant) {
+                        rejected = true;
+                    } else {
+                        waiter = new Waiter(sink, tenant, Math.max(1, cost));
+                        if (tenant.queue.isEmpty()) active.addLast(tenant);
+                        tenant.queue.addLast(waiter);
+                        queued++;
+                    }
+                }
+            }
+            if (granted) {
+                sink.success(new Permit());
+            } else if (rejected) {
+                sink.error(new RateLimitedException(queueTimeout, "Сервис перегружен"));
+            } else {
+                Waiter w = waiter;
+                // ушедший из очереди (отмена или таймаут) место не занимает
+                sink.onCancel(() -> {
+                    if (w.done.compareAndSet(false, true)) {
+                        remove(w);
+                    } else {
+                        w.permit.release();
+                    }
+                });
+                // место могло освободиться, пока заявка вставала в очередь
+                dispatch();
+            }
+        }).timeout(queueTimeout, Mono.error(() -> new RateLimitedException(queueTimeout, "Сервис перегружен")));
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queued() {
+        return queued;
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    private void onRelease(Permit permit) {
+        synchronized (this) {
+            inFlight--;
+            long latency = permit.latencyNanos;
+            if (permit.dropped || latency > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (latency >= 0 && inFlight + 1 >= limit / 2) {
+                // лимит повышаем, только если он действительно был загружен
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        while (true) {
+            Waiter next;
+            synchronized (this) {
+                if (inFlight >= (int) limit) return;
+                next = nextWaiter();
+                if (next == null) return;
+                inFlight++;
+            }
+            Permit permit = new Permit();
+            next.permit = permit;
+            if (next.done.compareAndSet(false, true)) {
+                next.sink.success(permit);
+            } else {
+                // заявку отменили между выбором и выдачей — место возвращается следующему
+                synchronized (this) {
+                    inFlight--;
+                }
+            }
+        }
+    }
+
+    // Deficit round-robin по бизнесам с непустой очередью; вызывается под this
+    private Waiter nextWaiter() {
+        while (!active.isEmpty()) {
+            Tenant tenant = active.peekFirst();
+            if (!tenant.credited) {
+                tenant.deficit += quantum * tenant.weight;
+                tenant.credited = true;
+            }
+            Waiter head = tenant.queue.peekFirst();
+            if (head.cost <= tenant.deficit) {
+                tenant.queue.pollFirst();
+                queued--;
+                tenant.deficit -= head.cost;
+                if (tenant.queue.isEmpty()) deactivate(tenant);
+                return head;
+            }
+            // кредита на следующий запрос не хватает — ход переходит к следующему бизнесу
+            active.pollFirst();
+            tenant.credited = false;
+            active.addLast(tenant);
+        }
+        return null;
+    }
+
+    private synchronized void remove(Waiter waiter) {
+        Tenant tenant = waiter.tenant;
+        if (tenant.queue.remove(waiter)) {
+            queued--;
+            if (tenant.queue.isEmpty()) {
+                active.remove(tenant);
+                deactivate(tenant);
+            }
+        }
+    }
+
+    // Бизнес без очереди не копит кредит и не держит запись в памяти
+    private void deactivate(Tenant tenant) {
+        if (active.peekFirst() == tenant) active.pollFirst();
+        tenant.deficit = 0;
+        tenant.credited = false;
+        tenants.remove(tenant.id);
+    }
+}
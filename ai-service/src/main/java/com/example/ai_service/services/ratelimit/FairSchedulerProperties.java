@@ -0,0 +1,47 @@
+package com.example.ai_service.services.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Планировщик вызовов LLM (app.rate-limit.scheduler): веса тарифов, тариф каждого бизнеса
+ * и адаптивный лимит одновременных вызовов. Бизнес без записи в businesses идёт по default-plan,
+ * тариф без записи в plans имеет вес 1.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit.scheduler")
+public class FairSchedulerProperties {
+
+    private Map<String, Integer> plans = new LinkedHashMap<>();
+    private Map<String, String> businesses = new LinkedHashMap<>();
+    private String defaultPlan = "default";
+    // токенов оценки, которые бизнес с весом 1 получает за один круг
+    private int quantum = 1000;
+    private int maxQueuePerBusiness = 32;
+    private Adaptive adaptive = new Adaptive();
+
+    @Data
+    public static class Adaptive {
+        private int initialLimit = 16;
+        private int minLimit = 2;
+        // ответ (или первый токен потока) дольше порога считается признаком перегрузки провайдера
+        private Duration latencyThreshold = Duration.ofSeconds(15);
+        private double backoffRatio = 0.9;
+    }
+
+    // Тариф бизнеса: набор значений ограничен конфигурацией, поэтому годится и как тег метрик
+    public String plan(String businessId) {
+        return businessId == null ? defaultPlan : businesses.getOrDefault(businessId, defaultPlan);
+    }
+
+    public int weight(String businessId) {
+        Integer weight = plans.get(plan(businessId));
+        return weight == null || weight < 1 ? 1 : weight;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.ai_service.services.ratelimit;
+
+import com.example.ai_service.entity.dto.OpenAIChatRequest;
+import com.example.ai_service.services.llm.TokenCounter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Допуск запросов к LLM: сначала ведро токенов бизнеса, затем планировщик с очередью на бизнес
+ * и адаптивным лимитом одновременных вызовов. При допуске резервируется оценка
+ * (prompt + ожидаемый ответ), после ответа ведро досписывается по usage из ответа провайдера.
+ */
+@Component
+public class LlmAdmission {
+
+    private final TokenCounter tokenCounter;
+    private final FairSchedulerProperties schedulerProperties;
+    private final FairScheduler scheduler;
+    private final Cache<String, TokenBucket> buckets;
+    private final long tokensPerMinute;
+    private final long burstTokens;
+    private final int completionEstimate;
+    private final Counter rejectedBudget;
+
+    public LlmAdmission(
+            TokenCounter tokenCounter,
+            FairSchedulerProperties schedulerProperties,
+            MeterRegistry meterRegistry,
+            @Value("${app.rate-limit.tokens-per-minute:20000}") long tokensPerMinute,
+            @Value("${app.rate-limit.burst-tokens:40000}") long burstTokens,
+            @Value("${app.rate-limit.completion-estimate:500}") int completionEstimate,
+            @Value("${app.rate-limit.max-concurrent:64}") int maxConcurrent,
+            @Value("${app.rate-limit.max-queue:256}") int maxQueue,
+            @Value("${app.rate-limit.queue-timeout:10s}") Duration queueTimeout) {
+        this.tokenCounter = tokenCounter;
+        this.tokensPerMinute = tokensPerMinute;
+        this.burstTokens = burstTokens;
+        this.completionEstimate = completionEstimate;
+        this.schedulerProperties = schedulerProperties;
+        FairSchedulerProperties.Adaptive adaptive = schedulerProperties.getAdaptive();
+        this.scheduler = new FairScheduler(maxConcurrent, adaptive.getInitialLimit(), adaptive.getMinLimit(),
+                adaptive.getLatencyThreshold(), adaptive.getBackoffRatio(), schedulerProperties.getQuantum(),
+                maxQueue, schedulerProperties.getMaxQueuePerBusiness(), queueTimeout);
+        // ведро простаивающего бизнеса всё равно было бы полным — его можно забыть
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+
+        this.rejectedBudget = Counter.builder("llm.admission.rejected")
+                .tag("reason", "budget")
+                .description("Запросы, отклонённые по лимиту токенов бизнеса")
+                .register(meterRegistry);
+        Gauge.builder("llm.admission.inflight", scheduler, FairScheduler::inFlight)
+                .register(meterRegistry);
+        Gauge.builder("llm.admission.queued", scheduler, FairScheduler::queued)
+                .register(meterRegistry);
+        Gauge.builder("llm.admission.limit", scheduler, FairScheduler::limit)
+                .description("Текущий адаптивный лимит одновременных вызовов LLM")
+                .register(meterRegistry);
+    }
+
+    public long estimate(OpenAIChatRequest request) {
+        long tokens = completionEstimate;
+        for (OpenAIChatRequest.Message message : request.getMessages()) {
+            tokens += tokenCounter.countMessage(message.getContent());
+        }
+        return tokens;
+    }
+
+    // usedTokens: 0 — провайдер не прислал usage, в ведре остаётся оценка
+    public <T> Mono<T> admit(String businessId, long estimate, Mono<T> call, ToLongFunction<T> usedTokens) {
+        return Mono.defer(() -> {
+            TokenBucket bucket = reserve(businessId, estimate);
+            return Mono.usingWhen(
+                    scheduler.acquire(businessId, schedulerProperties.weight(businessId), estimate),
+                    permit -> call.doOnNext(result -> {
+                        permit.success();
+                        long used = usedTokens.applyAsLong(result);
+                        if (used > 0) bucket.adjust(used - estimate);
+                    }).doOnError(e -> permit.dropped()),
+                    permit -> Mono.fromRunnable(permit::release),
+                    (permit, e) -> Mono.fromRunnable(permit::release),
+                    permit -> Mono.fromRunnable(permit::release))
+                    // провайдер ничего не списал — возвращаем резерв
+                    .doOnError(e -> bucket.adjust(-estimate));
+        });
+    }
+
+    // usedTokens читается по завершении потока (его заполняет вызывающий по кадру с usage)
+    public <T> Flux<T> admitStream(String businessId, long estimate, Flux<T> call, AtomicLong usedTokens) {
+        return Flux.defer(() -> {
+            TokenBucket bucket = reserve(businessId, estimate);
+            return Flux.usingWhen(
+                    scheduler.acquire(businessId, schedulerProperties.weight(businessId), estimate),
+                    // для лимита важна задержка до первого кадра, а не длина ответа
+                    permit -> call.doOnNext(item -> permit.success()).doOnComplete(() -> {
+                        long used = usedTokens.get();
+                        if (used > 0) bucket.adjust(used - estimate);
+                    }).doOnError(e -> permit.dropped()),
+                    permit -> Mono.fromRunnable(permit::release),
+                    (permit, e) -> Mono.fromRunnable(permit::release),
+                    permit -> Mono.fromRunnable(permit::release))
+                    .doOnError(e -> bucket.adjust(-estimate));
+        });
+    }
+
+    private TokenBucket reserve(String businessId, long estimate) {
+        String key = businessId == null ? "" : businessId;
+        TokenBucket bucket = buckets.get(key, k -> new TokenBucket(tokensPerMinute, burstTokens));
+        long waitNanos = bucket.tryAcquire(estimate);
+        if (waitNanos > 0) {
+            rejectedBudget.increment();
+            throw new RateLimitedException(Duration.ofNanos(waitNanos), "Превышен лимит запросов к ассистенту");
+        }
+        return bucket;
+    }
+}
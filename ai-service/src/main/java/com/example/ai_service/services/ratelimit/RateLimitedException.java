@@ -0,0 +1,26 @@
+package com.example.ai_service.services.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Запрос не допущен к LLM: исчерпан лимит бизнеса, переполнена очередь
+ * или провайдер ответил 429. ChatController отвечает 429 с Retry-After.
+ */
+public class RateLimitedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitedException(Duration retryAfter, String message) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    // для Retry-After и SSE-события rate_limited: целые секунды, не меньше одной
+    public long retryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ai_service.services.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free ведро токенов в форме GCRA: вместо остатка хранится момент, когда ведро
+ * снова станет полным (theoretical arrival time). Списание — один CAS по AtomicLong.
+ * Ведро может уйти в минус: фактический расход LLM известен только после ответа.
+ */
+public class TokenBucket {
+
+    private final double nanosPerToken;
+    private final long burstNanos;
+    // момент (System.nanoTime), к которому ведро пополнится полностью
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long tokensPerMinute, long burstTokens) {
+        this.nanosPerToken = 60_000_000_000.0 / tokensPerMinute;
+        this.burstNanos = (long) (burstTokens * nanosPerToken);
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Резервирует tokens, если в ведре что-то осталось; иначе возвращает,
+     * через сколько наносекунд можно повторить (0 — резерв сделан).
+     */
+    public long tryAcquire(long tokens) {
+        long cost = (long) (tokens * nanosPerToken);
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long base = Math.max(current, now);
+            long debt = base - now;
+            if (debt >= burstNanos) {
+                return debt - burstNanos + 1;
+            }
+            if (fullAt.compareAndSet(current, base + cost)) {
+                return 0;
+            }
+        }
+    }
+
+    // Досписание (или возврат при delta < 0) после того, как стал известен реальный расход
+    public void adjust(long deltaTokens) {
+        if (deltaTokens == 0) return;
+        long delta = (long) (deltaTokens * nanosPerToken);
+        fullAt.updateAndGet(current -> Math.max(current, System.nanoTime() - 1) + delta);
+    }
+
+    public long availableTokens() {
+        long debt = Math.max(0, fullAt.get() - System.nanoTime());
+        return (long) ((burstNanos - debt) / nanosPerToken);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.ai_service.services.resilience;
+
+import com.example.ai_service.services.llm.LlmApiException;
+import com.example.ai_service.services.llm.cassette.CassetteMissException;
+import com.example.ai_service.services.ratelimit.RateLimitedException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.function.Predicate;
+
+/**
+ * Какие ошибки считаются отказом upstream для circuit breaker (record-failure-predicate
+ * в resilience4j.circuitbreaker.configs.*). Ошибка в самом запросе (400, 401, 404, 422)
+ * и наш собственный 429 не говорят о том, что провайдер или auth-service лежит.
+ * Промах кассеты LLM — тоже: провайдера в replay нет вовсе.
+ */
+public class UpstreamFailurePredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable e) {
+        if (e instanceof LlmApiException api) return api.isProviderFailure();
+        if (e instanceof CassetteMissException) return false;
+        if (e instanceof WebClientResponseException response) return response.getStatusCode().is5xxServerError();
+        return !(e instanceof RateLimitedException);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.ai_service.services.tools;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.IntConsumer;
+
+/**
+ * Автомат Ахо — Корасик над символами: все шаблоны ищутся за один проход по тексту,
+ * время не зависит от их числа. Шаблоны задаются номерами, совпадения отдаются через IntConsumer.
+ */
+final class AhoCorasick {
+
+    private static final int ROOT = 0;
+    private static final int[] NO_OUTPUT = new int[0];
+
+    // Переходы узла — отсортированные символы и номера узлов, поиск бинарный
+    private final char[][] keys;
+    private final int[][] next;
+    private final int[] fail;
+    // Номера шаблонов, заканчивающихся в узле, вместе с унаследованными по fail-ссылкам
+    private final int[][] output;
+
+    AhoCorasick(List<String> patterns) {
+        List<char[]> keyList = new ArrayList<>();
+        List<int[]> nextList = new ArrayList<>();
+        List<int[]> outputList = new ArrayList<>();
+        keyList.add(new char[0]);
+        nextList.add(new int[0]);
+        outputList.add(NO_OUTPUT);
+
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            if (pattern.isEmpty()) continue;
+            int node = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                int child = find(keyList.get(node), nextList.get(node), c);
+                if (child < 0) {
+                    child = keyList.size();
+                    keyList.add(new char[0]);
+                    nextList.add(new int[0]);
+                    outputList.add(NO_OUTPUT);
+                    insert(keyList, nextList, node, c, child);
+                }
+                node = child;
+            }
+            outputList.set(node, append(outputList.get(node), id));
+        }
+
+        this.keys = keyList.toArray(new char[0][]);
+        this.next = nextList.toArray(new int[0][]);
+        this.output = outputList.toArray(new int[0][]);
+        this.fail = new int[keys.length];
+        buildFailLinks();
+    }
+
+    void search(CharSequence text, IntConsumer onMatch) {
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int child;
+            while ((child = find(keys[node], next[node], c)) < 0 && node != ROOT) {
+                node = fail[node];
+            }
+            node = Math.max(child, ROOT);
+            for (int id : output[node]) {
+                onMatch.accept(id);
+            }
+        }
+    }
+
+    // Обход в ширину: fail-ссылка ребёнка — самый длинный собственный суффикс, который есть в боре
+    private void buildFailLinks() {
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : next[ROOT]) {
+            fail[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int k = 0; k < keys[node].length; k++) {
+                char c = keys[node][k];
+                int child = next[node][k];
+                int f = fail[node];
+                int target;
+                while ((target = find(keys[f], next[f], c)) < 0 && f != ROOT) {
+                    f = fail[f];
+                }
+                fail[child] = target >= 0 && target != child ? target : ROOT;
+                output[child] = merge(output[child], output[fail[child]]);
+                queue.add(child);
+            }
+        }
+    }
+
+    private static int find(char[] keys, int[] next, char c) {
+        int index = Arrays.binarySearch(keys, c);
+        return index >= 0 ? next[index] : -1;
+    }
+
+    private static void insert(List<char[]> keyList, List<int[]> nextList, int node, char c, int child) {
+        char[] oldKeys = keyList.get(node);
+        int[] oldNext = nextList.get(node);
+        int position = -Arrays.binarySearch(oldKeys, c) - 1;
+
+        char[] newKeys = new char[oldKeys.length + 1];
+        int[] newNext = new int[oldNext.length + 1];
+        System.arraycopy(oldKeys, 0, newKeys, 0, position);
+        System.arraycopy(oldNext, 0, newNext, 0, position);
+        newKeys[position] = c;
+        newNext[position] = child;
+        System.arraycopy(oldKeys, position, newKeys, position + 1, oldKeys.length - position);
+        System.arraycopy(oldNext, position, newNext, position + 1, oldNext.length - position);
+        keyList.set(node, newKeys);
+        nextList.set(node, newNext);
+    }
+
+    private static int[] append(int[] values, int value) {
+        int[] result = Arrays.copyOf(values, values.length + 1);
+        result[values.length] = value;
+        return result;
+    }
+
+    private static int[] merge(int[] own, int[] inherited) {
+        if (inherited.length == 0) return own;
+        if (own.length == 0) return inherited;
+        int[] result = Arrays.copyOf(own, own.length + inherited.length);
+        System.arraycopy(inherited, 0, result, own.length, inherited.length);
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.ai_service.services.tools;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Приводит текст к виду "основа основа основа" для поиска триггеров: нижний регистр, ё → е,
+ * синонимы email, без слов-паразитов и с отрезанными окончаниями русских слов, чтобы
+ * "отправь", "отправьте" и "отправить" совпадали. Результат обрамлён пробелами — это границы слов.
+ */
+final class IntentNormalizer {
+
+    private static final int MIN_STEM = 3;
+
+    // Длинные окончания раньше коротких: отрезается самое длинное подходящее
+    private static final String[] ENDINGS = {
+            "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "ите", "ьте", "ить", "ать", "ять", "еть",
+            "ешь", "ете", "ишь", "ут", "ют", "ет", "ит", "ем", "им", "ом", "ой", "ей", "ий", "ый", "ая",
+            "яя", "ое", "ее", "ам", "ям", "ах", "ях", "ов", "ев", "ь", "и", "ы", "у", "ю", "а", "я", "о", "е", "й"
+    };
+
+    private static final Set<String> FILLERS = Set.of(
+            "пожалуйста", "плиз", "ка", "срочно", "быстро", "мне", "ему", "ей", "им", "нам", "всем");
+
+    private static final Map<String, String> ALIASES = Map.of(
+            "e-mail", "email",
+            "имейл", "email",
+            "емейл", "email",
+            "мейл", "email",
+            "имэйл", "email",
+            "мэйл", "email"
+    );
+
+    private IntentNormalizer() {
+    }
+
+    static String normalize(String text) {
+        StringBuilder out = new StringBuilder(text.length() + 2).append(' ');
+        StringBuilder word = new StringBuilder(32);
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? Character.toLowerCase(text.charAt(i)) : ' ';
+            if (c == 'ё') c = 'е';
+            // дефис внутри слова сохраняем ради "e-mail"; "напиши-ка" разберётся как слово-паразит
+            if (Character.isLetterOrDigit(c) || (c == '-' && !word.isEmpty())) {
+                word.append(c);
+            } else if (!word.isEmpty()) {
+                appendWord(out, word);
+                word.setLength(0);
+            }
+        }
+        return out.toString();
+    }
+
+    private static void appendWord(StringBuilder out, StringBuilder word) {
+        String token = word.toString();
+        String alias = ALIASES.get(token);
+        if (alias != null) {
+            out.append(alias).append(' ');
+            return;
+        }
+        int dash = token.indexOf('-');
+        if (dash >= 0) {
+            for (String part : token.split("-")) {
+                if (!part.isEmpty()) appendToken(out, part);
+            }
+            return;
+        }
+        appendToken(out, token);
+    }
+
+    private static void appendToken(StringBuilder out, String token) {
+        if (FILLERS.contains(token)) return;
+        out.append(stem(token)).append(' ');
+    }
+
+    static String stem(String token) {
+        if (!isCyrillic(token)) return token;
+        for (String ending : ENDINGS) {
+            if (token.length() - ending.length() >= MIN_STEM && token.endsWith(ending)) {
+                return token.substring(0, token.length() - ending.length());
+            }
+        }
+        return token;
+    }
+
+    private static boolean isCyrillic(String token) {
+        return Character.UnicodeBlock.of(token.charAt(0)) == Character.UnicodeBlock.CYRILLIC;
+    }
+}
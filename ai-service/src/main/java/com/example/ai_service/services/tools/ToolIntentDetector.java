@@ -0,0 +1,61 @@
+package com.example.ai_service.services.tools;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Решает, какие функции показать модели для сообщения. Все фразы-триггеры нормализуются
+ * (IntentNormalizer) и собираются в один автомат Ахо — Корасик, так что сообщение
+ * просматривается один раз, сколько бы фраз ни было в словаре.
+ */
+@Component
+public class ToolIntentDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolIntentDetector.class);
+
+    private final AhoCorasick automaton;
+    // номер шаблона -> функция
+    private final String[] patternTools;
+
+    public ToolIntentDetector(ToolTriggerProperties properties, ToolRegistry toolRegistry) {
+        List<String> patterns = new ArrayList<>();
+        List<String> tools = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (Map.Entry<String, List<String>> entry : properties.getTriggers().entrySet()) {
+            String tool = entry.getKey();
+            if (!toolRegistry.names().contains(tool)) {
+                logger.warn("Триггеры заданы для неизвестной функции {}, пропускаю", tool);
+                continue;
+            }
+            for (String phrase : entry.getValue()) {
+                String pattern = IntentNormalizer.normalize(phrase);
+                // " " — фраза из одних слов-паразитов
+                if (pattern.isBlank() || !seen.add(tool + pattern)) continue;
+                patterns.add(pattern);
+                tools.add(tool);
+            }
+        }
+
+        this.automaton = new AhoCorasick(patterns);
+        this.patternTools = tools.toArray(new String[0]);
+        logger.info("Intent detector compiled: {} trigger patterns", patterns.size());
+    }
+
+    // Пустое множество — функции для этого сообщения не нужны
+    public Set<String> detect(String message) {
+        if (message == null || message.isBlank() || patternTools.length == 0) return Set.of();
+
+        Set<String> tools = new LinkedHashSet<>(2);
+        automaton.search(IntentNormalizer.normalize(message), id -> tools.add(patternTools[id]));
+        return tools.isEmpty() ? Set.of() : tools;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.ai_service.services.tools;
+
+import com.example.ai_service.entity.dto.OpenAIChatRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Component;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Описания функций для модели строятся один раз при старте. tools(...) отдаёт неизменяемый
+ * ToolSet, в котором уже лежит готовый JSON массива tools — его ChatRequestEncoder вставляет в тело как есть.
+ */
+@Component
+public class ToolRegistry {
+
+    public static final String SEND_EMAIL = "send_email";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, OpenAIChatRequest.Tool> definitions = new LinkedHashMap<>();
+    private final Map<Set<String>, ToolSet> toolSets = new ConcurrentHashMap<>();
+
+    public ToolRegistry() {
+        register(sendEmail());
+    }
+
+    /** Неизменяемый список описаний вместе с заранее сериализованным JSON-массивом. */
+    public static final class ToolSet extends AbstractList<OpenAIChatRequest.Tool> {
+        private final List<OpenAIChatRequest.Tool> tools;
+        private final byte[] json;
+
+        private ToolSet(List<OpenAIChatRequest.Tool> tools, byte[] json) {
+            this.tools = tools;
+            this.json = json;
+        }
+
+        @Override
+        public OpenAIChatRequest.Tool get(int index) {
+            return tools.get(index);
+        }
+
+        @Override
+        public int size() {
+            return tools.size();
+        }
+
+        // Не копируется: массив общий для всех запросов
+        public byte[] json() {
+            return json;
+        }
+    }
+
+    public Set<String> names() {
+        return definitions.keySet();
+    }
+
+    // null — если ни одна из функций не известна; порядок — порядок регистрации
+    public ToolSet tools(Collection<String> names) {
+        if (names == null || names.isEmpty()) return null;
+        return toolSets.computeIfAbsent(Set.copyOf(names), this::compile);
+    }
+
+    private ToolSet compile(Set<String> names) {
+        List<OpenAIChatRequest.Tool> tools = new ArrayList<>();
+        definitions.forEach((name, tool) -> {
+            if (names.contains(name)) tools.add(tool);
+        });
+        if (tools.isEmpty()) return null;
+        try {
+            return new ToolSet(List.copyOf(tools), objectMapper.writeValueAsBytes(tools));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать описание функций " + names, e);
+        }
+    }
+
+    private void register(OpenAIChatRequest.Tool tool) {
+        definitions.put(tool.getFunction().getName(), tool);
+    }
+
+    // Описание функции send_email
+    private OpenAIChatRequest.Tool sendEmail() {
+        ObjectNode parameters = objectMapper.createObjectNode();
+        parameters.put("type", "object");
+        ObjectNode props = parameters.putObject("properties");
+        props.set("to", jsonProp("string", "Email получателя"));
+        props.set("subject", jsonProp("string", "Тема письма"));
+        props.set("body", jsonProp("string", "Текст письма"));
+        props.set("isHtml", jsonProp("boolean", "true — если HTML"));
+        parameters.putArray("required").add("to").add("subject").add("body");
+
+        OpenAIChatRequest.Function function = new OpenAIChatRequest.Function(
+                SEND_EMAIL,
+                "Отправляет настоящее письмо на email. " +
+                        "Вызывай только если пользователь явно просит написать и отправить письмо.",
+                parameters
+        );
+        return new OpenAIChatRequest.Tool("function", function);
+    }
+
+    private JsonNode jsonProp(String type, String description) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("type", type);
+        node.put("description", description);
+        return node;
+    }
+}
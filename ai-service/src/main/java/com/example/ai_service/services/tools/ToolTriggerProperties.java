@@ -0,0 +1,21 @@
+package com.example.ai_service.services.tools;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Фразы-триггеры для функций модели: app.tools.triggers.&lt;имя функции&gt; — список фраз.
+ * Фразы пишутся в любой форме, окончания и регистр при сравнении не учитываются.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.tools")
+public class ToolTriggerProperties {
+
+    private Map<String, List<String>> triggers = new LinkedHashMap<>();
+}
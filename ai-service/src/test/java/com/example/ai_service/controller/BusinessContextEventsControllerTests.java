@@ -0,0 +1,52 @@
+package com.example.ai_service.controller;
+
+import com.example.ai_service.entity.dto.Request_BusinessContextEventsDTO;
+import com.example.ai_service.services.context.BusinessContextRenderer;
+import com.example.ai_service.services.context.BusinessContextService;
+import com.example.ai_service.services.llm.TokenCounter;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BusinessContextEventsControllerTests {
+
+    // applyChange к auth-service не ходит, WebClient не используется
+    private final BusinessContextService service = new BusinessContextService(WebClient.create("http://127.0.0.1:1"),
+            new BusinessContextRenderer(new TokenCounter("o200k_base"), 1500), new SimpleMeterRegistry(),
+            CircuitBreakerRegistry.ofDefaults(), 1000, Duration.ofMinutes(30), Duration.ofMinutes(1), Duration.ofHours(24));
+    private final BusinessContextEventsController controller = new BusinessContextEventsController(service);
+
+    private final Request_BusinessContextEventsDTO request = new Request_BusinessContextEventsDTO(List.of(
+            new Request_BusinessContextEventsDTO.Event("b-1", 5, "BUSINESS_UPDATED")));
+
+    @Test
+    void onlyAuthServiceTokenIsAccepted() {
+        assertThat(controller.events(request, jwt("userId", "u-1")).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(controller.events(request, jwt("service", "billing")).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        // отклонённые события не применились: версия 5 всё ещё новая
+        assertThat(service.applyChange("b-1", 4)).isTrue();
+
+        assertThat(controller.events(request, jwt("service", "auth-service")).getStatusCode())
+                .isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(service.applyChange("b-1", 5)).isFalse();
+    }
+
+    private static Jwt jwt(String claim, String value) {
+        Instant now = Instant.now();
+        return Jwt.withTokenValue("token")
+                .header("alg", "HS256")
+                .claim(claim, value)
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(300))
+                .build();
+    }
+}
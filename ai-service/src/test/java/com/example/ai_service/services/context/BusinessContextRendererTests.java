@@ -0,0 +1,52 @@
+package com.example.ai_service.services.context;
+
+import com.example.ai_service.entity.dto.BusinessContextDTO;
+import com.example.ai_service.entity.dto.EmployeeDTO;
+import com.example.ai_service.services.llm.TokenCounter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BusinessContextRendererTests {
+
+    private final TokenCounter tokenCounter = new TokenCounter("o200k_base");
+    private final BusinessContextRenderer renderer = new BusinessContextRenderer(tokenCounter, 1500);
+
+    @Test
+    void smallBusinessIsRenderedInFull() {
+        BusinessContextDTO ctx = business(List.of(
+                new EmployeeDTO("Иван Петров", "ivan@example.com", "Повар"),
+                new EmployeeDTO("Мария Соколова", "maria@example.com", "Бухгалтер")));
+
+        BusinessContextRenderer.Prepared prepared = renderer.prepare(ctx);
+
+        assertThat(renderer.render(prepared, "Привет")).isSameAs(prepared.full())
+                .contains(" - Иван Петров (Повар, ivan@example.com)\n")
+                .contains(" - Мария Соколова (Бухгалтер, maria@example.com)\n")
+                .doesNotContain("Остальные сотрудники");
+    }
+
+    @Test
+    void largeBusinessStaysWithinBudgetAndKeepsMentionedEmployees() {
+        List<EmployeeDTO> employees = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            employees.add(new EmployeeDTO("Сотрудник " + i, "courier" + i + "@example.com", "Курьер"));
+        }
+        employees.add(new EmployeeDTO("Ольга Смирнова", "olga@example.com", "Бухгалтер"));
+        BusinessContextRenderer.Prepared prepared = renderer.prepare(business(employees));
+
+        String rendered = renderer.render(prepared, "Напиши Ольге про отчёт для бухгалтерии");
+
+        assertThat(tokenCounter.count(rendered)).isLessThanOrEqualTo(1500);
+        assertThat(rendered).contains(" - Ольга Смирнова (Бухгалтер, olga@example.com)\n");
+        assertThat(rendered).containsPattern(" - Остальные сотрудники \\(\\d+\\) по должностям: Курьер — \\d+\n");
+        assertThat(rendered.indexOf("Ольга Смирнова")).isLessThan(rendered.indexOf("Сотрудник 0"));
+    }
+
+    private static BusinessContextDTO business(List<EmployeeDTO> employees) {
+        return new BusinessContextDTO("b-1", "Ромашка", "Доставка", "Анна", "100000", employees);
+    }
+}
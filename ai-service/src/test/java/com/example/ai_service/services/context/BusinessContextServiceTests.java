@@ -0,0 +1,174 @@
+package com.example.ai_service.services.context;
+
+import com.example.ai_service.services.llm.TokenCounter;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BusinessContextServiceTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final AtomicInteger upstreamRequests = new AtomicInteger();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicInteger delayMillis = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BusinessContextRenderer renderer = new BusinessContextRenderer(new TokenCounter("o200k_base"), 1500);
+    private HttpServer stub;
+
+    @AfterEach
+    void stopStub() {
+        if (stub != null) stub.stop(0);
+    }
+
+    @Test
+    void concurrentMissLoadsContextOnce() throws IOException {
+        delayMillis.set(300);
+        BusinessContextService service = service(Duration.ofMinutes(30), Duration.ofMinutes(1));
+
+        List<String> names = Flux.range(0, 20)
+                .flatMap(i -> service.get("b-1", "token", null, TIMEOUT).subscribeOn(Schedulers.parallel()))
+                .map(cached -> cached.context().businessName())
+                .collectList()
+                .block(TIMEOUT);
+
+        assertThat(names).hasSize(20).containsOnly("Ромашка 1");
+        assertThat(upstreamRequests).hasValue(1);
+    }
+
+    @Test
+    void staleEntryIsServedAtOnceAndRefreshedInBackground() throws Exception {
+        BusinessContextService service = service(Duration.ofMinutes(30), Duration.ofMillis(200));
+
+        assertThat(name(service)).isEqualTo("Ромашка 1");
+        assertThat(name(service)).isEqualTo("Ромашка 1");
+        assertThat(upstreamRequests).hasValue(1);
+
+        Thread.sleep(250);
+        // устаревшая запись отдаётся без ожидания, перезагрузка идёт в фоне
+        assertThat(name(service)).isEqualTo("Ромашка 1");
+        await(() -> "Ромашка 2".equals(name(service)));
+        assertThat(upstreamRequests).hasValue(2);
+        assertThat(meterRegistry.counter("business.context.refresh").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void lastKnownContextIsUsedWhenAuthServiceFails() throws Exception {
+        BusinessContextService service = service(Duration.ofMillis(100), Duration.ofMinutes(1));
+
+        BusinessContextService.Rendered fresh = rendered(service, "b-1");
+        assertThat(fresh.degraded()).isFalse();
+        assertThat(fresh.text()).contains("Ромашка 1");
+
+        Thread.sleep(150);
+        status.set(503);
+        BusinessContextService.Rendered fallback = rendered(service, "b-1");
+        assertThat(fallback.degraded()).isTrue();
+        assertThat(fallback.text()).isEqualTo(fresh.text());
+        assertThat(meterRegistry.counter("business.context.fallback").count()).isEqualTo(1.0);
+
+        // подменять нечем: контекста этого бизнеса ещё не было
+        assertThat(rendered(service, "b-2")).isEqualTo(new BusinessContextService.Rendered("", true));
+
+        // 4xx — ошибка самого запроса, а не отказ auth-service
+        status.set(403);
+        assertThat(rendered(service, "b-1")).isEqualTo(BusinessContextService.Rendered.EMPTY);
+    }
+
+    @Test
+    void duplicateAndOutOfOrderChangesAreIgnored() throws IOException {
+        BusinessContextService service = service(Duration.ofMinutes(30), Duration.ofMinutes(1));
+        assertThat(name(service)).isEqualTo("Ромашка 1");
+
+        assertThat(service.applyChange("b-1", 2)).isTrue();
+        assertThat(name(service)).isEqualTo("Ромашка 2");
+
+        // повторная доставка и запоздавшая старая версия кэш не сбрасывают
+        assertThat(service.applyChange("b-1", 2)).isFalse();
+        assertThat(service.applyChange("b-1", 1)).isFalse();
+        assertThat(name(service)).isEqualTo("Ромашка 2");
+        assertThat(upstreamRequests).hasValue(2);
+
+        assertThat(service.applyChange("b-1", 3)).isTrue();
+        assertThat(name(service)).isEqualTo("Ромашка 3");
+        assertThat(meterRegistry.counter("business.context.invalidations").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void refreshStartedBeforeChangeIsDropped() throws Exception {
+        BusinessContextService service = service(Duration.ofMinutes(30), Duration.ofMillis(200));
+        assertThat(name(service)).isEqualTo("Ромашка 1");
+
+        Thread.sleep(250);
+        delayMillis.set(300);
+        assertThat(name(service)).isEqualTo("Ромашка 1");
+        await(() -> upstreamRequests.get() == 2);
+        // событие пришло, пока фоновая перезагрузка ждёт ответа: её результат мог быть прочитан до изменения
+        assertThat(service.applyChange("b-1", 1)).isTrue();
+        Thread.sleep(500);
+
+        delayMillis.set(0);
+        assertThat(name(service)).isEqualTo("Ромашка 3");
+        assertThat(upstreamRequests).hasValue(3);
+    }
+
+    private String name(BusinessContextService service) {
+        return service.get("b-1", "token", null, TIMEOUT).block(TIMEOUT).context().businessName();
+    }
+
+    private static BusinessContextService.Rendered rendered(BusinessContextService service, String businessId) {
+        return service.renderedContext(businessId, "token", "Привет", null, TIMEOUT).block(TIMEOUT);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private BusinessContextService service(Duration ttl, Duration refreshAfter) throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(Executors.newCachedThreadPool());
+        stub.createContext("/api/business/", exchange -> {
+            int n = upstreamRequests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String id = exchange.getRequestURI().getPath().substring("/api/business/".length());
+            byte[] bytes = """
+                    {"businessId":"%s","businessName":"Ромашка %d","area":"Доставка","ownerName":"Анна",\
+                    "profit":"100000","employees":[]}""".formatted(id, n).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status.get(), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        stub.start();
+
+        WebClient authWebClient = WebClient.create("http://127.0.0.1:" + stub.getAddress().getPort());
+        return new BusinessContextService(authWebClient, renderer, meterRegistry, CircuitBreakerRegistry.ofDefaults(),
+                1000, ttl, refreshAfter, Duration.ofHours(24));
+    }
+}
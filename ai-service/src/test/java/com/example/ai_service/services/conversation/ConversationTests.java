@@ -0,0 +1,121 @@
+package com.example.ai_service.services.conversation;
+
+import com.example.ai_service.entity.dto.OpenAIChatRequest;
+import com.example.ai_service.services.llm.TokenCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ConversationTests {
+
+    private static final String SUMMARY_PREFIX = "Краткое содержание предыдущей части разговора:";
+
+    private final TokenCounter tokenCounter = new TokenCounter("o200k_base");
+    private final ConversationStore.Key key = new ConversationStore.Key("user-1", "conv-1");
+
+    @Test
+    void windowKeepsNewestTurnsWithinBudgetAndFoldsTheRest() {
+        // короткая сводка почти ничего не стоит, поэтому в бюджет 2 хода + 60 входят ровно два последних
+        Conversation conversation = new Conversation(key, tokenCounter, 40, 8000, 100);
+        String filler = "хочу записаться на стрижку в субботу ".repeat(15);
+        for (int i = 1; i <= 6; i++) {
+            conversation.append(i % 2 == 1 ? "user" : "assistant", "ход номер " + i + ": " + filler);
+        }
+
+        assertThat(conversation.window(10_000)).hasSize(6)
+                .noneMatch(message -> "system".equals(message.getRole()));
+
+        int budget = 2 * tokenCounter.countMessage("ход номер 6: " + filler) + 60;
+        List<OpenAIChatRequest.Message> window = conversation.window(budget);
+
+        assertThat(window).hasSize(3);
+        assertThat(window.get(0).getRole()).isEqualTo("system");
+        assertThat(window.get(0).getContent()).startsWith(SUMMARY_PREFIX).endsWith("…");
+        assertThat(window.subList(1, 3)).extracting(OpenAIChatRequest.Message::getContent)
+                .containsExactly("ход номер 5: " + filler, "ход номер 6: " + filler);
+        assertThat(tokens(window)).isLessThanOrEqualTo(budget);
+
+        // свёрнутые ходы в окно больше не возвращаются даже при большом бюджете
+        assertThat(conversation.window(10_000)).hasSize(3);
+    }
+
+    @Test
+    void foldedTurnsAreSummarizedOneLineEach() {
+        Conversation conversation = new Conversation(key, tokenCounter, 40, 8000, 2000);
+        conversation.append("user", "Есть окно\nв субботу?");
+        conversation.append("assistant", "Да, " + "в 12:00 ".repeat(200));
+        conversation.append("user", "Запишите меня");
+
+        List<OpenAIChatRequest.Message> window = conversation.window(tokenCounter.countMessage("Запишите меня") + 300);
+        assertThat(window).extracting(OpenAIChatRequest.Message::getContent).last().isEqualTo("Запишите меня");
+        assertThat(window.get(0).getContent())
+                .startsWith(SUMMARY_PREFIX + "\n- Пользователь: Есть окно в субботу?\n- Ассистент: Да, в 12:00")
+                .endsWith("…");
+    }
+
+    @Test
+    void turnsBeyondMaxTurnsAreFoldedAndLongTurnsTruncated() {
+        Conversation conversation = new Conversation(key, tokenCounter, 4, 50, 2000);
+        for (int i = 1; i <= 6; i++) {
+            conversation.append("user", "сообщение " + i);
+        }
+        conversation.append("assistant", "x".repeat(500));
+        conversation.append("user", "  ");
+
+        List<OpenAIChatRequest.Message> window = conversation.window(10_000);
+        assertThat(window).hasSize(5);
+        assertThat(window.get(0).getContent())
+                .contains("Пользователь: сообщение 1", "Пользователь: сообщение 3")
+                .doesNotContain("сообщение 4");
+        assertThat(window.subList(1, 4)).extracting(OpenAIChatRequest.Message::getContent)
+                .containsExactly("сообщение 4", "сообщение 5", "сообщение 6");
+        assertThat(window.get(4).getContent()).hasSize(50);
+    }
+
+    @Test
+    void summaryDropsOldestLinesWhenFull() {
+        Conversation conversation = new Conversation(key, tokenCounter, 1, 8000, 120);
+        for (int i = 1; i <= 20; i++) {
+            conversation.append("user", "вопрос " + i);
+        }
+
+        String summary = conversation.window(10_000).get(0).getContent();
+        assertThat(summary.length()).isLessThanOrEqualTo(SUMMARY_PREFIX.length() + 120);
+        assertThat(summary).contains("вопрос 19").doesNotContain("вопрос 1\n").doesNotEndWith("вопрос 1");
+        assertThat(summary.substring(SUMMARY_PREFIX.length())).startsWith("\n- Пользователь: ");
+    }
+
+    @Test
+    void storeKeepsOneConversationPerUserAndId() {
+        ConversationStore store = new ConversationStore(tokenCounter, new SimpleMeterRegistry(),
+                2000, 40, 8000, 2000, Duration.ofHours(2), DataSize.ofMegabytes(1));
+
+        assertThat(store.get("user-1", null)).isNull();
+        assertThat(store.get("user-1", " ")).isNull();
+
+        Conversation conversation = store.get("user-1", "conv-1");
+        assertThat(store.get("user-1", "conv-1")).isSameAs(conversation);
+        assertThat(store.get("user-2", "conv-1")).isNotSameAs(conversation);
+
+        store.appendExchange(conversation, "Есть окно в субботу?", "Да, в 12:00.");
+        assertThat(store.get("user-1", "conv-1").window(store.historyTokenBudget()))
+                .extracting(OpenAIChatRequest.Message::getRole, OpenAIChatRequest.Message::getContent)
+                .containsExactly(
+                        tuple("user", "Есть окно в субботу?"),
+                        tuple("assistant", "Да, в 12:00."));
+    }
+
+    private int tokens(List<OpenAIChatRequest.Message> messages) {
+        return messages.stream()
+                .mapToInt(message -> "system".equals(message.getRole())
+                        ? tokenCounter.count(message.getContent().substring(SUMMARY_PREFIX.length()))
+                        : tokenCounter.countMessage(message.getContent()))
+                .sum();
+    }
+}
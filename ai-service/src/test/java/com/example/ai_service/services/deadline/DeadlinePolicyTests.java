@@ -0,0 +1,37 @@
+package com.example.ai_service.services.deadline;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeadlinePolicyTests {
+
+    private final DeadlinePolicy policy = new DeadlinePolicy(Duration.ofSeconds(60), Duration.ofSeconds(115),
+            Duration.ofSeconds(3), Duration.ofSeconds(1), 100, 64, 2048);
+
+    @Test
+    void clientHeaderIsCappedAndFallsBackToDefault() {
+        assertThat(policy.fromHeader("5000").remaining()).isLessThanOrEqualTo(Duration.ofSeconds(5));
+        assertThat(policy.fromHeader("600000").remaining()).isLessThanOrEqualTo(Duration.ofSeconds(115));
+        assertThat(policy.fromHeader("soon").remaining()).isGreaterThan(Duration.ofSeconds(59));
+        assertThat(policy.fromHeader(null).remaining()).isGreaterThan(Duration.ofSeconds(59));
+    }
+
+    @Test
+    void maxTokensFollowRemainingTimeInPowersOfTwo() {
+        // (6 с - 1 с запаса) * 100 ток/с ≈ 500 → 256
+        assertThat(policy.maxTokens(Deadline.after(Duration.ofSeconds(6)))).isEqualTo(256);
+        assertThat(policy.maxTokens(Deadline.after(Duration.ofSeconds(100)))).isEqualTo(2048);
+        assertThatThrownBy(() -> policy.maxTokens(Deadline.after(Duration.ofMillis(1200))))
+                .isInstanceOf(DeadlineExceededException.class);
+    }
+
+    @Test
+    void contextWaitIsBoundedBySliceAndDeadline() {
+        assertThat(policy.contextTimeout(Deadline.after(Duration.ofSeconds(30)))).isEqualTo(Duration.ofSeconds(3));
+        assertThat(policy.contextTimeout(Deadline.after(Duration.ofSeconds(1)))).isLessThanOrEqualTo(Duration.ofSeconds(1));
+    }
+}
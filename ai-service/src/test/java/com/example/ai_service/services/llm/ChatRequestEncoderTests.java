@@ -0,0 +1,68 @@
+package com.example.ai_service.services.llm;
+
+import com.example.ai_service.entity.dto.OpenAIChatRequest;
+import com.example.ai_service.prompts.ConstantPrompts;
+import com.example.ai_service.services.tools.ToolRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatRequestEncoderTests {
+
+    private final ConstantPrompts prompts = new ConstantPrompts();
+    private final ChatRequestEncoder encoder = new ChatRequestEncoder(prompts);
+    private final ToolRegistry toolRegistry = new ToolRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void matchesJacksonWithToolsAndStaticPrompt() throws Exception {
+        OpenAIChatRequest request = request(
+                prompts.getSystemPromptCop() + "\n\nКонтекст: \"ООО Ромашка\"\tсотрудники\\отделы",
+                "Напиши и отправь письмо Ивану 📧 \u0001");
+        request.setTools(toolRegistry.tools(Set.of(ToolRegistry.SEND_EMAIL)));
+        request.setStream(true);
+
+        assertSameBytes(request);
+    }
+
+    @Test
+    void matchesJacksonWithoutToolsAndWithHistory() throws Exception {
+        OpenAIChatRequest request = request("Свой prompt без статической части", "ещё вопрос");
+        request.setMessages(List.of(
+                request.getMessages().get(0),
+                new OpenAIChatRequest.Message("user", "привет"),
+                new OpenAIChatRequest.Message("assistant", null),
+                request.getMessages().get(1)));
+        request.setTool_choice("none");
+        request.setMax_tokens(512);
+
+        assertSameBytes(request);
+    }
+
+    @Test
+    void toolSetsAreBuiltOnce() {
+        assertThat(toolRegistry.tools(Set.of(ToolRegistry.SEND_EMAIL)))
+                .isSameAs(toolRegistry.tools(List.of(ToolRegistry.SEND_EMAIL)));
+        assertThat(toolRegistry.tools(Set.of("unknown"))).isNull();
+    }
+
+    private void assertSameBytes(OpenAIChatRequest request) throws Exception {
+        String expected = objectMapper.writeValueAsString(request);
+        assertThat(new String(encoder.encode(request), StandardCharsets.UTF_8)).isEqualTo(expected);
+    }
+
+    private static OpenAIChatRequest request(String system, String user) {
+        OpenAIChatRequest request = new OpenAIChatRequest();
+        request.setModel("gpt-4o-mini");
+        request.setMessages(List.of(
+                new OpenAIChatRequest.Message("system", system),
+                new OpenAIChatRequest.Message("user", user)));
+        request.setTemperature(0.7);
+        return request;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.ai_service.services.llm;
+
+import com.example.ai_service.entity.dto.OpenAIChatRequest;
+import com.example.ai_service.entity.dto.OpenAIChatResponse;
+import com.example.ai_service.prompts.ConstantPrompts;
+import com.example.ai_service.services.llm.routing.LatencyStats;
+import com.example.ai_service.services.llm.routing.LlmProvider;
+import com.example.ai_service.services.llm.routing.LlmRouter;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LlmClientCoalescingTests {
+
+    private static final int CONCURRENT_CALLS = 20;
+
+    private final AtomicInteger upstreamRequests = new AtomicInteger();
+    private HttpServer stub;
+
+    @AfterEach
+    void stopStub() {
+        if (stub != null) stub.stop(0);
+    }
+
+    @Test
+    void identicalConcurrentCallsShareOneUpstreamRequest() throws IOException {
+        LlmClient client = clientFor(200, """
+                {"choices":[{"message":{"role":"assistant","content":"Привет!"},"finish_reason":"stop"}]}
+                """);
+
+        List<OpenAIChatResponse> responses = Flux.range(0, CONCURRENT_CALLS)
+                .flatMap(i -> client.complete(request("Как дела?")).subscribeOn(Schedulers.parallel()))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(responses).hasSize(CONCURRENT_CALLS)
+                .allSatisfy(r -> assertThat(r.getChoices().get(0).getMessage().getContent()).isEqualTo("Привет!"));
+        assertThat(upstreamRequests).hasValue(1);
+    }
+
+    @Test
+    void upstreamErrorIsDeliveredToEverySubscriber() throws IOException {
+        LlmClient client = clientFor(500, "{\"error\":\"boom\"}");
+
+        List<String> outcomes = Flux.range(0, CONCURRENT_CALLS)
+                .flatMap(i -> client.complete(request("Как дела?"))
+                        .map(r -> "ok")
+                        .onErrorResume(e -> Mono.just("error"))
+                        .subscribeOn(Schedulers.parallel()))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(outcomes).hasSize(CONCURRENT_CALLS).containsOnly("error");
+        assertThat(upstreamRequests).hasValue(1);
+    }
+
+    @Test
+    void differentRequestsAreNotCoalesced() throws IOException {
+        LlmClient client = clientFor(200, """
+                {"choices":[{"message":{"role":"assistant","content":"ok"},"finish_reason":"stop"}]}
+                """);
+
+        Flux.merge(client.complete(request("первый")), client.complete(request("второй")))
+                .blockLast(Duration.ofSeconds(10));
+
+        assertThat(upstreamRequests).hasValue(2);
+    }
+
+    // Заглушка /chat/completions: отвечает с задержкой, чтобы все вызовы успели пересечься
+    private LlmClient clientFor(int status, String body) throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.createContext("/chat/completions", exchange -> {
+            upstreamRequests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        stub.start();
+
+        WebClient webClient = WebClient.create("http://127.0.0.1:" + stub.getAddress().getPort());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LlmRouter router = new LlmRouter(
+                List.of(new LlmProvider("stub", webClient, null, new LatencyStats(16, Duration.ofMinutes(1).toNanos()),
+                        CircuitBreaker.ofDefaults("stub"))),
+                false, Duration.ofSeconds(1), 10, 0.5, meterRegistry);
+        return new LlmClient(router, new ChatRequestEncoder(new ConstantPrompts()), meterRegistry, Duration.ofSeconds(5),
+                2, Duration.ofMillis(10), Duration.ofMillis(100));
+    }
+
+    private static OpenAIChatRequest request(String message) {
+        OpenAIChatRequest request = new OpenAIChatRequest();
+        request.setModel("test-model");
+        request.setMessages(List.of(
+                new OpenAIChatRequest.Message("system", "Ты — помощник."),
+                new OpenAIChatRequest.Message("user", message)
+        ));
+        request.setTemperature(0.7);
+        request.setTool_choice("none");
+        return request;
+    }
+}
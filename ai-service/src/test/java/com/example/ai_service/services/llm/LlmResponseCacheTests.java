@@ -0,0 +1,86 @@
+package com.example.ai_service.services.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LlmResponseCacheTests {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void normalizationIgnoresCaseYoWhitespaceAndTrailingPunctuation() {
+        assertThat(LlmResponseCache.normalize("  Ещё   РАЗ\tпривет?!… ")).isEqualTo("еще раз привет");
+        assertThat(LlmResponseCache.normalize("Сколько стоит?")).isEqualTo(LlmResponseCache.normalize("сколько стоит"));
+        // пунктуация внутри сообщения значима
+        assertThat(LlmResponseCache.normalize("да, нет")).isNotEqualTo(LlmResponseCache.normalize("да нет"));
+
+        LlmResponseCache cache = cache(true, DataSize.ofMegabytes(1));
+        assertThat(cache.key("gpt-4o-mini", "chat", "prompt", "Сколько стоит стрижка?", false))
+                .isEqualTo(cache.key("gpt-4o-mini", "chat", "prompt", "сколько  стоит стрижка", false))
+                .isNotEqualTo(cache.key("gpt-4o-mini", "chat", "другой prompt", "сколько стоит стрижка", false));
+    }
+
+    @Test
+    void bypassOrDisabledCacheGivesNoKey() {
+        assertThat(cache(true, DataSize.ofMegabytes(1)).key("gpt-4o-mini", "chat", "prompt", "привет", true)).isNull();
+        assertThat(cache(false, DataSize.ofMegabytes(1)).key("gpt-4o-mini", "chat", "prompt", "привет", false)).isNull();
+
+        LlmResponseCache cache = cache(true, DataSize.ofMegabytes(1));
+        cache.put(null, "ответ", 1_000);
+        assertThat(cache.get(null)).isNull();
+        assertThat(cache.getStale(null)).isNull();
+    }
+
+    @Test
+    void freshReplyExpiresAfterTtlButStaysAvailableAsStale() {
+        LlmResponseCache cache = cache(true, DataSize.ofMegabytes(1));
+        String key = cache.key("gpt-4o-mini", "chat", "prompt", "привет", false);
+        cache.put(key, "Здравствуйте!", 2_000_000_000L);
+
+        assertThat(cache.get(key)).isEqualTo("Здравствуйте!");
+        assertThat(meterRegistry.counter("llm.response.cache.latency.saved").count()).isEqualTo(2.0);
+
+        nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+        assertThat(cache.get(key)).isNull();
+        assertThat(cache.getStale(key)).isEqualTo("Здравствуйте!");
+        // устаревший ответ попаданием не считается
+        assertThat(meterRegistry.get("cache.gets").tags("cache", "llm-response", "result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+
+        nanos.addAndGet(Duration.ofHours(24).toNanos());
+        assertThat(cache.getStale(key)).isNull();
+    }
+
+    @Test
+    void totalWeightStaysWithinMaxMemory() {
+        // запись весит 160 + 2 * 100 = 360 байт, в 1 КБ помещается не больше двух
+        LlmResponseCache cache = cache(true, DataSize.ofKilobytes(1));
+        String reply = "x".repeat(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put(cache.key("gpt-4o-mini", "chat", "prompt", "вопрос " + i, false), reply, 1_000);
+        }
+        long retained = IntStream.range(0, 50)
+                .mapToObj(i -> cache.getStale(cache.key("gpt-4o-mini", "chat", "prompt", "вопрос " + i, false)))
+                .filter(r -> r != null)
+                .count();
+        assertThat(retained).isBetween(1L, 2L);
+
+        // ответ тяжелее всего бюджета не задерживается
+        String huge = cache.key("gpt-4o-mini", "chat", "prompt", "огромный", false);
+        cache.put(huge, "y".repeat(1_000), 1_000);
+        assertThat(cache.get(huge)).isNull();
+    }
+
+    private LlmResponseCache cache(boolean enabled, DataSize maxMemory) {
+        return new LlmResponseCache(meterRegistry, enabled, Duration.ofMinutes(10), Duration.ofHours(24),
+                maxMemory, nanos::get, Runnable::run);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.ai_service.services.llm.cassette;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CassetteTests {
+
+    private static final String ANSWER = """
+            {"choices":[{"message":{"role":"assistant","content":"Привет!"},"finish_reason":"stop"}]}""";
+
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger upstreamRequests = new AtomicInteger();
+    private HttpServer stub;
+
+    @AfterEach
+    void stopStub() {
+        if (stub != null) stub.stop(0);
+    }
+
+    @Test
+    void writtenRecordingsAreFoundByFingerprint() throws Exception {
+        Path path = dir.resolve("many.cassette");
+        try (CassetteWriter writer = new CassetteWriter(path)) {
+            for (int i = 0; i < 1000; i++) {
+                assertThat(writer.append(sha256("request " + i), recording("answer " + i))).isTrue();
+            }
+            assertThat(writer.append(sha256("request 0"), recording("duplicate"))).isFalse();
+        }
+
+        Cassette cassette = Cassette.open(path);
+        assertThat(cassette.size()).isEqualTo(1000);
+        for (int i = 0; i < 1000; i += 97) {
+            Cassette.Recording found = cassette.find(sha256("request " + i));
+            assertThat(found.status()).isEqualTo(200);
+            assertThat(found.headers().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+            assertThat(found.chunks()).extracting(chunk -> text(chunk.data())).containsExactly("answer " + i, "!");
+        }
+        assertThat(cassette.find(sha256("never recorded"))).isNull();
+    }
+
+    @Test
+    void recordedResponseIsReplayedWithoutUpstream() throws Exception {
+        Path path = dir.resolve("llm.cassette");
+        String baseUrl = startStub();
+
+        LlmCassette recorder = cassette(CassetteProperties.Mode.RECORD, path);
+        assertThat(post(recorder, baseUrl, body("Как дела?", 512))).isEqualTo(ANSWER);
+        recorder.destroy();
+        stub.stop(0);
+        stub = null;
+
+        // max_tokens не входит в отпечаток, поэтому другой остаток дедлайна всё равно попадает в запись
+        LlmCassette player = cassette(CassetteProperties.Mode.REPLAY, path);
+        assertThat(post(player, baseUrl, body("Как дела?", 128))).isEqualTo(ANSWER);
+        assertThat(upstreamRequests).hasValue(1);
+
+        assertThatThrownBy(() -> post(player, baseUrl, body("Что нового?", 512)))
+                .isInstanceOf(CassetteMissException.class)
+                .hasMessageContaining("Что нового?");
+        assertThat(Files.readString(path.resolveSibling("llm.cassette.misses.jsonl"))).contains("Что нового?");
+    }
+
+    private String startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.createContext("/chat/completions", exchange -> {
+            upstreamRequests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            byte[] bytes = ANSWER.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        stub.start();
+        return "http://127.0.0.1:" + stub.getAddress().getPort();
+    }
+
+    private static LlmCassette cassette(CassetteProperties.Mode mode, Path path) {
+        CassetteProperties properties = new CassetteProperties();
+        properties.setMode(mode);
+        properties.setPath(path);
+        properties.setLatencyScale(0);
+        return new LlmCassette(properties, new SimpleMeterRegistry());
+    }
+
+    private static String post(LlmCassette cassette, String baseUrl, String body) {
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(cassette.wrap(new ReactorClientHttpConnector()))
+                .build()
+                .post()
+                .uri("/chat/completions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body.getBytes(StandardCharsets.UTF_8))
+                .retrieve()
+                .bodyToMono(String.class)
+                .block(Duration.ofSeconds(10));
+    }
+
+    private static String body(String message, int maxTokens) {
+        return """
+                {"model":"gpt-4o-mini","messages":[{"role":"user","content":"%s"}],"max_tokens":%d}"""
+                .formatted(message, maxTokens);
+    }
+
+    private static Cassette.Recording recording(String text) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new Cassette.Recording(200, headers, 1_000, List.of(
+                new Cassette.Chunk(1_500, ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8))),
+                new Cassette.Chunk(2_000, ByteBuffer.wrap("!".getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    private static byte[] sha256(String text) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(ByteBuffer data) {
+        return StandardCharsets.UTF_8.decode(data.duplicate()).toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ai_service.services.llm.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyStatsTests {
+
+    private static final long MS = 1_000_000L;
+
+    private final LatencyStats stats = new LatencyStats(16, Duration.ofMinutes(1).toNanos());
+
+    @Test
+    void cancelledCallBelowMedianIsNotASample() {
+        stats.recordSuccess(800 * MS);
+        stats.recordSuccess(900 * MS);
+        stats.recordSuccess(1000 * MS);
+
+        // проигравший hedge, отменённый через 100 мс, ничего не говорит о скорости провайдера
+        stats.recordCancelled(100 * MS);
+
+        assertThat(stats.snapshot().samples()).isEqualTo(3);
+        assertThat(stats.snapshot().p50Nanos()).isEqualTo(900 * MS);
+    }
+
+    @Test
+    void cancelledCallsPushHungProviderMedianUp() {
+        stats.recordSuccess(200 * MS);
+
+        for (int i = 0; i < 4; i++) {
+            stats.recordCancelled(2_500 * MS);
+        }
+
+        assertThat(stats.snapshot().p50Nanos()).isEqualTo(2_500 * MS);
+        assertThat(stats.snapshot().errorRate()).isZero();
+    }
+
+    @Test
+    void cancelledCallIsKeptWhenNothingElseIsKnown() {
+        stats.recordCancelled(2_000 * MS);
+
+        assertThat(stats.snapshot().p50Nanos()).isEqualTo(2_000 * MS);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.ai_service.services.llm.routing;
+
+import com.example.ai_service.entity.dto.OpenAIChatRequest;
+import com.example.ai_service.entity.dto.OpenAIChatResponse;
+import com.example.ai_service.prompts.ConstantPrompts;
+import com.example.ai_service.services.llm.ChatRequestEncoder;
+import com.example.ai_service.services.llm.LlmApiException;
+import com.example.ai_service.services.llm.LlmClient;
+import com.example.ai_service.services.resilience.UpstreamFailurePredicate;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LlmRouterTests {
+
+    private final List<HttpServer> stubs = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void stopStubs() {
+        stubs.forEach(stub -> stub.stop(0));
+    }
+
+    @Test
+    void routesToFasterProviderOnceStatsAreCollected() throws IOException {
+        Stub slow = stub("slow", 200, 300);
+        Stub fast = stub("fast", 200, 20);
+        LlmClient client = client(router(false, Duration.ofSeconds(5), slow, fast));
+
+        for (int i = 0; i < 20; i++) {
+            client.complete(request("вопрос " + i)).block(Duration.ofSeconds(5));
+        }
+        int fastBefore = fast.requests.get();
+        for (int i = 0; i < 10; i++) {
+            client.complete(request("ещё вопрос " + i)).block(Duration.ofSeconds(5));
+        }
+
+        assertThat(fast.requests.get() - fastBefore).isEqualTo(10);
+    }
+
+    @Test
+    void hedgedRequestWinsWhenPrimaryIsSlow() throws IOException {
+        Stub slow = stub("slow", 200, 2_000);
+        Stub fast = stub("fast", 200, 20);
+        LlmClient client = client(router(true, Duration.ofMillis(100), slow, fast));
+
+        long startedAt = System.nanoTime();
+        OpenAIChatResponse response = client.complete(request("вопрос")).block(Duration.ofSeconds(5));
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        assertThat(response.getChoices().get(0).getMessage().getContent()).isEqualTo("fast");
+        assertThat(elapsedMillis).isLessThan(1_500);
+        assertThat(slow.requests).hasValue(1);
+        assertThat(meterRegistry.counter("llm.hedge.won").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void failingPrimaryTriggersHedgeImmediately() throws IOException {
+        Stub broken = stub("broken", 503, 0);
+        Stub healthy = stub("healthy", 200, 20);
+        LlmClient client = client(router(true, Duration.ofSeconds(10), broken, healthy));
+
+        OpenAIChatResponse response = client.complete(request("вопрос")).block(Duration.ofSeconds(5));
+
+        assertThat(response.getChoices().get(0).getMessage().getContent()).isEqualTo("healthy");
+        assertThat(broken.requests).hasValue(1);
+    }
+
+    @Test
+    void providerWithOnlyFailuresIsNotChosenAsPrimary() throws IOException {
+        Stub broken = stub("broken", 503, 0);
+        Stub healthy = stub("healthy", 200, 200);
+        LlmRouter router = router(false, Duration.ofSeconds(5), broken, healthy);
+        LlmClient client = client(router);
+
+        // статистики ещё нет ни у кого: первым идёт провайдер из начала списка
+        assertThatThrownBy(() -> client.complete(request("первый")).block(Duration.ofSeconds(5)))
+                .isInstanceOf(LlmApiException.class);
+        assertThat(broken.requests).hasValue(1);
+
+        // до min-samples провайдер считается здоровым, но одни ошибки не выглядят как p50 = 0
+        assertThat(router.providers().get(0).stats().snapshot().p50Nanos()).isEqualTo(Long.MAX_VALUE);
+        assertThat(router.ranked().get(0).name()).isEqualTo("healthy");
+        for (int i = 0; i < 5; i++) {
+            client.complete(request("вопрос " + i)).block(Duration.ofSeconds(5));
+        }
+        assertThat(broken.requests).hasValue(1);
+        assertThat(healthy.requests).hasValue(5);
+    }
+
+    @Test
+    void requestErrorDoesNotTriggerHedge() throws IOException {
+        Stub rejecting = stub("rejecting", 400, 0);
+        Stub other = stub("other", 200, 20);
+        LlmClient client = client(router(true, Duration.ofSeconds(10), rejecting, other));
+
+        assertThatThrownBy(() -> client.complete(request("вопрос")).block(Duration.ofSeconds(5)))
+                .isInstanceOfSatisfying(LlmApiException.class, e -> assertThat(e.isProviderFailure()).isFalse());
+
+        assertThat(rejecting.requests).hasValue(1);
+        assertThat(other.requests).hasValue(0);
+        assertThat(meterRegistry.counter("llm.hedge.sent").count()).isZero();
+    }
+
+    @Test
+    void openBreakerFailsFastWithoutCallingProvider() throws IOException {
+        Stub broken = stub("broken", 503, 0);
+        CircuitBreaker breaker = CircuitBreaker.of("broken", CircuitBreakerConfig.custom()
+                .slidingWindowSize(3)
+                .minimumNumberOfCalls(3)
+                .recordException(new UpstreamFailurePredicate())
+                .build());
+        LlmRouter router = new LlmRouter(List.of(new LlmProvider("broken", WebClient.create(broken.baseUrl()), null,
+                new LatencyStats(64, Duration.ofMinutes(1).toNanos()), breaker)),
+                false, Duration.ofSeconds(5), 3, 0.5, meterRegistry);
+        LlmClient client = client(router);
+
+        for (int i = 0; i < 3; i++) {
+            String message = "вопрос " + i;
+            assertThatThrownBy(() -> client.complete(request(message)).block(Duration.ofSeconds(5)))
+                    .isInstanceOf(LlmApiException.class);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> client.complete(request("ещё вопрос")).block(Duration.ofSeconds(5)))
+                .isInstanceOf(CallNotPermittedException.class);
+        assertThat(broken.requests).hasValue(3);
+    }
+
+    private record Stub(String name, String baseUrl, AtomicInteger requests) { }
+
+    // Заглушка /chat/completions, которая отвечает своим именем через latencyMillis
+    private Stub stub(String name, int status, long latencyMillis) throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/chat/completions", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = """
+                    {"choices":[{"message":{"role":"assistant","content":"%s"},"finish_reason":"stop"}]}
+                    """.formatted(name).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            try {
+                exchange.sendResponseHeaders(status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            } catch (IOException e) {
+                // клиент отменил проигравший запрос и закрыл соединение
+            }
+        });
+        server.start();
+        stubs.add(server);
+        return new Stub(name, "http://127.0.0.1:" + server.getAddress().getPort(), requests);
+    }
+
+    private LlmRouter router(boolean hedge, Duration hedgeDelay, Stub... stubs) {
+        List<LlmProvider> providers = new ArrayList<>();
+        for (Stub stub : stubs) {
+            providers.add(new LlmProvider(stub.name(), WebClient.create(stub.baseUrl()), null,
+                    new LatencyStats(64, Duration.ofMinutes(1).toNanos()), CircuitBreaker.ofDefaults(stub.name())));
+        }
+        return new LlmRouter(providers, hedge, hedgeDelay, 3, 0.5, meterRegistry);
+    }
+
+    private LlmClient client(LlmRouter router) {
+        return new LlmClient(router, new ChatRequestEncoder(new ConstantPrompts()), meterRegistry, Duration.ofSeconds(5),
+                2, Duration.ofMillis(10), Duration.ofMillis(100));
+    }
+
+    private static OpenAIChatRequest request(String message) {
+        OpenAIChatRequest request = new OpenAIChatRequest();
+        request.setModel("test-model");
+        request.setMessages(List.of(new OpenAIChatRequest.Message("user", message)));
+        request.setTool_choice("none");
+        return request;
+    }
+}
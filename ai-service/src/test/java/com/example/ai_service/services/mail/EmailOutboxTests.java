@@ -0,0 +1,147 @@
+package com.example.ai_service.services.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailOutboxTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @TempDir
+    Path tempDir;
+
+    private final List<EmailOutbox> started = new ArrayList<>();
+
+    @AfterEach
+    void stopOutboxes() throws Exception {
+        for (EmailOutbox outbox : started) {
+            outbox.stop();
+        }
+    }
+
+    @Test
+    void enqueueReturnsImmediatelyAndWorkerDelivers() throws Exception {
+        EmailOutbox outbox = outbox(greenMailSender(), 3, Duration.ofMillis(50));
+
+        String id = outbox.enqueue("biz-1", "employee@example.com", "Отчёт", "Привет!", false);
+
+        assertThat(greenMail.waitForIncomingEmail(5_000, 1)).isTrue();
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertThat(received.getSubject()).isEqualTo("Отчёт");
+        await(() -> outbox.find(id).map(e -> e.status() == EmailStatus.SENT).orElse(false));
+        assertThat(outbox.find(id).orElseThrow().attempts()).isEqualTo(1);
+    }
+
+    @Test
+    void pendingMessagesSurviveRestart() throws Exception {
+        EmailOutbox unreachable = outbox(unreachableSender(), 10, Duration.ofHours(1));
+        String id = unreachable.enqueue("biz-1", "employee@example.com", "После рестарта", "Текст", false);
+        await(() -> unreachable.find(id).map(e -> e.attempts() >= 1).orElse(false));
+        unreachable.stop();
+        started.remove(unreachable);
+
+        EmailOutbox restarted = outbox(greenMailSender(), 10, Duration.ofMillis(50));
+
+        assertThat(greenMail.waitForIncomingEmail(5_000, 1)).isTrue();
+        await(() -> restarted.find(id).map(e -> e.status() == EmailStatus.SENT).orElse(false));
+        assertThat(restarted.find(id).orElseThrow().attempts()).isEqualTo(2);
+    }
+
+    @Test
+    void exhaustedRetriesEndInDeadLetter() throws Exception {
+        EmailOutbox outbox = outbox(unreachableSender(), 2, Duration.ofMillis(10));
+
+        String id = outbox.enqueue("biz-1", "employee@example.com", "Не дойдёт", "Текст", false);
+
+        await(() -> outbox.find(id).map(e -> e.status() == EmailStatus.DEAD).orElse(false));
+        assertThat(outbox.deadLetters()).extracting(OutboxEntry::id).containsExactly(id);
+        assertThat(outbox.find(id).orElseThrow().lastError()).isNotBlank();
+    }
+
+    @Test
+    void deadLetterOutlivesRetentionOfSentMessagesAndRestart() throws Exception {
+        EmailOutbox failing = outbox(unreachableSender(), 1, Duration.ofMillis(10), 3);
+        String deadId = failing.enqueue("biz-1", "employee@example.com", "Не дойдёт", "Текст", false);
+        await(() -> failing.find(deadId).map(e -> e.status() == EmailStatus.DEAD).orElse(false));
+        failing.stop();
+        started.remove(failing);
+
+        // retain-completed + 1 успешных писем вытесняют старейшее отправленное, но не dead-letter
+        EmailOutbox working = outbox(greenMailSender(), 1, Duration.ofMillis(10), 3);
+        List<String> sent = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            sent.add(working.enqueue("biz-1", "employee@example.com", "Письмо " + i, "Текст", false));
+        }
+        assertThat(greenMail.waitForIncomingEmail(5_000, 4)).isTrue();
+        await(() -> working.find(sent.get(3)).map(e -> e.status() == EmailStatus.SENT).orElse(false));
+        await(() -> working.find(sent.get(0)).isEmpty());
+        assertThat(working.deadLetters()).extracting(OutboxEntry::id).containsExactly(deadId);
+        working.stop();
+        started.remove(working);
+
+        // сжатие журнала на старте переписывает dead-letter, а не теряет его
+        EmailOutbox restarted = outbox(greenMailSender(), 1, Duration.ofMillis(10), 3);
+        assertThat(restarted.deadLetters()).extracting(OutboxEntry::id).containsExactly(deadId);
+        restarted.stop();
+        started.remove(restarted);
+        EmailOutbox again = outbox(greenMailSender(), 1, Duration.ofMillis(10), 3);
+        assertThat(again.find(deadId).map(OutboxEntry::status)).contains(EmailStatus.DEAD);
+    }
+
+    private EmailOutbox outbox(JavaMailSenderImpl sender, int maxAttempts, Duration initialBackoff) {
+        return outbox(sender, maxAttempts, initialBackoff, 100);
+    }
+
+    private EmailOutbox outbox(JavaMailSenderImpl sender, int maxAttempts, Duration initialBackoff, int retainCompleted) {
+        EmailOutbox outbox = new EmailOutbox(sender, new SimpleMeterRegistry(), "copilot@example.com",
+                tempDir.resolve("mail-outbox.log"), 1, 10, maxAttempts, initialBackoff, Duration.ofHours(1),
+                retainCompleted, 100);
+        outbox.start();
+        started.add(outbox);
+        return outbox;
+    }
+
+    private static JavaMailSenderImpl greenMailSender() {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        return sender;
+    }
+
+    private static JavaMailSenderImpl unreachableSender() throws IOException {
+        int freePort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            freePort = socket.getLocalPort();
+        }
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(freePort);
+        return sender;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
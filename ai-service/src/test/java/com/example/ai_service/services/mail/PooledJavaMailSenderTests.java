@@ -0,0 +1,67 @@
+package com.example.ai_service.services.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PooledJavaMailSenderTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private PooledJavaMailSender sender;
+
+    @AfterEach
+    void close() {
+        if (sender != null) sender.destroy();
+    }
+
+    @Test
+    void batchAndSubsequentSendsReuseOneConnection() throws Exception {
+        sender = sender(100);
+
+        sender.send(message("1"), message("2"), message("3"));
+        sender.send(message("4"));
+
+        assertThat(greenMail.waitForIncomingEmail(5_000, 4)).isTrue();
+        assertThat(sender.handshakeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void connectionIsRecycledAfterMessageLimit() throws Exception {
+        sender = sender(2);
+
+        for (int i = 0; i < 5; i++) {
+            sender.send(message(String.valueOf(i)));
+        }
+
+        assertThat(greenMail.waitForIncomingEmail(5_000, 5)).isTrue();
+        assertThat(sender.handshakeCount()).isEqualTo(3);
+    }
+
+    private static PooledJavaMailSender sender(int maxMessagesPerConnection) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(2, maxMessagesPerConnection,
+                Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofSeconds(5));
+        sender.setHost("127.0.0.1");
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        return sender;
+    }
+
+    private MimeMessage message(String subject) throws Exception {
+        MimeMessage message = sender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        helper.setFrom("copilot@example.com");
+        helper.setTo("employee@example.com");
+        helper.setSubject(subject);
+        helper.setText("Текст");
+        return message;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ai_service.services.profiling;
+
+import com.example.common.profiling.SlowRequestRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowRequestRecorderTests {
+
+    // те же события этапов, что в приложении
+    private final SlowRequestRecorder recorder = new ProfilingConfig().slowRequestRecorder(true, 2, 100, 10);
+
+    @AfterEach
+    void stop() {
+        recorder.stop();
+    }
+
+    @Test
+    void keepsSlowestRequestsWithStageBreakdown() throws InterruptedException {
+        recorder.start();
+
+        request("fast", 5, false);
+        request("slow", 60, true);
+        request("medium", 30, false);
+
+        // RecordingStream отдаёт события примерно раз в секунду
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (recorder.slowest().size() < 2 || !recorder.slowest().get(1).requestId().equals("medium")) {
+            if (System.nanoTime() > deadline) break;
+            Thread.sleep(100);
+        }
+
+        List<SlowRequestRecorder.SlowRequest> slowest = recorder.slowest();
+        assertThat(slowest).extracting(SlowRequestRecorder.SlowRequest::requestId).containsExactly("slow", "medium");
+        SlowRequestRecorder.SlowRequest slow = slowest.get(0);
+        assertThat(slow.route()).isEqualTo("/api/chat");
+        assertThat(slow.stages()).extracting(SlowRequestRecorder.Stage::name).containsExactly("context", "llm");
+        assertThat(slow.stages().get(1).durationMillis()).isGreaterThanOrEqualTo(50);
+        // выделения servlet-потока не выдаются за стоимость асинхронного ответа
+        assertThat(slow.servletAllocatedBytes()).isNull();
+        assertThat(slowest.get(1).servletAllocatedBytes()).isEqualTo(4096L);
+    }
+
+    private static void request(String requestId, long llmMillis, boolean async) throws InterruptedException {
+        HttpRequestEvent request = new HttpRequestEvent();
+        request.begin();
+        stage(requestId, "context", 1);
+        stage(requestId, "llm", llmMillis);
+        request.end();
+        request.requestId = requestId;
+        request.method = "POST";
+        request.route = "/api/chat";
+        request.status = 200;
+        request.async = async;
+        request.servletAllocatedBytes = 4096;
+        request.commit();
+    }
+
+    private static void stage(String requestId, String name, long millis) throws InterruptedException {
+        ChatStageEvent event = new ChatStageEvent();
+        event.begin();
+        Thread.sleep(millis);
+        event.end();
+        event.requestId = requestId;
+        event.stage = name;
+        event.mode = "default";
+        event.outcome = "success";
+        event.commit();
+    }
+}
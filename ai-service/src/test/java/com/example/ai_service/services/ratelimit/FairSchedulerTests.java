@@ -0,0 +1,117 @@
+package com.example.ai_service.services.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairSchedulerTests {
+
+    private static final Duration SERVICE_TIME = Duration.ofMillis(20);
+
+    @Test
+    void lightTenantsStayFastWhileHeavyTenantFloods() {
+        FairScheduler scheduler = new FairScheduler(4, 4, 4, Duration.ofMinutes(1), 0.9, 1000,
+                1_000, 500, Duration.ofSeconds(30));
+        Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+
+        // 150 запросов тяжёлого бизнеса разом: при FIFO очередь на 150 * 20 мс / 4 = 750 мс
+        Flux<Long> heavy = Flux.range(0, 150)
+                .flatMap(i -> call(scheduler, "heavy", latencies), 256);
+        // лёгкие бизнесы присылают по запросу раз в 25 мс уже после того, как очередь забита
+        Flux<Long> light = Flux.range(1, 3)
+                .flatMap(n -> Flux.interval(Duration.ofMillis(25)).take(10)
+                        .flatMap(i -> call(scheduler, "light-" + n, latencies)));
+
+        Flux.merge(heavy, light).then().block(Duration.ofSeconds(20));
+
+        List<Long> lightLatencies = new ArrayList<>();
+        latencies.forEach((tenant, values) -> {
+            if (tenant.startsWith("light")) lightLatencies.addAll(values);
+        });
+        assertThat(lightLatencies).hasSize(30);
+        assertThat(percentile(lightLatencies, 0.99)).isLessThan(Duration.ofMillis(200).toNanos());
+        assertThat(percentile(latencies.get("heavy"), 0.99)).isGreaterThan(Duration.ofMillis(500).toNanos());
+    }
+
+    @Test
+    void weightsSplitCapacityProportionally() {
+        FairScheduler scheduler = new FairScheduler(1, 1, 1, Duration.ofMinutes(1), 0.9, 1000,
+                1_000, 100, Duration.ofSeconds(30));
+        FairScheduler.Permit first = scheduler.acquire("pro", 3, 1000).block();
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<FairScheduler.Permit> held = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 40; i++) {
+            for (String tenant : List.of("pro", "free")) {
+                scheduler.acquire(tenant, tenant.equals("pro") ? 3 : 1, 1000)
+                        .subscribe(permit -> {
+                            order.add(tenant);
+                            held.add(permit);
+                        });
+            }
+        }
+
+        // место выдаётся следующему в том же потоке, что освобождает
+        first.release();
+        for (int i = 0; i < 19; i++) {
+            held.get(i).release();
+        }
+
+        List<String> firstTwenty = order.subList(0, 20);
+        assertThat(Collections.frequency(firstTwenty, "pro")).isEqualTo(15);
+        assertThat(Collections.frequency(firstTwenty, "free")).isEqualTo(5);
+    }
+
+    @Test
+    void limitShrinksOnSlowResponsesAndGrowsBackWhenLoaded() throws InterruptedException {
+        FairScheduler scheduler = new FairScheduler(8, 4, 1, Duration.ofMillis(10), 0.5, 1000,
+                100, 100, Duration.ofSeconds(5));
+
+        FairScheduler.Permit slow = scheduler.acquire("biz-1", 1, 100).block();
+        Thread.sleep(30);
+        slow.success();
+        slow.release();
+        assertThat(scheduler.limit()).isEqualTo(2);
+
+        FairScheduler.Permit failed = scheduler.acquire("biz-1", 1, 100).block();
+        failed.dropped();
+        failed.release();
+        assertThat(scheduler.limit()).isEqualTo(1);
+
+        FairScheduler.Permit fast = scheduler.acquire("biz-1", 1, 100).block();
+        fast.success();
+        fast.release();
+        assertThat(scheduler.limit()).isEqualTo(2);
+    }
+
+    private static Mono<Long> call(FairScheduler scheduler, String tenant, Map<String, List<Long>> latencies) {
+        return Mono.defer(() -> {
+            long submitted = System.nanoTime();
+            return Mono.usingWhen(
+                            scheduler.acquire(tenant, 1, 500),
+                            permit -> Mono.delay(SERVICE_TIME).doOnNext(tick -> permit.success()),
+                            permit -> Mono.fromRunnable(permit::release))
+                    .then(Mono.fromSupplier(() -> {
+                        long latency = System.nanoTime() - submitted;
+                        latencies.computeIfAbsent(tenant, t -> Collections.synchronizedList(new ArrayList<>()))
+                                .add(latency);
+                        return latency;
+                    }));
+        });
+    }
+
+    private static long percentile(List<Long> values, double p) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(p * sorted.size()) - 1);
+    }
+}
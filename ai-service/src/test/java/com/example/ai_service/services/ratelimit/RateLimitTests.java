@@ -0,0 +1,68 @@
+package com.example.ai_service.services.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitTests {
+
+    @Test
+    void bucketRejectsOnceBurstIsSpentAndTellsWhenToRetry() {
+        TokenBucket bucket = new TokenBucket(6_000, 1_000);
+
+        assertThat(bucket.tryAcquire(600)).isZero();
+        assertThat(bucket.tryAcquire(600)).isZero();
+        // ушли в минус: следующий запрос ждёт, пока долг не станет меньше burst
+        long waitNanos = bucket.tryAcquire(100);
+        assertThat(waitNanos).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(3).toNanos());
+    }
+
+    @Test
+    void actualUsageIsSettledAfterResponse() {
+        TokenBucket bucket = new TokenBucket(6_000, 1_000);
+
+        assertThat(bucket.tryAcquire(900)).isZero();
+        bucket.adjust(-800);
+
+        assertThat(bucket.availableTokens()).isGreaterThanOrEqualTo(890);
+    }
+
+    @Test
+    void limiterQueuesUpToLimitAndHandsOverReleasedPermit() {
+        FairScheduler limiter = scheduler(1, Duration.ofSeconds(5));
+
+        FairScheduler.Permit first = limiter.acquire("biz-1", 1, 100).block();
+        Mono<FairScheduler.Permit> queued = limiter.acquire("biz-1", 1, 100).cache();
+        queued.subscribe();
+
+        assertThatThrownBy(() -> limiter.acquire("biz-1", 1, 100).block(Duration.ofSeconds(1)))
+                .isInstanceOf(RateLimitedException.class);
+
+        first.release();
+        assertThat(queued.block(Duration.ofSeconds(1))).isNotNull();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        assertThat(limiter.queued()).isZero();
+    }
+
+    @Test
+    void timedOutWaiterDoesNotLeakPermit() {
+        FairScheduler limiter = scheduler(10, Duration.ofMillis(50));
+
+        FairScheduler.Permit first = limiter.acquire("biz-1", 1, 100).block();
+        assertThatThrownBy(() -> limiter.acquire("biz-2", 1, 100).block(Duration.ofSeconds(1)))
+                .isInstanceOf(RateLimitedException.class);
+        first.release();
+
+        assertThat(limiter.inFlight()).isZero();
+        assertThat(limiter.queued()).isZero();
+    }
+
+    // лимит 1 без адаптации; queuePerTenant — очередь одного бизнеса
+    private static FairScheduler scheduler(int queuePerTenant, Duration queueTimeout) {
+        return new FairScheduler(1, 1, 1, Duration.ofMinutes(1), 0.9, 1000, 256, queuePerTenant, queueTimeout);
+    }
+}
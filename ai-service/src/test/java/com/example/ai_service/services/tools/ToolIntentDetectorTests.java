@@ -0,0 +1,61 @@
+package com.example.ai_service.services.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToolIntentDetectorTests {
+
+    @Test
+    void corpusMessagesGetExpectedTools() throws IOException {
+        ToolIntentDetector detector = detector(Map.of(ToolRegistry.SEND_EMAIL, List.of(
+                "напиши и отправь письмо", "напиши письмо и отправь", "напиши и отправь email",
+                "составь и отправь письмо", "отправь письмо", "отправь на почту", "отправь по почте",
+                "пошли письмо", "разошли письмо")));
+
+        for (String line : corpus()) {
+            String[] columns = line.split("\t", 2);
+            Set<String> expected = "-".equals(columns[0]) ? Set.of() : Set.of(columns[0].split(","));
+            assertThat(detector.detect(columns[1])).as(columns[1]).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void wordFormsAndFillersDoNotMatter() {
+        ToolIntentDetector detector = detector(Map.of(ToolRegistry.SEND_EMAIL, List.of("отправить письмо")));
+
+        assertThat(detector.detect("Отправьте, пожалуйста, письмо")).containsExactly(ToolRegistry.SEND_EMAIL);
+        assertThat(detector.detect("отправь ему письмо")).containsExactly(ToolRegistry.SEND_EMAIL);
+        assertThat(detector.detect("письмо отправлено")).isEmpty();
+    }
+
+    @Test
+    void triggersForUnknownToolsAreIgnored() {
+        ToolIntentDetector detector = detector(Map.of("make_coffee", List.of("свари кофе")));
+
+        assertThat(detector.detect("свари кофе")).isEmpty();
+    }
+
+    private static ToolIntentDetector detector(Map<String, List<String>> triggers) {
+        ToolTriggerProperties properties = new ToolTriggerProperties();
+        properties.setTriggers(triggers);
+        return new ToolIntentDetector(properties, new ToolRegistry());
+    }
+
+    static List<String> corpus() throws IOException {
+        try (InputStream in = ToolIntentDetectorTests.class.getResourceAsStream("/intent/messages.tsv")) {
+            return Arrays.stream(new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n"))
+                    .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                    .collect(Collectors.toList());
+        }
+    }
+}
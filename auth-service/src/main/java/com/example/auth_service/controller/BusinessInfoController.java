@@ -4,9 +4,12 @@ import com.example.auth_service.entity.dto.Response_BusinessContextDTO;
 import com.example.auth_service.exceptions.BusinessNotFound;
 import com.example.auth_service.services.AuthService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -34,4 +37,10 @@ public class BusinessInfoController {
 
         return ResponseEntity.ok(authService.businessInfo(businessId));
     }
+
+    // Запрос к БД не уложился в X-Request-Timeout вызывающего сервиса
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<Void> deadlineExceeded() {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+    }
 }
@@ -0,0 +1,61 @@
+package com.example.auth_service.deadline;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+/**
+ * Каждому Statement, созданному в запросе с дедлайном, выставляет queryTimeout по оставшемуся
+ * времени (с округлением вверх до секунды — точнее JDBC не умеет). Если время уже вышло,
+ * запрос в БД не отправляется.
+ */
+public class DeadlineAwareDataSource extends DelegatingDataSource {
+
+    public DeadlineAwareDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                DeadlineAwareDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                    if (result instanceof Statement statement) {
+                        applyDeadline(statement);
+                    }
+                    return result;
+                });
+    }
+
+    private static void applyDeadline(Statement statement) throws SQLException {
+        long remainingMillis = RequestDeadline.remainingMillis();
+        if (remainingMillis < 0) return;
+        if (remainingMillis == 0) {
+            statement.close();
+            throw new SQLTimeoutException("Request deadline exceeded before query execution");
+        }
+        statement.setQueryTimeout((int) Math.max(1, (remainingMillis + 999) / 1000));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.auth_service.deadline;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DeadlineDataSourceConfig {
+
+    // static: BeanPostProcessor должен создаваться раньше остальных бинов конфигурации
+    @Bean
+    public static BeanPostProcessor deadlineAwareDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DeadlineAwareDataSource)) {
+                    return new DeadlineAwareDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.auth_service.deadline;
+
+/**
+ * Дедлайн текущего запроса, пришедший от вызывающего сервиса в заголовке X-Request-Timeout
+ * (оставшиеся миллисекунды). Хранится в потоке запроса на время его обработки.
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private static final ThreadLocal<Long> EXPIRES_AT_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    static void set(long timeoutMillis) {
+        EXPIRES_AT_NANOS.set(System.nanoTime() + timeoutMillis * 1_000_000);
+    }
+
+    static void clear() {
+        EXPIRES_AT_NANOS.remove();
+    }
+
+    // -1 — дедлайна нет; 0 — уже истёк
+    public static long remainingMillis() {
+        Long expiresAt = EXPIRES_AT_NANOS.get();
+        if (expiresAt == null) return -1;
+        return Math.max(0, (expiresAt - System.nanoTime()) / 1_000_000);
+    }
+}
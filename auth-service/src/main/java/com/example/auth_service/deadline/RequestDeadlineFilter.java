@@ -0,0 +1,53 @@
+package com.example.auth_service.deadline;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Читает X-Request-Timeout от ai-service. Запрос, у которого время уже вышло, не выполняется вовсе,
+ * остальные работают с ограничением: DeadlineAwareDataSource выставляет по нему statement timeout.
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestDeadlineFilter.class);
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(RequestDeadline.HEADER);
+        if (header == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long timeoutMillis;
+        try {
+            timeoutMillis = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            logger.debug("Ignoring malformed {} header: {}", RequestDeadline.HEADER, header);
+            chain.doFilter(request, response);
+            return;
+        }
+        if (timeoutMillis <= 0) {
+            response.sendError(HttpStatus.GATEWAY_TIMEOUT.value(), "Request deadline exceeded");
+            return;
+        }
+
+        RequestDeadline.set(timeoutMillis);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+}
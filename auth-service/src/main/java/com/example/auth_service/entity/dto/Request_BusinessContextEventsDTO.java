@@ -0,0 +1,9 @@
+package com.example.auth_service.entity.dto;
+
+import java.util.List;
+
+// Тело webhook-а для подписчиков outbox: по одной записи на бизнес, версия — последняя в пачке
+public record Request_BusinessContextEventsDTO(List<Event> events) {
+
+    public record Event(String businessId, long version, String type) { }
+}
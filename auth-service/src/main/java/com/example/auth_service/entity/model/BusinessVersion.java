@@ -0,0 +1,25 @@
+package com.example.auth_service.entity.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+// Счётчик изменений бизнеса и его сотрудников: растёт на 1 с каждым событием outbox
+@Entity
+@Table(name = "business_versions")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BusinessVersion {
+
+    @Id
+    private UUID businessId;
+
+    @Column(nullable = false)
+    private Long version;
+}
@@ -0,0 +1,47 @@
+package com.example.auth_service.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Событие об изменении бизнеса: пишется в той же транзакции, что и само изменение, рассылает OutboxRelay
+@Entity
+@Table(name = "business_outbox")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    public enum Type { BUSINESS_CREATED, BUSINESS_UPDATED, EMPLOYEES_CHANGED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID businessId;
+
+    // версия бизнеса после изменения, см. BusinessVersion
+    @Column(nullable = false)
+    private Long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    // null — ещё не доставлено всем подписчикам
+    private Instant deliveredAt;
+
+    @Column(nullable = false)
+    private int attempts;
+}
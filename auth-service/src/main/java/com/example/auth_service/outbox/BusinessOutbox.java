@@ -0,0 +1,41 @@
+package com.example.auth_service.outbox;
+
+import com.example.auth_service.entity.model.OutboxEvent;
+import com.example.auth_service.repository.BusinessVersionRepository;
+import com.example.auth_service.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Запись об изменении бизнеса или его сотрудников в outbox. Вызывается из той же транзакции,
+ * что меняет данные (MANDATORY не даст вызвать вне её): откат изменения откатывает и событие,
+ * а зафиксированное изменение обязательно дойдёт до подписчиков через OutboxRelay.
+ * Любой новый код, меняющий Business или Employee, должен вызывать businessChanged.
+ */
+@Component
+@RequiredArgsConstructor
+public class BusinessOutbox {
+
+    private final BusinessVersionRepository versionRepository;
+    private final OutboxEventRepository eventRepository;
+
+    // возвращает новую версию бизнеса
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long businessChanged(UUID businessId, OutboxEvent.Type type) {
+        long version = versionRepository.increment(businessId);
+        Instant now = Instant.now();
+        eventRepository.save(OutboxEvent.builder()
+                .businessId(businessId)
+                .version(version)
+                .type(type)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+        return version;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.auth_service.outbox;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+
+@Configuration
+@EnableScheduling
+public class OutboxConfig {
+
+    // Builder от Spring Boot — с observation, вызовы подписчиков попадают в трассы
+    @Bean
+    public RestClient outboxRestClient(RestClient.Builder builder, OutboxProperties properties) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(properties.getRequestTimeout())
+                .build());
+        requestFactory.setReadTimeout(properties.getRequestTimeout());
+        return builder.requestFactory(requestFactory).build();
+    }
+}
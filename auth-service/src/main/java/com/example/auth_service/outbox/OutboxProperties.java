@@ -0,0 +1,29 @@
+package com.example.auth_service.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Рассылка изменений бизнеса (app.outbox): куда, как часто и сколько хранить доставленное
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+
+    private boolean enabled = true;
+    // webhook-и подписчиков; событие доставлено, когда его принял каждый
+    private List<String> subscribers = new ArrayList<>();
+    private Duration pollInterval = Duration.ofSeconds(1);
+    private int batchSize = 100;
+    private Duration requestTimeout = Duration.ofSeconds(2);
+    // пауза после неудачной доставки удваивается до max-backoff
+    private Duration minBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofMinutes(1);
+    // доставленные события хранятся retention и удаляются раз в cleanup-interval
+    private Duration retention = Duration.ofDays(1);
+    private Duration cleanupInterval = Duration.ofHours(1);
+}
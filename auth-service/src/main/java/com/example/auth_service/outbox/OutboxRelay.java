@@ -0,0 +1,139 @@
+package com.example.auth_service.outbox;
+
+import com.example.auth_service.entity.dto.Request_BusinessContextEventsDTO;
+import com.example.auth_service.entity.model.OutboxEvent;
+import com.example.auth_service.repository.OutboxEventRepository;
+import com.example.auth_service.security.JwtService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Доставляет события outbox подписчикам (webhook ai-service). Пачка выбирается FOR UPDATE SKIP LOCKED
+ * и отмечается доставленной в той же транзакции только после ответа 2xx от всех подписчиков,
+ * поэтому доставка «хотя бы раз»: после сбоя пачка уйдёт повторно, а подписчик отбрасывает
+ * версии не новее уже виденной. Внутри пачки события одного бизнеса схлопываются в последнюю версию.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository repository;
+    private final TransactionTemplate transactions;
+    private final RestClient restClient;
+    private final JwtService jwtService;
+    private final OutboxProperties properties;
+    private final Counter delivered;
+    private final Counter failures;
+    private final Timer lag;
+
+    public OutboxRelay(OutboxEventRepository repository,
+                       PlatformTransactionManager transactionManager,
+                       @Qualifier("outboxRestClient") RestClient restClient,
+                       JwtService jwtService,
+                       OutboxProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.restClient = restClient;
+        this.jwtService = jwtService;
+        this.properties = properties;
+        this.delivered = Counter.builder("outbox.delivered")
+                .description("События outbox, принятые всеми подписчиками")
+                .register(meterRegistry);
+        this.failures = Counter.builder("outbox.failures")
+                .description("Неудачные попытки доставить пачку outbox")
+                .register(meterRegistry);
+        this.lag = Timer.builder("outbox.lag")
+                .description("От записи события до его доставки")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:1s}")
+    public void relay() {
+        if (!properties.isEnabled() || properties.getSubscribers().isEmpty()) return;
+        // полная пачка — скорее всего, есть ещё: разбираем без ожидания следующего тика
+        while (Boolean.TRUE.equals(transactions.execute(status -> relayBatch()))) {
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval:1h}")
+    public void cleanup() {
+        Integer deleted = transactions.execute(status ->
+                repository.deleteDeliveredBefore(Instant.now().minus(properties.getRetention())));
+        if (deleted != null && deleted > 0) logger.debug("Outbox: {} delivered events removed", deleted);
+    }
+
+    private boolean relayBatch() {
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = repository.lockPending(now, properties.getBatchSize());
+        if (batch.isEmpty()) return false;
+
+        Request_BusinessContextEventsDTO request = toRequest(batch);
+        String token = jwtService.generateServiceToken("auth-service");
+        for (String subscriber : properties.getSubscribers()) {
+            try {
+                restClient.post()
+                        .uri(subscriber)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(request)
+                        .retrieve()
+                        .toBodilessEntity();
+            } catch (RestClientException e) {
+                // отметки о повторе фиксируются вместе с транзакцией, блокировки снимаются
+                for (OutboxEvent event : batch) {
+                    event.setAttempts(event.getAttempts() + 1);
+                    event.setNextAttemptAt(now.plus(backoff(event.getAttempts())));
+                }
+                failures.increment();
+                logger.warn("Outbox: {} events not delivered to {} (attempt {}): {}",
+                        batch.size(), subscriber, batch.get(0).getAttempts(), e.getMessage());
+                return false;
+            }
+        }
+
+        for (OutboxEvent event : batch) {
+            event.setDeliveredAt(now);
+            lag.record(Duration.between(event.getCreatedAt(), now));
+        }
+        delivered.increment(batch.size());
+        return batch.size() == properties.getBatchSize();
+    }
+
+    private static Request_BusinessContextEventsDTO toRequest(List<OutboxEvent> batch) {
+        // пачка упорядочена по id, поэтому последняя запись бизнеса — с наибольшей версией
+        Map<UUID, OutboxEvent> latest = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            latest.put(event.getBusinessId(), event);
+        }
+        return new Request_BusinessContextEventsDTO(latest.values().stream()
+                .map(event -> new Request_BusinessContextEventsDTO.Event(
+                        event.getBusinessId().toString(), event.getVersion(), event.getType().name()))
+                .toList());
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = properties.getMinBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : delay;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.auth_service.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(BcryptEvent.NAME)
+@Label("BCrypt")
+@Category({"Copilot", "auth-service"})
+@StackTrace(false)
+class BcryptEvent extends Event {
+
+    static final String NAME = "copilot.auth.Bcrypt";
+
+    @Label("Request Id")
+    String requestId;
+
+    // encode или matches
+    @Label("Operation")
+    String operation;
+
+    // log2 числа раундов из хэша; -1 — хэш не BCrypt
+    @Label("Cost")
+    int cost;
+}
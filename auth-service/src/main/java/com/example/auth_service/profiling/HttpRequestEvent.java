@@ -0,0 +1,35 @@
+package com.example.auth_service.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(HttpRequestEvent.NAME)
+@Label("HTTP Request")
+@Category({"Copilot", "auth-service"})
+@StackTrace(false)
+class HttpRequestEvent extends Event {
+
+    static final String NAME = "copilot.auth.HttpRequest";
+
+    @Label("Request Id")
+    String requestId;
+
+    @Label("Method")
+    String method;
+
+    // шаблон маршрута (/api/business/{businessId}), а не сырой URI
+    @Label("Route")
+    String route;
+
+    @Label("Status")
+    int status;
+
+    // запрос обрабатывается синхронно, поэтому servlet-поток — это весь запрос
+    @Label("Allocated (servlet thread)")
+    @DataAmount
+    long servletAllocatedBytes;
+}
@@ -0,0 +1,27 @@
+package com.example.auth_service.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Выполнение SQL, который сгенерировал Hibernate; значения параметров не пишутся
+@Name(JdbcQueryEvent.NAME)
+@Label("JDBC Query")
+@Category({"Copilot", "auth-service"})
+@StackTrace(false)
+class JdbcQueryEvent extends Event {
+
+    static final String NAME = "copilot.auth.JdbcQuery";
+
+    @Label("Request Id")
+    String requestId;
+
+    @Label("SQL")
+    String sql;
+
+    // execute, executeQuery, executeUpdate, executeBatch
+    @Label("Method")
+    String method;
+}
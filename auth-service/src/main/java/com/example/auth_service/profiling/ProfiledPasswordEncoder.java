@@ -0,0 +1,57 @@
+package com.example.auth_service.profiling;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Хэширование и проверка пароля как JFR-событие: BCrypt — самая дорогая часть входа
+public class ProfiledPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    public ProfiledPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        BcryptEvent event = new BcryptEvent();
+        event.begin();
+        String encoded = delegate.encode(rawPassword);
+        commit(event, "encode", encoded);
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        BcryptEvent event = new BcryptEvent();
+        event.begin();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            commit(event, "matches", encodedPassword);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static void commit(BcryptEvent event, String operation, String encoded) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.requestId = RequestIds.current();
+        event.operation = operation;
+        event.cost = cost(encoded);
+        event.commit();
+    }
+
+    // $2a$10$... — число раундов стоит между вторым и третьим '$'
+    static int cost(String encoded) {
+        if (encoded == null || encoded.length() < 7 || encoded.charAt(0) != '$' || encoded.charAt(6) != '$') return -1;
+        try {
+            return Integer.parseInt(encoded.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.auth_service.profiling;
+
+import com.example.common.profiling.ProfiledJwtDecoder;
+import com.example.common.profiling.SlowRequestRecorder;
+import com.example.common.profiling.SlowRequestsEndpoint;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+@Configuration
+public class ProfilingConfig {
+
+    // static: BeanPostProcessor должен создаваться раньше остальных бинов конфигурации
+    @Bean
+    public static BeanPostProcessor profilingDataSourcePostProcessor(
+            ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProfilingDataSource)) {
+                    return new ProfilingDataSource(dataSource, observationRegistry);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SlowRequestRecorder slowRequestRecorder(
+            @Value("${app.profiling.enabled:true}") boolean enabled,
+            @Value("${app.profiling.slowest:20}") int slowest,
+            @Value("${app.profiling.max-pending:10000}") int maxPending,
+            @Value("${app.profiling.max-stages:100}") int maxStages) {
+        return new SlowRequestRecorder(enabled, slowest, maxPending, maxStages, HttpRequestEvent.NAME, List.of(
+                new SlowRequestRecorder.StageType(BcryptEvent.NAME, event -> "bcrypt",
+                        event -> event.getString("operation") + ", cost " + event.getInt("cost")),
+                new SlowRequestRecorder.StageType(JdbcQueryEvent.NAME, event -> "jdbc",
+                        event -> event.getString("sql")),
+                ProfiledJwtDecoder.stage()));
+    }
+
+    @Bean
+    public SlowRequestsEndpoint slowRequestsEndpoint(SlowRequestRecorder recorder) {
+        return new SlowRequestsEndpoint(recorder);
+    }
+}
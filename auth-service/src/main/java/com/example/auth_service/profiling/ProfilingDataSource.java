@@ -0,0 +1,107 @@
+package com.example.auth_service.profiling;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Пишет JdbcQueryEvent на каждое выполнение Statement: так JPA-запросы видны в разбивке
+ * медленного запроса вместе с текстом SQL (без значений параметров). Каждое выполнение —
+ * ещё и observation jdbc.query: спан под серверным спаном запроса.
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    private static final int MAX_SQL_LENGTH = 500;
+
+    private final ObjectProvider<ObservationRegistry> observationRegistry;
+    private volatile ObservationRegistry observations;
+
+    public ProfilingDataSource(DataSource target, ObjectProvider<ObservationRegistry> observationRegistry) {
+        super(target);
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                ProfilingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement) {
+                        // prepareStatement(sql, ...) — текст известен заранее, для Statement он придёт в execute
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                        return wrap(statement, method.getReturnType(), sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Object wrap(Statement statement, Class<?> type, String preparedSql) {
+        return Proxy.newProxyInstance(
+                ProfilingDataSource.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) return invoke(statement, method, args);
+                    String sql = abbreviate(args != null && args.length > 0 && args[0] instanceof String text
+                            ? text : preparedSql);
+                    JdbcQueryEvent event = new JdbcQueryEvent();
+                    event.begin();
+                    try {
+                        return Observation.createNotStarted("jdbc.query", observations())
+                                .contextualName("jdbc " + method.getName())
+                                .lowCardinalityKeyValue("jdbc.method", method.getName())
+                                .highCardinalityKeyValue("db.statement", sql == null ? "" : sql)
+                                .observeChecked(() -> invoke(statement, method, args));
+                    } finally {
+                        event.end();
+                        if (event.shouldCommit()) {
+                            event.requestId = RequestIds.current();
+                            event.sql = sql;
+                            event.method = method.getName();
+                            event.commit();
+                        }
+                    }
+                });
+    }
+
+    // DataSource создаётся раньше ObservationRegistry, поэтому реестр берётся при первом запросе
+    private ObservationRegistry observations() {
+        ObservationRegistry registry = observations;
+        if (registry == null) {
+            registry = observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP);
+            observations = registry;
+        }
+        return registry;
+    }
+
+    private static String abbreviate(String sql) {
+        return sql == null || sql.length() <= MAX_SQL_LENGTH ? sql : sql.substring(0, MAX_SQL_LENGTH);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.auth_service.profiling;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Идентификатор запроса (X-Request-Id): ai-service передаёт свой, иначе создаётся фильтром.
+ * Хранится в потоке запроса и попадает во все JFR-события этого запроса.
+ */
+public final class RequestIds {
+
+    public static final String HEADER = "X-Request-Id";
+
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RequestIds() {
+    }
+
+    static String resolve(String header) {
+        return header != null && VALID.matcher(header).matches() ? header : UUID.randomUUID().toString();
+    }
+
+    static void set(String requestId) {
+        CURRENT.set(requestId);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    // пусто — поток не обрабатывает запрос (старт приложения, фоновые задачи)
+    public static String current() {
+        String id = CURRENT.get();
+        return id != null ? id : "";
+    }
+}
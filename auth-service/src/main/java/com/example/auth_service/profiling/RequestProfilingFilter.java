@@ -0,0 +1,57 @@
+package com.example.auth_service.profiling;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Назначает запросу X-Request-Id (в ответ, в MDC и для JFR-событий) и пишет HttpRequestEvent
+ * с объёмом памяти, выделенной потоком запроса. Стоит раньше Spring Security, чтобы проверка JWT
+ * попала в тот же запрос.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestProfilingFilter extends OncePerRequestFilter {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requestId = RequestIds.resolve(request.getHeader(RequestIds.HEADER));
+        response.setHeader(RequestIds.HEADER, requestId);
+        RequestIds.set(requestId);
+        MDC.put("requestId", requestId);
+
+        HttpRequestEvent event = new HttpRequestEvent();
+        event.begin();
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                event.requestId = requestId;
+                event.method = request.getMethod();
+                event.route = route != null ? route.toString() : "unmatched";
+                event.status = response.getStatus();
+                event.servletAllocatedBytes = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+                event.commit();
+            }
+            MDC.remove("requestId");
+            RequestIds.clear();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.auth_service.repository;
+
+import com.example.auth_service.entity.model.BusinessVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.UUID;
+
+public interface BusinessVersionRepository extends JpaRepository<BusinessVersion, UUID> {
+
+    // Одним запросом и под блокировкой строки: параллельные изменения одного бизнеса получают разные версии
+    @Query(value = """
+            INSERT INTO business_versions (business_id, version) VALUES (:businessId, 1)
+            ON CONFLICT (business_id) DO UPDATE SET version = business_versions.version + 1
+            RETURNING version
+            """, nativeQuery = true)
+    long increment(@Param("businessId") UUID businessId);
+}
@@ -0,0 +1,27 @@
+package com.example.auth_service.repository;
+
+import com.example.auth_service.entity.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // SKIP LOCKED: несколько экземпляров auth-service разбирают outbox, не мешая друг другу
+    @Query(value = """
+            SELECT * FROM business_outbox
+            WHERE delivered_at IS NULL AND next_attempt_at <= :now
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockPending(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.deliveredAt < :before")
+    int deleteDeliveredBefore(@Param("before") Instant before);
+}
@@ -1,5 +1,9 @@
 package com.example.auth_service.security;
 
+import com.example.auth_service.profiling.RequestIds;
+import com.example.common.profiling.ProfiledJwtDecoder;
+import com.example.common.security.CachingJwtDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import jakarta.annotation.PostConstruct;
@@ -26,6 +30,12 @@ public class JwtService {
     @Value("${app.jwt.expiration-second}")
     private long expirationSecond;
 
+    @Value("${app.jwt.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${app.jwt.cache.max-size:4096}")
+    private int cacheMaxSize;
+
     private SecretKey secretKey;
 
     @PostConstruct
@@ -49,9 +59,26 @@ public class JwtService {
                 .compact();
     }
 
+    // Короткоживущий токен для вызовов между сервисами: вместо userId и businessId — claim service
+    public String generateServiceToken(String service) {
+        Instant now = Instant.now();
+
+        return Jwts.builder()
+                .setSubject(service)
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plusSeconds(300)))
+                .addClaims(Map.of("service", service))
+                .signWith(secretKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder(MeterRegistry meterRegistry) {
         SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        return NimbusJwtDecoder.withSecretKey(key).build();
+        JwtDecoder decoder = NimbusJwtDecoder.withSecretKey(key).build();
+        if (cacheEnabled) {
+            decoder = new CachingJwtDecoder(decoder, cacheMaxSize, meterRegistry);
+        }
+        return new ProfiledJwtDecoder(decoder, RequestIds::current);
     }
 }
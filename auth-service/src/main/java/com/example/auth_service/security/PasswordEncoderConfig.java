@@ -1,5 +1,6 @@
 package com.example.auth_service.security;
 
+import com.example.auth_service.profiling.ProfiledPasswordEncoder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -9,6 +10,6 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class PasswordEncoderConfig {
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new ProfiledPasswordEncoder(new BCryptPasswordEncoder());
     }
 }
@@ -39,6 +39,9 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        // топ медленных запросов раскрывает чужие запросы — только межсервисный токен
+                        .requestMatchers("/actuator/slowrequests", "/actuator/slowrequests/**").hasRole("SERVICE")
                         .requestMatchers("/api/business/**").authenticated()
                         .anyRequest().authenticated()
                 )
@@ -81,7 +84,9 @@ public class SecurityConfig {
             String businessId = jwt.getClaimAsString("businessId");
 
             var authorities = new ArrayList<GrantedAuthority>();
-            authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+            // межсервисный токен (JwtService.generateServiceToken) пользователем не является
+            authorities.add(new SimpleGrantedAuthority(
+                    jwt.getClaimAsString("service") != null ? "ROLE_SERVICE" : "ROLE_USER"));
             return authorities;
         });
 
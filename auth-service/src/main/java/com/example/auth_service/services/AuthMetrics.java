@@ -0,0 +1,52 @@
+package com.example.auth_service.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Метрики входа и выдачи контекста бизнеса: auth.operation{operation, outcome} — вызов целиком,
+ * auth.stage{operation, stage} — этапы (поиск пользователя, BCrypt, выпуск токена, запросы в БД).
+ * Ни email, ни id бизнеса в теги не попадают.
+ */
+@Component
+public class AuthMetrics {
+
+    public static final String LOGIN = "login";
+    public static final String BUSINESS_INFO = "business_info";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public AuthMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T stage(String operation, String stage, Supplier<T> action) {
+        return timer("auth.stage", "operation", operation, "stage", stage).record(action);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    // outcome — только success, user_not_found, bad_credentials, business_not_found или error
+    // (любое непредвиденное исключение); имя класса исключения в тег не передавать
+    public void finish(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(timer("auth.operation", "operation", operation, "outcome", outcome));
+    }
+
+    private Timer timer(String name, String... tags) {
+        return timers.computeIfAbsent(name + String.join("|", tags), key -> Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry));
+    }
+}
@@ -3,20 +3,24 @@ package com.example.auth_service.services;
 import com.example.auth_service.entity.dto.*;
 import com.example.auth_service.entity.model.Business;
 import com.example.auth_service.entity.model.Employee;
+import com.example.auth_service.entity.model.OutboxEvent;
 import com.example.auth_service.entity.model.User;
 import com.example.auth_service.exceptions.BadCredentialsException;
 import com.example.auth_service.exceptions.BusinessNotFound;
 import com.example.auth_service.exceptions.UserAlreadyExistsException;
 import com.example.auth_service.exceptions.UserNotFoundException;
+import com.example.auth_service.outbox.BusinessOutbox;
 import com.example.auth_service.repository.BusinessRepository;
 import com.example.auth_service.repository.EmployeeRepository;
 import com.example.auth_service.repository.UserRepository;
 import com.example.auth_service.security.JwtService;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -31,10 +35,14 @@ public class AuthServiceImpl implements AuthService {
     private final EmployeeRepository employeeRepository;
     private final PasswordEncoder encoder;
     private final JwtService jwtService;
+    private final AuthMetrics metrics;
+    private final BusinessOutbox outbox;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthServiceImpl.class);
 
+    // Одна транзакция: компания, сотрудники и событие outbox фиксируются вместе
     @Override
+    @Transactional
     public Response_RegisterCompanyDTO registerCompany(Request_RegisterCompany dto) throws UserAlreadyExistsException{
         if(userRepository.findByEmail(dto.ownerEmail()).isPresent()){
             throw new UserAlreadyExistsException("User already exists !");
@@ -73,6 +81,8 @@ public class AuthServiceImpl implements AuthService {
             logger.debug("Employees have been registered successfully");
         }
 
+        outbox.businessChanged(business.getUuid(), OutboxEvent.Type.BUSINESS_CREATED);
+
         String token = jwtService.generateToken(user.getUuid(), user.getEmail(), business.getUuid());
         logger.debug("Token has been created successfully");
         return new Response_RegisterCompanyDTO(token);
@@ -80,31 +90,67 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public Response_LoginDTO loginUser(Request_LoginDTO dto) throws UserNotFoundException, BadCredentialsException, BusinessNotFound {
-        Optional<User> user = userRepository.findByEmail(dto.email());
-        if(user.isEmpty()){
-            logger.info("User with email {} not found", dto.email());
-            throw new UserNotFoundException("User not found!");
-        }
-
-        if(!encoder.matches(dto.password(),user.get().getPassword())){
-            logger.info("Passwords don't match");
-            throw new BadCredentialsException("Wrong password!");
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try {
+            Optional<User> user = metrics.stage(AuthMetrics.LOGIN, "user_lookup",
+                    () -> userRepository.findByEmail(dto.email()));
+            if(user.isEmpty()){
+                logger.info("User with email {} not found", dto.email());
+                outcome = "user_not_found";
+                throw new UserNotFoundException("User not found!");
+            }
+
+            if(!metrics.stage(AuthMetrics.LOGIN, "password_check",
+                    () -> encoder.matches(dto.password(),user.get().getPassword()))){
+                logger.info("Passwords don't match");
+                outcome = "bad_credentials";
+                throw new BadCredentialsException("Wrong password!");
+            }
+
+            Optional<Business> business = metrics.stage(AuthMetrics.LOGIN, "business_lookup",
+                    () -> businessRepository.findFirstByOwner(user.get()));
+            if(business.isEmpty()){
+                outcome = "business_not_found";
+                throw new BusinessNotFound("Business for user not found !");
+            }
+
+            String token = metrics.stage(AuthMetrics.LOGIN, "token",
+                    () -> jwtService.generateToken(user.get().getUuid(), user.get().getEmail(), business.get().getUuid()));
+            logger.info("Token generated");
+
+            outcome = "success";
+            return new Response_LoginDTO(token);
+        } finally {
+            metrics.finish(sample, AuthMetrics.LOGIN, outcome);
         }
-
-        Business business = businessRepository.findFirstByOwner(user.get()).orElseThrow(() -> new BusinessNotFound("Business for user not found !"));
-
-        String token = jwtService.generateToken(user.get().getUuid(), user.get().getEmail(), business.getUuid());
-        logger.info("Token generated");
-
-        return new Response_LoginDTO(token);
     }
 
     @Override
     public Response_BusinessContextDTO businessInfo(UUID businessId) throws BusinessNotFound {
-        Business business = businessRepository.findById(businessId).orElseThrow(() -> new BusinessNotFound("Business for user not found !"));
-
-        List<Employee> employees = employeeRepository.findByBusiness(business);
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try {
+            Optional<Business> found = metrics.stage(AuthMetrics.BUSINESS_INFO, "business_lookup",
+                    () -> businessRepository.findById(businessId));
+            if(found.isEmpty()){
+                outcome = "business_not_found";
+                throw new BusinessNotFound("Business for user not found !");
+            }
+            Business business = found.get();
+
+            List<Employee> employees = metrics.stage(AuthMetrics.BUSINESS_INFO, "employees",
+                    () -> employeeRepository.findByBusiness(business));
+
+            Response_BusinessContextDTO response = toContext(business, employees);
+            outcome = "success";
+            return response;
+        } finally {
+            metrics.finish(sample, AuthMetrics.BUSINESS_INFO, outcome);
+        }
+    }
 
+    private static Response_BusinessContextDTO toContext(Business business, List<Employee> employees) {
         return new Response_BusinessContextDTO(
                 business.getUuid().toString(),
                 business.getName(),
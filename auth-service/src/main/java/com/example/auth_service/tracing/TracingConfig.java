@@ -0,0 +1,37 @@
+package com.example.auth_service.tracing;
+
+import com.example.common.tracing.JsonSpanExporter;
+import com.example.common.tracing.TailSamplingSpanProcessor;
+import com.example.common.tracing.TracingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Серверный спан продолжает трассу ai-service по заголовку traceparent, под ним — спаны SQL
+ * из ProfilingDataSource. Экспортёр подключается только к TailSamplingSpanProcessor.
+ */
+@Configuration
+@EnableConfigurationProperties(TracingProperties.class)
+public class TracingConfig {
+
+    @Bean
+    public TailSamplingSpanProcessor tailSamplingSpanProcessor(TracingProperties properties,
+                                                               MeterRegistry meterRegistry) {
+        return new TailSamplingSpanProcessor(BatchSpanProcessor.builder(exporter(properties)).build(),
+                properties, meterRegistry);
+    }
+
+    private static SpanExporter exporter(TracingProperties properties) {
+        return switch (properties.getExporter()) {
+            case "file" -> JsonSpanExporter.toFile(properties.getFile());
+            case "otlp" -> OtlpHttpSpanExporter.builder().setEndpoint(properties.getOtlpEndpoint()).build();
+            case "none" -> SpanExporter.composite();
+            default -> JsonSpanExporter.toLog();
+        };
+    }
+}
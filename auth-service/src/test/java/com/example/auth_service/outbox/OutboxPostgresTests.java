@@ -0,0 +1,292 @@
+package com.example.auth_service.outbox;
+
+import com.example.auth_service.entity.model.OutboxEvent;
+import com.example.auth_service.repository.BusinessVersionRepository;
+import com.example.auth_service.repository.OutboxEventRepository;
+import com.example.auth_service.security.JwtService;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Запросы outbox зависят от Postgres (ON CONFLICT, FOR UPDATE SKIP LOCKED), поэтому и тест — на настоящем Postgres
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BusinessOutbox.class)
+// транзакции ведёт сам тест: SKIP LOCKED и OutboxRelay нужны отдельные, а не одна общая на метод
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxPostgresTests {
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private BusinessVersionRepository versionRepository;
+    @Autowired
+    private OutboxEventRepository eventRepository;
+    @Autowired
+    private BusinessOutbox outbox;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactions;
+    private HttpServer stub;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        if (postgres != null) postgres.close();
+    }
+
+    @BeforeEach
+    void clean() {
+        transactions = new TransactionTemplate(transactionManager);
+        eventRepository.deleteAllInBatch();
+        versionRepository.deleteAllInBatch();
+    }
+
+    @AfterEach
+    void stopStub() {
+        if (stub != null) stub.stop(0);
+    }
+
+    @Test
+    void concurrentIncrementsGetDistinctVersions() throws Exception {
+        UUID businessId = UUID.randomUUID();
+        Set<Long> versions = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                futures.add(pool.submit(() -> versions.add(transactions.execute(status -> versionRepository.increment(businessId)))));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(versions).hasSize(40).contains(1L, 40L);
+        assertThat(transactions.execute(status -> versionRepository.increment(UUID.randomUUID()))).isEqualTo(1L);
+    }
+
+    @Test
+    void businessChangedWritesEventInCallersTransactionOnly() {
+        UUID businessId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> outbox.businessChanged(businessId, OutboxEvent.Type.BUSINESS_UPDATED))
+                .isInstanceOf(IllegalTransactionStateException.class);
+
+        assertThat(transactions.execute(status -> outbox.businessChanged(businessId, OutboxEvent.Type.BUSINESS_CREATED))).isEqualTo(1L);
+        // откат изменения откатывает и событие вместе с версией
+        transactions.executeWithoutResult(status -> {
+            outbox.businessChanged(businessId, OutboxEvent.Type.EMPLOYEES_CHANGED);
+            status.setRollbackOnly();
+        });
+        assertThat(transactions.execute(status -> outbox.businessChanged(businessId, OutboxEvent.Type.BUSINESS_UPDATED))).isEqualTo(2L);
+
+        assertThat(events()).extracting(OutboxEvent::getVersion, OutboxEvent::getType, OutboxEvent::getDeliveredAt)
+                .containsExactly(
+                        tuple(1L, OutboxEvent.Type.BUSINESS_CREATED, null),
+                        tuple(2L, OutboxEvent.Type.BUSINESS_UPDATED, null));
+    }
+
+    @Test
+    void lockPendingSkipsRowsLockedByAnotherRelay() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            change(UUID.randomUUID());
+        }
+        Instant now = Instant.now();
+        eventRepository.save(event(UUID.randomUUID(), now.plusSeconds(60), null));
+        eventRepository.save(event(UUID.randomUUID(), now.minusSeconds(60), now.minusSeconds(30)));
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<List<Long>> first = new AtomicReference<>();
+        Thread other = new Thread(() -> transactions.executeWithoutResult(status -> {
+            first.set(ids(eventRepository.lockPending(Instant.now(), 2)));
+            locked.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        other.start();
+        try {
+            assertThat(locked.await(30, TimeUnit.SECONDS)).isTrue();
+            List<Long> second = transactions.execute(status -> ids(eventRepository.lockPending(Instant.now(), 10)));
+
+            // отложенное и доставленное не выбираются, занятые другим экземпляром — пропускаются
+            assertThat(first.get()).hasSize(2);
+            assertThat(second).hasSize(2).doesNotContainAnyElementsOf(first.get());
+            assertThat(first.get().get(1)).isLessThan(second.get(0));
+        } finally {
+            release.countDown();
+            other.join(30_000);
+        }
+    }
+
+    @Test
+    void cleanupRemovesOnlyOldDeliveredEvents() {
+        Instant now = Instant.now();
+        eventRepository.save(event(UUID.randomUUID(), now.minus(Duration.ofDays(3)), now.minus(Duration.ofDays(2))));
+        OutboxEvent recent = eventRepository.save(event(UUID.randomUUID(), now.minusSeconds(60), now.minusSeconds(30)));
+        OutboxEvent pending = eventRepository.save(event(UUID.randomUUID(), now.minus(Duration.ofDays(3)), null));
+
+        relay(new OutboxProperties(), "http://127.0.0.1:1").cleanup();
+
+        assertThat(ids(events())).containsExactly(recent.getId(), pending.getId());
+    }
+
+    @Test
+    void failedBatchIsRetriedWithBackoffAndDeliveredOnce() throws IOException {
+        AtomicInteger status = new AtomicInteger(503);
+        List<String> bodies = new CopyOnWriteArrayList<>();
+        List<String> authorizations = new CopyOnWriteArrayList<>();
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.createContext("/events", exchange -> {
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        stub.start();
+
+        OutboxProperties properties = new OutboxProperties();
+        properties.setMinBackoff(Duration.ofSeconds(1));
+        properties.setMaxBackoff(Duration.ofSeconds(4));
+        OutboxRelay relay = relay(properties, "http://127.0.0.1:" + stub.getAddress().getPort() + "/events");
+
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        change(first);
+        change(first);
+        change(second);
+
+        // пауза удваивается с каждой неудачей: 1s, 2s, 4s и дальше не растёт
+        long[] expectedBackoff = {1, 2, 4, 4};
+        for (int attempt = 1; attempt <= expectedBackoff.length; attempt++) {
+            makeDue();
+            Instant before = Instant.now();
+            relay.relay();
+            Instant after = Instant.now();
+            Duration backoff = Duration.ofSeconds(expectedBackoff[attempt - 1]);
+            for (OutboxEvent event : events()) {
+                assertThat(event.getDeliveredAt()).isNull();
+                assertThat(event.getAttempts()).isEqualTo(attempt);
+                assertThat(event.getNextAttemptAt())
+                        .isBetween(before.plus(backoff).minusMillis(1), after.plus(backoff));
+            }
+        }
+        assertThat(bodies).hasSize(4);
+
+        // до истечения паузы пачка не отправляется
+        relay.relay();
+        assertThat(bodies).hasSize(4);
+
+        status.set(204);
+        makeDue();
+        relay.relay();
+        assertThat(events()).allSatisfy(event -> assertThat(event.getDeliveredAt()).isNotNull());
+        assertThat(bodies).hasSize(5);
+        // события одного бизнеса схлопнуты в последнюю версию
+        assertThat(bodies.get(4))
+                .contains("{\"businessId\":\"" + first + "\",\"version\":2,")
+                .contains("{\"businessId\":\"" + second + "\",\"version\":1,")
+                .containsOnlyOnce(first.toString());
+        assertThat(authorizations).containsOnly("Bearer service-token");
+
+        // доставленное повторно не уходит
+        makeDue();
+        relay.relay();
+        assertThat(bodies).hasSize(5);
+    }
+
+    private OutboxRelay relay(OutboxProperties properties, String subscriber) {
+        properties.setSubscribers(List.of(subscriber));
+        JwtService jwtService = mock(JwtService.class);
+        when(jwtService.generateServiceToken("auth-service")).thenReturn("service-token");
+        return new OutboxRelay(eventRepository, transactionManager, RestClient.create(), jwtService, properties,
+                new SimpleMeterRegistry());
+    }
+
+    private void change(UUID businessId) {
+        transactions.execute(status -> outbox.businessChanged(businessId, OutboxEvent.Type.BUSINESS_UPDATED));
+    }
+
+    // пауза после неудачи истекла, не дожидаясь её по часам
+    private void makeDue() {
+        transactions.executeWithoutResult(status -> eventRepository.findAll()
+                .forEach(event -> event.setNextAttemptAt(Instant.now().minusSeconds(1))));
+    }
+
+    private List<OutboxEvent> events() {
+        return eventRepository.findAll().stream().sorted(Comparator.comparing(OutboxEvent::getId)).toList();
+    }
+
+    private static OutboxEvent event(UUID businessId, Instant createdAt, Instant deliveredAt) {
+        return OutboxEvent.builder()
+                .businessId(businessId)
+                .version(1L)
+                .type(OutboxEvent.Type.BUSINESS_UPDATED)
+                .createdAt(createdAt)
+                .nextAttemptAt(createdAt)
+                .deliveredAt(deliveredAt)
+                .build();
+    }
+
+    private static List<Long> ids(List<OutboxEvent> events) {
+        return events.stream().map(OutboxEvent::getId).toList();
+    }
+}
@@ -0,0 +1,27 @@
+#!/usr/bin/env bash
+# Сборка и прогон JMH-бенчмарков с профилировщиком аллокаций.
+#   ./run.sh                  — все бенчмарки, результат в baselines/<sha>.json
+#   ./run.sh Prompt -p employees=1000 — фильтр и любые аргументы JMH
+#   SKIP_BUILD=1 ./run.sh ... — без пересборки сервисов и модуля
+#   MVN=/path/to/mvn ./run.sh — Maven для модуля benchmarks (сервисы собираются своим mvnw)
+# Сравнение с прошлым baseline:
+#   java -cp target/benchmarks.jar com.example.benchmarks.BaselineCompare baselines/<old>.json baselines/<new>.json
+set -euo pipefail
+cd "$(dirname "$0")"
+
+if [[ -z "${SKIP_BUILD:-}" ]]; then
+  (cd ../service-common && ./mvnw -q -DskipTests install)
+  (cd ../ai-service && ./mvnw -q -DskipTests install)
+  (cd ../auth-service && ./mvnw -q -DskipTests install)
+  "${MVN:-mvn}" -q -DskipTests package
+fi
+
+sha=$(git rev-parse --short HEAD)
+# незакоммиченные изменения не должны выдавать себя за baseline коммита
+if ! git diff --quiet HEAD -- ../service-common ../ai-service ../auth-service .; then
+  sha="${sha}-dirty"
+fi
+mkdir -p baselines
+
+java -jar target/benchmarks.jar -prof gc -rf json -rff "baselines/${sha}.json" "$@"
+echo "Результат: baselines/${sha}.json"
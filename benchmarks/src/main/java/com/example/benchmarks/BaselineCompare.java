@@ -0,0 +1,125 @@
+package com.example.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Сравнивает два JSON-результата JMH (-rf json), например baseline коммита и текущий прогон:
+ *
+ *   java -cp target/benchmarks.jar com.example.benchmarks.BaselineCompare baselines/a1b2c3d.json current.json [порог%]
+ *
+ * По каждому бенчмарку с параметрами печатает изменение score и gc.alloc.rate.norm (байт на операцию,
+ * есть при -prof gc). Регрессия — время выросло больше порога и больше суммарной погрешности обоих
+ * прогонов, либо аллокации на операцию выросли больше порога. При регрессии код выхода 1.
+ */
+public final class BaselineCompare {
+
+    private static final String ALLOC = "gc.alloc.rate.norm";
+    private static final double DEFAULT_THRESHOLD = 10.0;
+
+    private record Result(double score, double error, String unit, boolean higherIsBetter, Double alloc) { }
+
+    private BaselineCompare() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Использование: BaselineCompare <baseline.json> <current.json> [порог %, по умолчанию 10]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-80s %14s %14s %9s %12s %12s %9s%n",
+                "benchmark", "baseline", "current", "Δ%", "alloc B/op", "alloc B/op", "Δ%");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-80s %14s %14.3f %9s%n", entry.getKey(), "—", now.score(), "new");
+                continue;
+            }
+
+            double scoreDelta = percent(before.score(), now.score());
+            // для thrpt хуже — меньше, для avgt/sample/ss — больше
+            double worse = now.higherIsBetter() ? before.score() - now.score() : now.score() - before.score();
+            boolean slower = worse > 0
+                    && Math.abs(scoreDelta) > threshold
+                    && worse > safe(before.error()) + safe(now.error());
+
+            boolean allocates = false;
+            String allocColumns = String.format("%12s %12s %9s", "—", "—", "");
+            if (before.alloc() != null && now.alloc() != null) {
+                double allocDelta = percent(before.alloc(), now.alloc());
+                // пара байт на операцию — шум выравнивания, а не регрессия
+                allocates = now.alloc() - before.alloc() > 16 && allocDelta > threshold;
+                allocColumns = String.format("%12.0f %12.0f %+8.1f%%", before.alloc(), now.alloc(), allocDelta);
+            }
+
+            String mark = slower || allocates ? "  <-- регрессия" : "";
+            if (!mark.isEmpty()) regressions++;
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%% %s %s%s%n",
+                    entry.getKey(), before.score(), now.score(), scoreDelta, allocColumns, now.unit(), mark);
+        }
+        for (String missing : baseline.keySet()) {
+            if (!current.containsKey(missing)) System.out.printf("%-80s %s%n", missing, "нет в текущем прогоне");
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%nРегрессий: %d (порог %.1f%%)%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    // benchmark и параметры образуют ключ: PromptBenchmark.render{employees=1000}
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(shortName(run.path("benchmark").asText()));
+            JsonNode params = run.path("params");
+            if (params.isObject() && !params.isEmpty()) {
+                key.append('{');
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    key.append(param.getKey()).append('=').append(param.getValue().asText());
+                    if (fields.hasNext()) key.append(',');
+                }
+                key.append('}');
+            }
+            key.append(" [").append(run.path("mode").asText()).append(']');
+
+            JsonNode primary = run.path("primaryMetric");
+            JsonNode alloc = run.path("secondaryMetrics").path(ALLOC);
+            results.put(key.toString(), new Result(
+                    primary.path("score").asDouble(),
+                    primary.path("scoreError").asDouble(Double.NaN),
+                    primary.path("scoreUnit").asText(),
+                    "thrpt".equals(run.path("mode").asText()),
+                    alloc.isMissingNode() ? null : alloc.path("score").asDouble()));
+        }
+        return results;
+    }
+
+    private static String shortName(String benchmark) {
+        String prefix = BaselineCompare.class.getPackageName() + ".";
+        return benchmark.startsWith(prefix) ? benchmark.substring(prefix.length()) : benchmark;
+    }
+
+    private static double percent(double before, double now) {
+        return before == 0 ? 0 : (now - before) / before * 100;
+    }
+
+    // у одной итерации JMH погрешность NaN
+    private static double safe(double error) {
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
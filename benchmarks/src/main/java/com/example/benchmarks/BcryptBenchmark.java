@@ -0,0 +1,57 @@
+package com.example.benchmarks;
+
+import com.example.auth_service.profiling.ProfiledPasswordEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка пароля при входе для разных cost BCrypt. В сервисе стоит 10 (BCryptPasswordEncoder
+ * по умолчанию); каждая единица cost удваивает время, по этим числам выбирается цена
+ * повышения cost и сколько входов в секунду выдержит один поток.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BcryptBenchmark {
+
+    private static final String PASSWORD = "correct-horse-battery-staple";
+
+    @Param({"4", "8", "10", "12"})
+    public int cost;
+
+    private PasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = new ProfiledPasswordEncoder(new BCryptPasswordEncoder(cost));
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, hash);
+    }
+
+    // Неверный пароль стоит столько же: BCrypt всегда считает хэш целиком
+    @Benchmark
+    public boolean mismatch() {
+        return encoder.matches("wrong-password", hash);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.benchmarks;
+
+import com.example.ai_service.entity.dto.BusinessContextDTO;
+import com.example.ai_service.entity.dto.EmployeeDTO;
+import com.example.ai_service.entity.dto.OpenAIChatRequest;
+import com.example.ai_service.prompts.ConstantPrompts;
+import com.example.ai_service.services.context.BusinessContextRenderer;
+import com.example.ai_service.services.llm.ChatRequestEncoder;
+import com.example.ai_service.services.llm.TokenCounter;
+import com.example.ai_service.services.tools.ToolRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Тело запроса /chat/completions: ChatRequestEncoder против ObjectMapper, на котором он проверяется.
+ * Запрос типичный для copilot-режима — system prompt с контекстом на 100 сотрудников,
+ * шесть реплик истории и сообщение пользователя; tools=true добавляет описание send_email.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatRequestJsonBenchmark {
+
+    @Param({"false", "true"})
+    public boolean tools;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ChatRequestEncoder encoder;
+    private OpenAIChatRequest request;
+
+    @Setup
+    public void setUp() {
+        ConstantPrompts prompts = new ConstantPrompts();
+        encoder = new ChatRequestEncoder(prompts);
+
+        List<EmployeeDTO> staff = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            staff.add(new EmployeeDTO("Сотрудник " + i, "employee" + i + "@example.com", i % 3 == 0 ? "Повар" : "Курьер"));
+        }
+        BusinessContextRenderer renderer = new BusinessContextRenderer(new TokenCounter("o200k_base"), 1500);
+        String context = renderer.render(renderer.prepare(new BusinessContextDTO(
+                "5f0c7a1e-0000-4000-8000-000000000001", "Кофейня у дома", "общепит", "Иван Петров", "1 200 000", staff)), "");
+
+        List<OpenAIChatRequest.Message> messages = new ArrayList<>();
+        messages.add(new OpenAIChatRequest.Message("system", prompts.systemPrompt("copilot", context)));
+        for (int i = 0; i < 3; i++) {
+            messages.add(new OpenAIChatRequest.Message("user", "Придумай \"акцию\" на выходные №" + i));
+            messages.add(new OpenAIChatRequest.Message("assistant", "Вот идея:\n1. Скидка 20% на второй кофе\n2. Завтрак до 11:00"));
+        }
+        messages.add(new OpenAIChatRequest.Message("user", "Напиши и отправь письмо повару про новое меню"));
+
+        request = new OpenAIChatRequest();
+        request.setModel("llama-3.3-70b-versatile");
+        request.setMessages(messages);
+        request.setTemperature(0.7);
+        request.setMax_tokens(1024);
+        request.setStream(true);
+        // как в ChatService.buildRequest
+        if (tools) {
+            request.setTools(new ToolRegistry().tools(Set.of(ToolRegistry.SEND_EMAIL)));
+            request.setTool_choice("auto");
+        } else {
+            request.setTool_choice("none");
+        }
+    }
+
+    @Benchmark
+    public byte[] encoder() {
+        return encoder.encode(request);
+    }
+
+    @Benchmark
+    public byte[] jackson() throws Exception {
+        return objectMapper.writeValueAsBytes(request);
+    }
+}
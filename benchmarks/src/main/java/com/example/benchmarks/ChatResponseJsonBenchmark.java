@@ -0,0 +1,82 @@
+package com.example.benchmarks;
+
+import com.example.ai_service.entity.dto.OpenAIChatResponse;
+import com.example.ai_service.entity.dto.OpenAIChatStreamChunk;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор ответа LLM: целый OpenAIChatResponse (без стрима) и кадр потока OpenAIChatStreamChunk.
+ * Маппер ответа собран как у WebClient в Spring Boot — лишние поля провайдера пропускаются,
+ * кадры разбираются обычным ObjectMapper, как в LlmClient.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatResponseJsonBenchmark {
+
+    private static final String TEXT_RESPONSE = """
+            {"id":"chatcmpl-7a1e","object":"chat.completion","created":1730000000,"model":"llama-3.3-70b-versatile",
+             "choices":[{"index":0,"message":{"role":"assistant","content":"Добрый день! Вот три идеи для акции на выходные:\\n1. Второй кофе за полцены до 11:00.\\n2. Завтрак с круассаном и капучино по фиксированной цене.\\n3. Скидка 10% по карте постоянного гостя.\\nНапишите, если нужно подготовить текст для соцсетей."},
+             "logprobs":null,"finish_reason":"stop"}],
+             "usage":{"queue_time":0.02,"prompt_tokens":1187,"prompt_time":0.05,"completion_tokens":96,"completion_time":0.3,"total_tokens":1283,"total_time":0.35},
+             "system_fingerprint":"fp_3f3b593e33","x_groq":{"id":"req_01"}}
+            """;
+
+    private static final String TOOL_CALL_RESPONSE = """
+            {"id":"chatcmpl-7a1f","object":"chat.completion","created":1730000000,"model":"llama-3.3-70b-versatile",
+             "choices":[{"index":0,"message":{"role":"assistant","content":null,"tool_calls":[{"id":"call_9k2d","type":"function",
+             "function":{"name":"send_email","arguments":"{\\"to\\":\\"employee3@example.com\\",\\"subject\\":\\"Новое меню\\",\\"body\\":\\"Добрый день! С понедельника в меню появляются сезонные супы. Прошу подготовить заготовки и уточнить закупку у поставщика до пятницы.\\"}"}}]},
+             "logprobs":null,"finish_reason":"tool_calls"}],
+             "usage":{"prompt_tokens":1302,"completion_tokens":74,"total_tokens":1376},
+             "system_fingerprint":"fp_3f3b593e33"}
+            """;
+
+    private static final String TEXT_CHUNK = """
+            {"id":"chatcmpl-7a1e","object":"chat.completion.chunk","created":1730000000,"model":"llama-3.3-70b-versatile","choices":[{"index":0,"delta":{"content":" полцены"},"logprobs":null,"finish_reason":null}]}""";
+
+    private static final String TOOL_CALL_CHUNK = """
+            {"id":"chatcmpl-7a1f","object":"chat.completion.chunk","created":1730000000,"model":"llama-3.3-70b-versatile","choices":[{"index":0,"delta":{"tool_calls":[{"index":0,"function":{"arguments":"\\"subject\\":\\"Новое меню\\","}}]},"logprobs":null,"finish_reason":null}]}""";
+
+    @Param({"text", "tool_call"})
+    public String kind;
+
+    private final ObjectMapper responseMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper chunkMapper = new ObjectMapper();
+    private byte[] response;
+    private String chunk;
+
+    @Setup
+    public void setUp() {
+        boolean toolCall = "tool_call".equals(kind);
+        response = (toolCall ? TOOL_CALL_RESPONSE : TEXT_RESPONSE).getBytes(StandardCharsets.UTF_8);
+        chunk = toolCall ? TOOL_CALL_CHUNK : TEXT_CHUNK;
+    }
+
+    @Benchmark
+    public OpenAIChatResponse response() throws Exception {
+        return responseMapper.readValue(response, OpenAIChatResponse.class);
+    }
+
+    @Benchmark
+    public OpenAIChatStreamChunk streamChunk() throws Exception {
+        return chunkMapper.readValue(chunk, OpenAIChatStreamChunk.class);
+    }
+}
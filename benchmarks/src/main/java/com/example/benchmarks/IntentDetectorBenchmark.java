@@ -0,0 +1,94 @@
+package com.example.benchmarks;
+
+import com.example.ai_service.services.tools.ToolIntentDetector;
+import com.example.ai_service.services.tools.ToolRegistry;
+import com.example.ai_service.services.tools.ToolTriggerProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выбор функций для сообщения по размеченному корпусу из тестов ai-service (intent/messages.tsv);
+ * одна операция — весь корпус. ToolIntentDetector сравнивается с прежним поиском подстрок:
+ * substringScanLegacy — четыре фразы бывшего ChatService.shouldEnableEmailTool,
+ * substringScanAllTriggers — тот же поиск по всем фразам из application.yaml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntentDetectorBenchmark {
+
+    // app.tools.triggers.send_email из application.yaml ai-service
+    private static final List<String> TRIGGERS = List.of(
+            "напиши и отправь письмо", "напиши письмо и отправь", "напиши и отправь email",
+            "составь и отправь письмо", "составь письмо и отправь", "отправь письмо", "отправь email",
+            "отправь на почту", "отправь по почте", "пошли письмо", "перешли письмо", "разошли письмо");
+
+    private static final List<String> LEGACY_PHRASES = List.of(
+            "напиши и отправь письмо", "напиши письмо и отправь", "напиши и отправь e-mail", "напиши и отправь email");
+
+    private ToolIntentDetector detector;
+    private String[] messages;
+
+    @Setup
+    public void setUp() throws IOException {
+        ToolTriggerProperties properties = new ToolTriggerProperties();
+        properties.setTriggers(Map.of(ToolRegistry.SEND_EMAIL, TRIGGERS));
+        detector = new ToolIntentDetector(properties, new ToolRegistry());
+        try (InputStream in = IntentDetectorBenchmark.class.getResourceAsStream("/intent/messages.tsv")) {
+            messages = Arrays.stream(new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n"))
+                    .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                    .map(line -> line.split("\t", 2)[1])
+                    .toArray(String[]::new);
+        }
+    }
+
+    @Benchmark
+    public void detect(Blackhole blackhole) {
+        for (String message : messages) {
+            blackhole.consume(detector.detect(message));
+        }
+    }
+
+    @Benchmark
+    public void substringScanLegacy(Blackhole blackhole) {
+        for (String message : messages) {
+            blackhole.consume(containsAny(message, LEGACY_PHRASES));
+        }
+    }
+
+    @Benchmark
+    public void substringScanAllTriggers(Blackhole blackhole) {
+        for (String message : messages) {
+            blackhole.consume(containsAny(message, TRIGGERS));
+        }
+    }
+
+    // как было: toLowerCase и contains по каждой фразе
+    private static boolean containsAny(String message, List<String> phrases) {
+        String lower = message.toLowerCase();
+        for (String phrase : phrases) {
+            if (lower.contains(phrase)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.benchmarks;
+
+import com.example.ai_service.security.JwtConfig;
+import com.example.auth_service.security.JwtService;
+import com.example.common.security.CachingJwtDecoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.lang.reflect.Field;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выпуск токена при входе (jjwt в auth-service) и его проверка на каждом запросе:
+ * декодеры собираются теми же бинами, что в сервисах, — Nimbus HS256 под ProfiledJwtDecoder.
+ * Секрет и срок жизни подставляются в @Value-поля вместо конфигурации Spring.
+ *
+ * decode* — один и тот же токен, как у фронтенда в течение часа (попадание в CachingJwtDecoder),
+ * *Uncached — app.jwt.cache.enabled=false, decodeCacheMiss — токены вытесняют друг друга,
+ * то есть полная проверка плюс накладные расходы кэша.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "473f314815a9826fc0e1499530433bf6cacf87d972e0cc7b4c6351a7980e2f6d";
+
+    private final UUID userId = UUID.fromString("0b7e3c2a-1d4f-4e5a-9c6b-7d8e9f0a1b2c");
+    private final UUID businessId = UUID.fromString("5f0c7a1e-0000-4000-8000-000000000001");
+    private JwtService jwtService;
+    private JwtDecoder aiDecoder;
+    private JwtDecoder authDecoder;
+    private JwtDecoder aiDecoderUncached;
+    private JwtDecoder authDecoderUncached;
+    private JwtDecoder thrashingDecoder;
+    private String token;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtService = new JwtService();
+        set(jwtService, "secret", SECRET);
+        // токен не должен истечь за время прогона
+        set(jwtService, "expirationSecond", 86_400L);
+        jwtService.init();
+        authDecoder = authDecoder(jwtService, true);
+        authDecoderUncached = authDecoder(jwtService, false);
+        aiDecoder = aiDecoder(true);
+        aiDecoderUncached = aiDecoder(false);
+
+        token = jwtService.generateToken(userId, "owner@example.com", businessId);
+        tokens = new String[64];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = jwtService.generateToken(UUID.randomUUID(), "owner" + i + "@example.com", businessId);
+        }
+        // два слота на 64 токена: почти каждое обращение — промах с вытеснением
+        thrashingDecoder = new CachingJwtDecoder(aiDecoder(false), 2, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(userId, "owner@example.com", businessId);
+    }
+
+    @Benchmark
+    public Jwt decodeAiService() {
+        return aiDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodeAuthService() {
+        return authDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodeAiServiceUncached() {
+        return aiDecoderUncached.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodeAuthServiceUncached() {
+        return authDecoderUncached.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodeCacheMiss() {
+        next = (next + 1) & (tokens.length - 1);
+        return thrashingDecoder.decode(tokens[next]);
+    }
+
+    private static JwtDecoder aiDecoder(boolean cacheEnabled) throws ReflectiveOperationException {
+        JwtConfig jwtConfig = new JwtConfig();
+        set(jwtConfig, "secretKey", SECRET);
+        set(jwtConfig, "cacheEnabled", cacheEnabled);
+        set(jwtConfig, "cacheMaxSize", 4096);
+        return jwtConfig.jwtDecoder(new SimpleMeterRegistry());
+    }
+
+    private static JwtDecoder authDecoder(JwtService jwtService, boolean cacheEnabled) throws ReflectiveOperationException {
+        set(jwtService, "cacheEnabled", cacheEnabled);
+        set(jwtService, "cacheMaxSize", 4096);
+        return jwtService.jwtDecoder(new SimpleMeterRegistry());
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.benchmarks;
+
+import com.example.ai_service.entity.dto.BusinessContextDTO;
+import com.example.ai_service.entity.dto.EmployeeDTO;
+import com.example.ai_service.prompts.ConstantPrompts;
+import com.example.ai_service.services.context.BusinessContextRenderer;
+import com.example.ai_service.services.llm.TokenCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сборка system prompt для компаний от 10 до 10 000 сотрудников.
+ * prepare — раз на загрузку контекста из auth-service, render и systemPrompt — на каждое сообщение.
+ * Бюджет контекста тот же, что в application.yaml (1500 токенов), поэтому у больших компаний
+ * render сводит часть сотрудников в счётчики по должностям.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptBenchmark {
+
+    private static final String[] POSITIONS = {"Курьер", "Повар", "Бариста", "Администратор", "Бухгалтер"};
+
+    @Param({"10", "100", "1000", "10000"})
+    public int employees;
+
+    private final ConstantPrompts prompts = new ConstantPrompts();
+    private BusinessContextRenderer renderer;
+    private BusinessContextDTO context;
+    private BusinessContextRenderer.Prepared prepared;
+    private String message;
+    private String rendered;
+
+    @Setup
+    public void setUp() {
+        renderer = new BusinessContextRenderer(new TokenCounter("o200k_base"), 1500);
+        List<EmployeeDTO> staff = new ArrayList<>(employees);
+        for (int i = 0; i < employees; i++) {
+            staff.add(new EmployeeDTO("Сотрудник Номер" + i, "employee" + i + "@example.com",
+                    POSITIONS[i % POSITIONS.length]));
+        }
+        context = new BusinessContextDTO("5f0c7a1e-0000-4000-8000-000000000001", "Кофейня у дома",
+                "общепит", "Иван Петров", "1 200 000", staff);
+        prepared = renderer.prepare(context);
+        // упоминание сотрудника и должности — путь с ранжированием, а не просто первые строки
+        message = "Напиши письмо сотруднику Номер" + (employees / 2) + ", он бухгалтер, про отчёт за месяц";
+        rendered = renderer.render(prepared, message);
+    }
+
+    @Benchmark
+    public BusinessContextRenderer.Prepared prepare() {
+        return renderer.prepare(context);
+    }
+
+    @Benchmark
+    public String render() {
+        return renderer.render(prepared, message);
+    }
+
+    @Benchmark
+    public String systemPrompt() {
+        return prompts.systemPrompt("copilot", rendered);
+    }
+
+    // Путь сообщения целиком: контекст уже подготовлен и лежит в кэше BusinessContextService
+    @Benchmark
+    public String renderAndSystemPrompt() {
+        return prompts.systemPrompt("copilot", renderer.render(prepared, message));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Итоги одной строки отчёта (операция на ступени). Задержка — в микросекундах от момента, когда
+ * запрос должен был уйти по расписанию, а не когда ушёл: если стенд или сервис не успевают,
+ * ожидание в очереди тоже попадает в перцентили (без coordinated omission).
+ * В гистограмму идут только успешные ответы, ошибки считаются по видам.
+ */
+final class EndpointStats {
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final String name;
+    private final Histogram latency = new ConcurrentHistogram(MAX_MICROS, 3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder degraded = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void ok(long micros, boolean degradedReply) {
+        latency.recordValue(Math.min(Math.max(micros, 1), MAX_MICROS));
+        ok.increment();
+        if (degradedReply) degraded.increment();
+    }
+
+    // status 0 — ответа нет: таймаут, обрыв соединения, событие error в потоке
+    void failed(int status) {
+        if (status == 429) rateLimited.increment();
+        else if (status >= 500) serverErrors.increment();
+        else if (status >= 400) clientErrors.increment();
+        else failures.increment();
+    }
+
+    // Запрос не отправлен: в полёте уже max-in-flight, стенд не держит заданный rps
+    void dropped() {
+        dropped.increment();
+    }
+
+    String name() {
+        return name;
+    }
+
+    Histogram latency() {
+        return latency;
+    }
+
+    long ok() {
+        return ok.sum();
+    }
+
+    long degraded() {
+        return degraded.sum();
+    }
+
+    long clientErrors() {
+        return clientErrors.sum();
+    }
+
+    long rateLimited() {
+        return rateLimited.sum();
+    }
+
+    long serverErrors() {
+        return serverErrors.sum();
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    long total() {
+        return ok() + clientErrors() + rateLimited() + serverErrors() + failures() + dropped();
+    }
+}
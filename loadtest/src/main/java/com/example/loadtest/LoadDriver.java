@@ -0,0 +1,103 @@
+package com.example.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Открытая модель нагрузки: запросы уходят строго по расписанию 1/rps независимо от того,
+ * ответили ли предыдущие, каждый — в своём виртуальном потоке. Так рост задержки сервиса
+ * не снижает поданную нагрузку, как было бы с фиксированным числом "пользователей".
+ * Сверх max-in-flight одновременных запросов новые не отправляются и считаются dropped.
+ */
+final class LoadDriver {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadDriver.class);
+
+    private final Workload workload;
+    private final Scenario scenario;
+    private final Scenario.Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    LoadDriver(Workload workload, Scenario scenario) {
+        this.workload = workload;
+        this.scenario = scenario;
+        List<Scenario.Operation> ops = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : scenario.mix().entrySet()) {
+            if (entry.getValue() == null || entry.getValue() <= 0) continue;
+            total += entry.getValue();
+            ops.add(Scenario.Operation.of(entry.getKey()));
+            weights.add(total);
+        }
+        if (ops.isEmpty()) throw new IllegalArgumentException("В mix нет операций с положительным весом");
+        this.operations = ops.toArray(new Scenario.Operation[0]);
+        this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    List<StageResult> run() throws InterruptedException {
+        List<StageResult> results = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(scenario.maxInFlight());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Scenario.Stage stage : scenario.stages()) {
+                logger.info("Stage '{}': {} rps for {}s{}", stage.name(), stage.rps(), stage.durationSeconds(),
+                        stage.warmup() ? " (warmup)" : "");
+                StageResult result = new StageResult(stage);
+                results.add(result);
+
+                long interval = (long) (1e9 / stage.rps());
+                long start = System.nanoTime();
+                long end = start + TimeUnit.SECONDS.toNanos(stage.durationSeconds());
+                // следующий слот считается от начала ступени, а не от "сейчас": паузы планировщика не копят отставание
+                for (long n = 0, next = start; next < end; n++, next = start + n * interval) {
+                    parkUntil(next);
+                    Scenario.Operation operation = pick();
+                    if (!inFlight.tryAcquire()) {
+                        result.stats(operation.key()).dropped();
+                        continue;
+                    }
+                    long scheduled = next;
+                    executor.execute(() -> {
+                        try {
+                            workload.execute(operation, scheduled, result);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            }
+
+            // ответы последней ступени дожидаются не дольше таймаута запроса
+            if (!inFlight.tryAcquire(scenario.maxInFlight(), scenario.requestTimeoutSeconds() + 5L, TimeUnit.SECONDS)) {
+                logger.warn("{} requests still in flight after the last stage", scenario.maxInFlight() - inFlight.availablePermits());
+                executor.shutdownNow();
+            }
+        }
+        return results;
+    }
+
+    private Scenario.Operation pick() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) return operations[i];
+        }
+        return operations[operations.length - 1];
+    }
+
+    private static void parkUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
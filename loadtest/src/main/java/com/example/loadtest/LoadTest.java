@@ -0,0 +1,96 @@
+package com.example.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Нагрузочный стенд целиком на одной машине и без сети: встроенный Postgres, заглушки LLM и SMTP,
+ * auth-service и ai-service из собранных jar, затем ступени сценария и отчёт.
+ *
+ *   cd loadtest && mvn -q compile exec:java -Dscenario=scenarios/mixed.yaml
+ */
+public final class LoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path home = Path.of(System.getProperty("loadtest.home", ".")).toAbsolutePath().normalize();
+        Path scenarioFile = Path.of(args.length > 0 ? args[0] : "scenarios/smoke.yaml");
+        if (!scenarioFile.isAbsolute() && !Files.exists(scenarioFile)) scenarioFile = home.resolve(scenarioFile);
+        Scenario scenario = Scenario.load(scenarioFile);
+
+        Path workDir = Files.createDirectories(home.resolve("target").resolve("loadtest"));
+        // журнал outbox от прошлого прогона заново разослал бы старые письма
+        Path outboxJournal = workDir.resolve("mail-outbox.log");
+        Files.deleteIfExists(outboxJournal);
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             StubLlmServer llm = new StubLlmServer(scenario.llm());
+             SmtpSink smtp = new SmtpSink(scenario.smtp())) {
+
+            Map<String, String> authProperties = new LinkedHashMap<>();
+            authProperties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+            authProperties.put("spring.datasource.username", "postgres");
+            authProperties.put("spring.datasource.password", "postgres");
+            // каждый SQL в лог и трассы в stdout сами по себе стали бы заметной нагрузкой
+            authProperties.put("spring.jpa.show-sql", "false");
+            authProperties.put("app.tracing.exporter", "none");
+            // порт ai-service для webhook outbox ещё не известен; кэш контекста на стенде живёт по ttl
+            authProperties.put("app.outbox.enabled", "false");
+            authProperties.putAll(scenario.authService());
+
+            try (ServiceProcess auth = ServiceProcess.start("auth-service", home.resolveSibling("auth-service"), authProperties, workDir)) {
+                auth.awaitHealthy(http, STARTUP_TIMEOUT);
+
+                Map<String, String> aiProperties = new LinkedHashMap<>();
+                aiProperties.put("spring.ai.openai.baseUrl", llm.baseUrl());
+                aiProperties.put("spring.ai.openai.apiKey", "loadtest");
+                aiProperties.put("app.auth.base-url", auth.baseUrl());
+                aiProperties.put("spring.mail.host", "127.0.0.1");
+                aiProperties.put("spring.mail.port", String.valueOf(smtp.port()));
+                aiProperties.put("spring.mail.username", "copilot@loadtest.local");
+                aiProperties.put("spring.mail.password", "loadtest");
+                aiProperties.put("spring.mail.properties.mail.smtp.auth", "false");
+                aiProperties.put("spring.mail.properties.mail.smtp.ssl.enable", "false");
+                aiProperties.put("app.mail.outbox.journal", outboxJournal.toString());
+                aiProperties.put("app.tracing.exporter", "none");
+                aiProperties.putAll(scenario.aiService());
+
+                try (ServiceProcess ai = ServiceProcess.start("ai-service", home.resolveSibling("ai-service"), aiProperties, workDir)) {
+                    ai.awaitHealthy(http, STARTUP_TIMEOUT);
+
+                    Workload workload = new Workload(http, scenario, auth.baseUrl(), ai.baseUrl());
+                    workload.seed();
+
+                    Instant startedAt = Instant.now();
+                    List<StageResult> results = new LoadDriver(workload, scenario).run();
+
+                    Report report = new Report(scenario, results, llm, smtp, startedAt);
+                    report.print(System.out);
+                    logger.info("Report written to {}", report.write(workDir));
+                }
+            }
+        }
+    }
+}
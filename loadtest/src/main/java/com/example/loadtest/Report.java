@@ -0,0 +1,113 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Таблица по ступеням и операциям в консоль и то же в JSON (target/loadtest/report-<сценарий>-<время>.json):
+ * сколько запросов ушло, сколько успешных в секунду, ошибки по видам и p50/p95/p99/max успешных ответов.
+ * Счётчики заглушек показывают, дошла ли нагрузка до LLM и SMTP.
+ */
+final class Report {
+
+    private final Scenario scenario;
+    private final List<StageResult> stages;
+    private final StubLlmServer llm;
+    private final SmtpSink smtp;
+    private final Instant startedAt;
+
+    Report(Scenario scenario, List<StageResult> stages, StubLlmServer llm, SmtpSink smtp, Instant startedAt) {
+        this.scenario = scenario;
+        this.stages = stages;
+        this.llm = llm;
+        this.smtp = smtp;
+        this.startedAt = startedAt;
+    }
+
+    void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%nScenario %s, started %s%n", scenario.name(), startedAt);
+        for (StageResult stage : stages) {
+            if (stage.stage().warmup()) continue;
+            out.printf(Locale.ROOT, "%nStage '%s': target %.1f rps, %d s%n", stage.stage().name(), stage.stage().rps(),
+                    stage.stage().durationSeconds());
+            out.printf(Locale.ROOT, "%-18s %8s %8s %8s %6s %6s %6s %6s %7s %9s %9s %9s %9s %9s%n",
+                    "endpoint", "sent", "ok", "ok/s", "4xx", "429", "5xx", "fail", "dropped", "degraded",
+                    "p50 ms", "p95 ms", "p99 ms", "max ms");
+            for (EndpointStats stats : stage.endpoints()) {
+                Histogram latency = stats.latency();
+                out.printf(Locale.ROOT, "%-18s %8d %8d %8.1f %6d %6d %6d %6d %7d %9d %9.1f %9.1f %9.1f %9.1f%n",
+                        stats.name(), stats.total(), stats.ok(), throughput(stats, stage),
+                        stats.clientErrors(), stats.rateLimited(), stats.serverErrors(), stats.failures(), stats.dropped(),
+                        stats.degraded(),
+                        millis(latency, 50), millis(latency, 95), millis(latency, 99), latency.getMaxValue() / 1000.0);
+            }
+        }
+        out.printf(Locale.ROOT, "%nStub LLM: %d requests (%d streamed, %d tool calls, %d injected failures); "
+                        + "SMTP sink: %d messages over %d connections%n",
+                llm.requests(), llm.streams(), llm.toolCalls(), llm.failures(), smtp.messages(), smtp.connections());
+    }
+
+    Path write(Path dir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode root = objectMapper.createObjectNode()
+                .put("scenario", scenario.name())
+                .put("startedAt", startedAt.toString());
+        ArrayNode stageNodes = root.putArray("stages");
+        for (StageResult stage : stages) {
+            ObjectNode stageNode = stageNodes.addObject()
+                    .put("name", stage.stage().name())
+                    .put("targetRps", stage.stage().rps())
+                    .put("durationSeconds", stage.stage().durationSeconds())
+                    .put("warmup", stage.stage().warmup());
+            ArrayNode endpoints = stageNode.putArray("endpoints");
+            for (EndpointStats stats : stage.endpoints()) {
+                Histogram latency = stats.latency();
+                endpoints.addObject()
+                        .put("name", stats.name())
+                        .put("sent", stats.total())
+                        .put("ok", stats.ok())
+                        .put("throughput", throughput(stats, stage))
+                        .put("clientErrors", stats.clientErrors())
+                        .put("rateLimited", stats.rateLimited())
+                        .put("serverErrors", stats.serverErrors())
+                        .put("failures", stats.failures())
+                        .put("dropped", stats.dropped())
+                        .put("degraded", stats.degraded())
+                        .put("p50Ms", millis(latency, 50))
+                        .put("p95Ms", millis(latency, 95))
+                        .put("p99Ms", millis(latency, 99))
+                        .put("maxMs", latency.getMaxValue() / 1000.0);
+            }
+        }
+        root.putObject("stubs")
+                .put("llmRequests", llm.requests())
+                .put("llmStreams", llm.streams())
+                .put("llmToolCalls", llm.toolCalls())
+                .put("llmInjectedFailures", llm.failures())
+                .put("smtpMessages", smtp.messages())
+                .put("smtpConnections", smtp.connections())
+                .put("smtpBytes", smtp.bytes());
+
+        Path file = dir.resolve("report-" + scenario.name() + "-" + startedAt.toString().replace(':', '-') + ".json");
+        objectMapper.writeValue(file.toFile(), root);
+        return file;
+    }
+
+    private static double throughput(EndpointStats stats, StageResult stage) {
+        return stats.ok() / (double) stage.stage().durationSeconds();
+    }
+
+    private static double millis(Histogram latency, double percentile) {
+        return latency.getTotalCount() == 0 ? 0 : latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сценарий из loadtest/scenarios/*.yaml: ступени нагрузки (rps и длительность), доли операций,
+ * сколько компаний завести заранее, поведение заглушек и дополнительные свойства сервисов.
+ * Ключи — kebab-case, как в application.yaml сервисов.
+ */
+public record Scenario(
+        String name,
+        List<Stage> stages,
+        // register, login, chat, chat-stream — относительные веса
+        Map<String, Integer> mix,
+        Seed seed,
+        List<String> messages,
+        String mode,
+        int requestTimeoutSeconds,
+        int maxInFlight,
+        StubLlmServer.Settings llm,
+        SmtpSink.Settings smtp,
+        Map<String, String> aiService,
+        Map<String, String> authService) {
+
+    // warmup-ступень прогревает JIT и пулы соединений и в отчёт не попадает
+    public record Stage(String name, double rps, int durationSeconds, boolean warmup) {
+        public Stage {
+            if (rps <= 0 || durationSeconds <= 0) {
+                throw new IllegalArgumentException("У ступени " + name + " нужны rps > 0 и duration-seconds > 0");
+            }
+            if (name == null) name = rps + " rps";
+        }
+    }
+
+    public record Seed(int companies, int employees) {
+        public Seed {
+            if (companies < 1) companies = 1;
+            if (employees < 0) employees = 0;
+        }
+    }
+
+    public Scenario {
+        if (stages == null || stages.isEmpty()) throw new IllegalArgumentException("В сценарии нет stages");
+        if (mix == null || mix.isEmpty()) throw new IllegalArgumentException("В сценарии нет mix");
+        for (String operation : mix.keySet()) {
+            if (Operation.of(operation) == null) {
+                throw new IllegalArgumentException("Неизвестная операция в mix: " + operation);
+            }
+        }
+        if (seed == null) seed = new Seed(10, 5);
+        if (messages == null || messages.isEmpty()) messages = List.of("Придумай акцию на выходные");
+        if (mode == null) mode = "copilot";
+        if (requestTimeoutSeconds <= 0) requestTimeoutSeconds = 60;
+        if (maxInFlight <= 0) maxInFlight = 2000;
+        if (llm == null) llm = StubLlmServer.Settings.defaults();
+        if (smtp == null) smtp = new SmtpSink.Settings(0);
+        if (aiService == null) aiService = Map.of();
+        if (authService == null) authService = Map.of();
+    }
+
+    public static Scenario load(Path file) throws IOException {
+        ObjectMapper yaml = new ObjectMapper(new YAMLFactory())
+                .setPropertyNamingStrategy(PropertyNamingStrategies.KEBAB_CASE)
+                // опечатка в ключе не должна молча превращаться в значение по умолчанию
+                .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        Scenario scenario = yaml.readValue(file.toFile(), Scenario.class);
+        return scenario.name() != null ? scenario : scenario.withName(file.getFileName().toString().replaceFirst("\\.ya?ml$", ""));
+    }
+
+    private Scenario withName(String name) {
+        return new Scenario(name, stages, mix, seed, messages, mode, requestTimeoutSeconds, maxInFlight, llm, smtp,
+                aiService, authService);
+    }
+
+    /** Операции нагрузки: ключ в mix и название строки отчёта. */
+    public enum Operation {
+        REGISTER("register"),
+        LOGIN("login"),
+        CHAT("chat"),
+        CHAT_STREAM("chat-stream");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public static Operation of(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) return operation;
+            }
+            return null;
+        }
+    }
+}
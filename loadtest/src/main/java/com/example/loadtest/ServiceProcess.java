@@ -0,0 +1,121 @@
+package com.example.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис, запущенный отдельным процессом из собранного *-exec.jar — как в контейнере, со своей JVM.
+ * Свойства передаются аргументами --key=value и перекрывают application.yaml; вывод пишется
+ * в target/loadtest/<сервис>.log. JVM-опции — из переменной LOADTEST_JVM_OPTS.
+ */
+public final class ServiceProcess implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceProcess.class);
+
+    private final String name;
+    private final int port;
+    private final Process process;
+    private final Path log;
+
+    private ServiceProcess(String name, int port, Process process, Path log) {
+        this.name = name;
+        this.port = port;
+        this.process = process;
+        this.log = log;
+    }
+
+    public static ServiceProcess start(String name, Path serviceDir, Map<String, String> properties, Path workDir)
+            throws IOException {
+        Path jar = findJar(name, serviceDir);
+        int port = freePort();
+        Path log = workDir.resolve(name + ".log");
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        String jvmOptions = System.getenv("LOADTEST_JVM_OPTS");
+        if (jvmOptions != null && !jvmOptions.isBlank()) {
+            command.addAll(List.of(jvmOptions.trim().split("\\s+")));
+        }
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+        properties.forEach((key, value) -> command.add("--" + key + "=" + value));
+
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        logger.info("Started {} (pid {}) on port {}, log: {}", name, process.pid(), port, log);
+        return new ServiceProcess(name, port, process, log);
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    // /actuator/health открыт без токена в обоих сервисах
+    public void awaitHealthy(HttpClient http, Duration timeout) throws IOException, InterruptedException {
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl() + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " завершился с кодом " + process.exitValue() + ", см. " + log);
+            }
+            try {
+                if (http.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    logger.info("{} is up", name);
+                    return;
+                }
+            } catch (ConnectException e) {
+                // порт ещё не слушается
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(name + " не поднялся за " + timeout + ", см. " + log);
+    }
+
+    private static Path findJar(String name, Path serviceDir) throws IOException {
+        Path target = serviceDir.resolve("target");
+        if (Files.isDirectory(target)) {
+            try (DirectoryStream<Path> jars = Files.newDirectoryStream(target, "*-exec.jar")) {
+                for (Path jar : jars) return jar;
+            }
+        }
+        throw new IllegalStateException("Нет собранного " + name + ": выполните (cd service-common && ./mvnw"
+                + " -DskipTests install) и (cd " + serviceDir + " && ./mvnw -DskipTests package)");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            logger.warn("{} did not stop in 30s, killing", name);
+            process.destroyForcibly().waitFor();
+        }
+    }
+}
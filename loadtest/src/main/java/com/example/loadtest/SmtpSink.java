@@ -0,0 +1,142 @@
+package com.example.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SMTP-приёмник без TLS и проверки паролей: принимает всё, что шлёт EmailOutbox, и только считает
+ * письма. delay-millis — задержка ответа на DATA, чтобы изобразить медленный почтовый сервер.
+ */
+public final class SmtpSink implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpSink.class);
+
+    /** Ключ smtp в сценарии. */
+    public record Settings(int delayMillis) {
+    }
+
+    private final Settings settings;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    public SmtpSink(Settings settings) throws IOException {
+        this.settings = settings;
+        this.serverSocket = new ServerSocket(0, 256, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("smtp-sink").start(this::accept);
+        logger.info("SMTP sink on 127.0.0.1:{}", port());
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long connections() {
+        return connections.sum();
+    }
+
+    public long messages() {
+        return messages.sum();
+    }
+
+    public long bytes() {
+        return bytes.sum();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                connections.increment();
+                sessions.execute(() -> session(client));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) logger.warn("SMTP sink accept failed", e);
+            }
+        }
+    }
+
+    // Письмо читается как ISO-8859-1: байты тела не важны, важна только строка "."
+    private void session(Socket client) {
+        try (client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.ISO_8859_1));
+             OutputStream out = client.getOutputStream()) {
+            reply(out, "220 loadtest SMTP sink");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = (line.length() > 4 ? line.substring(0, 4) : line).toUpperCase(Locale.ROOT);
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-loadtest\r\n250-8BITMIME\r\n250-AUTH PLAIN LOGIN\r\n250 OK");
+                    case "HELO", "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "AUTH" -> auth(line, in, out);
+                    case "DATA" -> data(in, out);
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("SMTP session closed: {}", e.toString());
+        }
+    }
+
+    // AUTH PLAIN <ответ> — сразу; AUTH LOGIN — два запроса (логин и пароль), принимаются любые
+    private static void auth(String line, BufferedReader in, OutputStream out) throws IOException {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length < 3) {
+            int prompts = parts.length > 1 && "LOGIN".equalsIgnoreCase(parts[1]) ? 2 : 1;
+            for (int i = 0; i < prompts; i++) {
+                reply(out, "334 ");
+                if (in.readLine() == null) return;
+            }
+        }
+        reply(out, "235 Authentication successful");
+    }
+
+    private void data(BufferedReader in, OutputStream out) throws IOException {
+        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+        long size = 0;
+        String line;
+        while ((line = in.readLine()) != null && !".".equals(line)) {
+            size += line.length() + 2;
+        }
+        if (settings.delayMillis() > 0) {
+            try {
+                Thread.sleep(settings.delayMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        messages.increment();
+        bytes.add(size);
+        reply(out, "250 OK queued");
+    }
+
+    private static void reply(OutputStream out, String text) throws IOException {
+        out.write((text + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.loadtest;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Строки отчёта одной ступени; запрос пишет в ступень, на которой был запланирован
+final class StageResult {
+
+    private final Scenario.Stage stage;
+    private final ConcurrentSkipListMap<String, EndpointStats> endpoints = new ConcurrentSkipListMap<>();
+
+    StageResult(Scenario.Stage stage) {
+        this.stage = stage;
+    }
+
+    Scenario.Stage stage() {
+        return stage;
+    }
+
+    EndpointStats stats(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, EndpointStats::new);
+    }
+
+    Collection<EndpointStats> endpoints() {
+        return endpoints.values();
+    }
+}
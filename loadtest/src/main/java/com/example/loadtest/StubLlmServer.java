@@ -0,0 +1,313 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * OpenAI-совместимый /chat/completions без модели: ждёт "время до первого токена", затем отдаёт
+ * completion-tokens токенов со скоростью tokens-per-second — целиком или кадрами SSE при stream: true.
+ * Если в запросе есть tools и tool_choice не "none", с вероятностью tool-call-rate вместо текста
+ * приходит вызов send_email (получатель — первый e-mail из сообщения пользователя).
+ * error-rate и rate-limit-rate — доли ответов 500 и 429 для проверки повторов и circuit breaker.
+ */
+public final class StubLlmServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubLlmServer.class);
+
+    private static final Pattern EMAIL = Pattern.compile("[\\w.+-]+@[\\w-]+(\\.[\\w-]+)+");
+    private static final String[] WORDS = {
+            " Вот", " несколько", " идей", " для", " вашего", " бизнеса", ":", " скидка", " на", " второй",
+            " кофе", ",", " завтрак", " до", " 11:00", " и", " карта", " постоянного", " гостя", "."};
+    private static final int TOOL_ARGUMENT_TOKENS = 60;
+    private static final byte[] DONE = "data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /** Поведение заглушки; ключ llm в сценарии. */
+    public record Settings(int firstTokenMillis, int jitterMillis, double tokensPerSecond, int completionTokens,
+                           int tokensPerChunk, Double toolCallRate, double errorRate, double rateLimitRate) {
+        public Settings {
+            if (tokensPerSecond <= 0) tokensPerSecond = 100;
+            // не задано — модель вызывает функцию всякий раз, когда ai-service её предложил
+            if (toolCallRate == null) toolCallRate = 1.0;
+            if (completionTokens <= 0) completionTokens = 150;
+            if (tokensPerChunk <= 0) tokensPerChunk = 1;
+        }
+
+        public static Settings defaults() {
+            return new Settings(400, 200, 100, 150, 1, 1.0, 0, 0);
+        }
+    }
+
+    private final Settings settings;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+    private final AtomicLong ids = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder streams = new LongAdder();
+    private final LongAdder toolCalls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public StubLlmServer(Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Stub LLM on {}", baseUrl());
+    }
+
+    // Значение для spring.ai.openai.baseUrl: ai-service дописывает /chat/completions
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long streams() {
+        return streams.sum();
+    }
+
+    public long toolCalls() {
+        return toolCalls.sum();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith("/chat/completions")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = objectMapper.readTree(body);
+            }
+            requests.increment();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double roll = random.nextDouble();
+            if (roll < settings.errorRate()) {
+                failures.increment();
+                sendJson(exchange, 500, error("server_error", "Stub LLM failure"));
+                return;
+            }
+            if (roll < settings.errorRate() + settings.rateLimitRate()) {
+                failures.increment();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                sendJson(exchange, 429, error("rate_limit_exceeded", "Stub LLM rate limit"));
+                return;
+            }
+
+            int promptTokens = promptTokens(request);
+            int completionTokens = request.hasNonNull("max_tokens")
+                    ? Math.min(settings.completionTokens(), request.get("max_tokens").asInt())
+                    : settings.completionTokens();
+            boolean toolCall = request.path("tools").size() > 0
+                    && !"none".equals(request.path("tool_choice").asText())
+                    && random.nextDouble() < settings.toolCallRate();
+            if (toolCall) {
+                toolCalls.increment();
+                completionTokens = TOOL_ARGUMENT_TOKENS;
+            }
+
+            sleepMillis(settings.firstTokenMillis() + (settings.jitterMillis() > 0 ? random.nextInt(settings.jitterMillis() + 1) : 0));
+            String id = "chatcmpl-stub-" + ids.incrementAndGet();
+            String model = request.path("model").asText("stub");
+            String arguments = toolCall ? toolArguments(request) : null;
+            if (request.path("stream").asBoolean(false)) {
+                streams.increment();
+                stream(exchange, id, model, promptTokens, completionTokens, arguments);
+            } else {
+                sleepNanos((long) (completionTokens / settings.tokensPerSecond() * 1e9));
+                sendJson(exchange, 200, completion(id, model, promptTokens, completionTokens, arguments));
+            }
+        } catch (IOException e) {
+            // ai-service отменил запрос (дедлайн, клиент ушёл) — для заглушки это норма
+            logger.debug("Stub LLM exchange aborted: {}", e.toString());
+        }
+    }
+
+    private void stream(HttpExchange exchange, String id, String model, int promptTokens, int completionTokens,
+                        String arguments) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+
+        ObjectNode delta = objectMapper.createObjectNode().put("role", "assistant");
+        if (arguments == null) delta.put("content", "");
+        writeEvent(out, chunk(id, model, delta, null));
+
+        long nanosPerChunk = (long) (settings.tokensPerChunk() / settings.tokensPerSecond() * 1e9);
+        long next = System.nanoTime();
+        if (arguments != null) {
+            // аргументы функции приходят кусками, как у настоящих провайдеров
+            int pieces = Math.max(1, completionTokens / settings.tokensPerChunk());
+            int step = Math.max(1, (arguments.length() + pieces - 1) / pieces);
+            for (int offset = 0; offset < arguments.length(); offset += step) {
+                next += nanosPerChunk;
+                sleepNanos(next - System.nanoTime());
+                ObjectNode toolDelta = objectMapper.createObjectNode();
+                ObjectNode call = toolDelta.putArray("tool_calls").addObject().put("index", 0);
+                if (offset == 0) call.put("id", "call_" + id).put("type", "function");
+                ObjectNode function = call.putObject("function");
+                if (offset == 0) function.put("name", "send_email");
+                function.put("arguments", arguments.substring(offset, Math.min(arguments.length(), offset + step)));
+                writeEvent(out, chunk(id, model, toolDelta, null));
+            }
+        } else {
+            for (int sent = 0; sent < completionTokens; sent += settings.tokensPerChunk()) {
+                next += nanosPerChunk;
+                sleepNanos(next - System.nanoTime());
+                StringBuilder text = new StringBuilder();
+                for (int i = sent; i < Math.min(completionTokens, sent + settings.tokensPerChunk()); i++) {
+                    text.append(WORDS[i % WORDS.length]);
+                }
+                writeEvent(out, chunk(id, model, objectMapper.createObjectNode().put("content", text.toString()), null));
+            }
+        }
+
+        writeEvent(out, chunk(id, model, objectMapper.createObjectNode(), arguments != null ? "tool_calls" : "stop"));
+        ObjectNode usage = objectMapper.createObjectNode();
+        usage.putArray("choices");
+        usage.set("usage", usage(promptTokens, completionTokens));
+        writeEvent(out, usage);
+        out.write(DONE);
+        out.flush();
+    }
+
+    private ObjectNode completion(String id, String model, int promptTokens, int completionTokens, String arguments) {
+        ObjectNode message = objectMapper.createObjectNode().put("role", "assistant");
+        if (arguments == null) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < completionTokens; i++) text.append(WORDS[i % WORDS.length]);
+            message.put("content", text.toString().trim());
+        } else {
+            message.putNull("content");
+            ObjectNode call = message.putArray("tool_calls").addObject()
+                    .put("id", "call_" + id)
+                    .put("type", "function");
+            call.putObject("function").put("name", "send_email").put("arguments", arguments);
+        }
+
+        ObjectNode response = header(id, model, "chat.completion");
+        response.putArray("choices").addObject()
+                .put("index", 0)
+                .<ObjectNode>set("message", message)
+                .put("finish_reason", arguments != null ? "tool_calls" : "stop");
+        response.set("usage", usage(promptTokens, completionTokens));
+        return response;
+    }
+
+    private ObjectNode chunk(String id, String model, ObjectNode delta, String finishReason) {
+        ObjectNode chunk = header(id, model, "chat.completion.chunk");
+        ObjectNode choice = chunk.putArray("choices").addObject().put("index", 0);
+        choice.set("delta", delta);
+        if (finishReason != null) choice.put("finish_reason", finishReason);
+        else choice.putNull("finish_reason");
+        return chunk;
+    }
+
+    private ObjectNode header(String id, String model, String object) {
+        return objectMapper.createObjectNode()
+                .put("id", id)
+                .put("object", object)
+                .put("created", System.currentTimeMillis() / 1000)
+                .put("model", model);
+    }
+
+    private ObjectNode usage(int promptTokens, int completionTokens) {
+        return objectMapper.createObjectNode()
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+    }
+
+    private ObjectNode error(String type, String message) {
+        ObjectNode error = objectMapper.createObjectNode();
+        error.putObject("error").put("type", type).put("message", message);
+        return error;
+    }
+
+    private String toolArguments(JsonNode request) throws IOException {
+        String to = "employee@loadtest.local";
+        ArrayNode messages = request.path("messages") instanceof ArrayNode array ? array : objectMapper.createArrayNode();
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (!"user".equals(messages.get(i).path("role").asText())) continue;
+            Matcher matcher = EMAIL.matcher(messages.get(i).path("content").asText());
+            if (matcher.find()) to = matcher.group();
+            break;
+        }
+        ObjectNode arguments = objectMapper.createObjectNode()
+                .put("to", to)
+                .put("subject", "Нагрузочный тест")
+                .put("body", "Добрый день! Это письмо отправлено заглушкой LLM во время нагрузочного теста.");
+        return objectMapper.writeValueAsString(arguments);
+    }
+
+    // ~4 символа на токен: для заглушки достаточно, usage нужен лимитам ai-service
+    private static int promptTokens(JsonNode request) {
+        int chars = 0;
+        for (JsonNode message : request.path("messages")) {
+            chars += message.path("content").asText("").length();
+        }
+        return Math.max(1, chars / 4);
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void writeEvent(OutputStream out, JsonNode data) throws IOException {
+        out.write("data: ".getBytes(StandardCharsets.UTF_8));
+        out.write(objectMapper.writeValueAsBytes(data));
+        out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void sleepMillis(long millis) {
+        sleepNanos(millis * 1_000_000);
+    }
+
+    private static void sleepNanos(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        while (nanos > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(nanos);
+            nanos = deadline - System.nanoTime();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
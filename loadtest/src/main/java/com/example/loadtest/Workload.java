@@ -0,0 +1,248 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Операции сценария против живых сервисов: регистрация компании, вход и чат (обычный и потоковый).
+ * Перед нагрузкой seed() регистрирует seed.companies компаний; вход и чат берут случайную из них.
+ * В сообщениях сценария {employee} заменяется на e-mail сотрудника этой компании — так письмо
+ * из вызова send_email уходит по адресу, который знает контекст бизнеса.
+ */
+final class Workload {
+
+    private static final Logger logger = LoggerFactory.getLogger(Workload.class);
+
+    private static final String PASSWORD = "loadtest-password";
+    private static final String[] POSITIONS = {"Курьер", "Повар", "Бариста", "Администратор", "Бухгалтер"};
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Scenario scenario;
+    private final String authUrl;
+    private final String aiUrl;
+    private final Duration timeout;
+    // e-mail уникальны между прогонами, даже если база переживёт стенд
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong companies = new AtomicLong();
+    private final List<Account> accounts = new ArrayList<>();
+
+    private static final class Account {
+        final String email;
+        final List<String> employees;
+        final String conversationId;
+        volatile String token;
+
+        Account(String email, List<String> employees, String conversationId) {
+            this.email = email;
+            this.employees = employees;
+            this.conversationId = conversationId;
+        }
+    }
+
+    Workload(HttpClient http, Scenario scenario, String authUrl, String aiUrl) {
+        this.http = http;
+        this.scenario = scenario;
+        this.authUrl = authUrl;
+        this.aiUrl = aiUrl;
+        this.timeout = Duration.ofSeconds(scenario.requestTimeoutSeconds());
+    }
+
+    void seed() throws Exception {
+        int count = scenario.seed().companies();
+        logger.info("Registering {} companies with {} employees each", count, scenario.seed().employees());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Account>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                futures.add(executor.submit(this::registerAccount));
+            }
+            for (Future<Account> future : futures) {
+                accounts.add(future.get());
+            }
+        }
+    }
+
+    private Account registerAccount() throws IOException, InterruptedException {
+        long number = companies.incrementAndGet();
+        Account account = newAccount(number);
+        HttpResponse<String> response = http.send(registerRequest(account, number), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Регистрация компании при подготовке: " + response.statusCode() + " " + response.body());
+        }
+        account.token = objectMapper.readTree(response.body()).path("token").asText();
+        return account;
+    }
+
+    // scheduledNanos — момент по расписанию; от него и считается задержка
+    void execute(Scenario.Operation operation, long scheduledNanos, StageResult result) {
+        EndpointStats stats = result.stats(operation.key());
+        try {
+            switch (operation) {
+                case REGISTER -> register(scheduledNanos, stats);
+                case LOGIN -> login(scheduledNanos, stats);
+                case CHAT -> chat(scheduledNanos, stats);
+                case CHAT_STREAM -> chatStream(scheduledNanos, stats, result.stats(operation.key() + " ttft"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.failed(0);
+        } catch (IOException e) {
+            // HttpTimeoutException и обрывы соединения
+            logger.debug("{} failed: {}", operation.key(), e.toString());
+            stats.failed(0);
+        }
+    }
+
+    private void register(long scheduledNanos, EndpointStats stats) throws IOException, InterruptedException {
+        long number = companies.incrementAndGet();
+        HttpResponse<Void> response = http.send(registerRequest(newAccount(number), number), HttpResponse.BodyHandlers.discarding());
+        complete(stats, response.statusCode(), scheduledNanos, false);
+    }
+
+    private void login(long scheduledNanos, EndpointStats stats) throws IOException, InterruptedException {
+        Account account = randomAccount();
+        HttpRequest request = json(authUrl + "/api/auth/login", Map.of("email", account.email, "password", PASSWORD)).build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 200) {
+            account.token = objectMapper.readTree(response.body()).path("token").asText(account.token);
+        }
+        complete(stats, response.statusCode(), scheduledNanos, false);
+    }
+
+    private void chat(long scheduledNanos, EndpointStats stats) throws IOException, InterruptedException {
+        Account account = randomAccount();
+        HttpResponse<String> response = http.send(chatRequest("/api/chat", account).build(), HttpResponse.BodyHandlers.ofString());
+        boolean degraded = false;
+        if (response.statusCode() == 200) {
+            JsonNode body = objectMapper.readTree(response.body());
+            degraded = body.path("degraded").asBoolean(false);
+        }
+        complete(stats, response.statusCode(), scheduledNanos, degraded);
+    }
+
+    // Время до первого события token/tool — отдельной строкой "chat-stream ttft"
+    private void chatStream(long scheduledNanos, EndpointStats stats, EndpointStats ttft) throws IOException, InterruptedException {
+        Account account = randomAccount();
+        HttpRequest request = chatRequest("/api/chat/stream", account)
+                .header("Accept", "text/event-stream")
+                .build();
+        HttpResponse<Stream<String>> response = http.send(request, HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            stats.failed(response.statusCode());
+            return;
+        }
+
+        boolean firstToken = false;
+        boolean degraded = false;
+        boolean error = false;
+        boolean rateLimited = false;
+        try (Stream<String> lines = response.body()) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (!line.startsWith("event:")) continue;
+                String event = line.substring("event:".length()).trim();
+                switch (event) {
+                    case "token", "tool" -> {
+                        if (!firstToken) {
+                            firstToken = true;
+                            ttft.ok(micros(scheduledNanos), false);
+                        }
+                    }
+                    case "degraded" -> degraded = true;
+                    case "error" -> error = true;
+                    case "rate_limited" -> rateLimited = true;
+                    default -> { }
+                }
+            }
+        }
+        // отказ в допуске к LLM приходит событием в уже открытом потоке — считаем как 429
+        if (rateLimited) stats.failed(429);
+        else if (error) stats.failed(0);
+        else stats.ok(micros(scheduledNanos), degraded);
+    }
+
+    private HttpRequest.Builder chatRequest(String path, Account account) throws IOException {
+        List<String> messages = scenario.messages();
+        String message = messages.get(ThreadLocalRandom.current().nextInt(messages.size()));
+        if (message.contains("{employee}")) {
+            String employee = account.employees.isEmpty()
+                    ? account.email
+                    : account.employees.get(ThreadLocalRandom.current().nextInt(account.employees.size()));
+            message = message.replace("{employee}", employee);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", message);
+        body.put("mode", scenario.mode());
+        body.put("conversationId", account.conversationId);
+        return json(aiUrl + path, body)
+                .header("Authorization", "Bearer " + account.token)
+                // столько же, сколько ждёт сам стенд: ai-service не работает дольше клиента
+                .header("X-Request-Timeout", String.valueOf(timeout.toMillis()));
+    }
+
+    private HttpRequest registerRequest(Account account, long number) throws IOException {
+        List<Map<String, String>> employees = new ArrayList<>(account.employees.size());
+        for (int i = 0; i < account.employees.size(); i++) {
+            employees.add(Map.of(
+                    "name", "Сотрудник " + i,
+                    "email", account.employees.get(i),
+                    "position", POSITIONS[i % POSITIONS.length]));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("ownerEmail", account.email);
+        body.put("ownerPassword", PASSWORD);
+        body.put("ownerName", "Владелец " + number);
+        body.put("companyName", "Компания " + number);
+        body.put("area", "общепит");
+        body.put("profit", 1_000_000L + number);
+        body.put("employees", employees);
+        return json(authUrl + "/api/auth/register-company", body).build();
+    }
+
+    private Account newAccount(long number) {
+        List<String> employees = new ArrayList<>(scenario.seed().employees());
+        for (int i = 0; i < scenario.seed().employees(); i++) {
+            employees.add("e" + i + "-" + runId + "-" + number + "@loadtest.local");
+        }
+        return new Account("owner-" + runId + "-" + number + "@loadtest.local", employees, "loadtest-" + runId + "-" + number);
+    }
+
+    private Account randomAccount() {
+        return accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+    }
+
+    private HttpRequest.Builder json(String url, Object body) throws IOException {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+    }
+
+    private static void complete(EndpointStats stats, int status, long scheduledNanos, boolean degraded) {
+        if (status >= 200 && status < 300) stats.ok(micros(scheduledNanos), degraded);
+        else stats.failed(status);
+    }
+
+    private static long micros(long scheduledNanos) {
+        return (System.nanoTime() - scheduledNanos) / 1_000;
+    }
+}
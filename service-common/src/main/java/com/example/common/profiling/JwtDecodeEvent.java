@@ -0,0 +1,23 @@
+package com.example.common.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// общее для обоих сервисов; какой сервис — видно по процессу, из которого снята запись
+@Name(JwtDecodeEvent.NAME)
+@Label("JWT Decode")
+@Category("Copilot")
+@StackTrace(false)
+class JwtDecodeEvent extends Event {
+
+    static final String NAME = "copilot.JwtDecode";
+
+    @Label("Request Id")
+    String requestId;
+
+    @Label("Valid")
+    boolean valid;
+}
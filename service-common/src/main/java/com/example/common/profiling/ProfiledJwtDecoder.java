@@ -0,0 +1,43 @@
+package com.example.common.profiling;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.util.function.Supplier;
+
+// Разбор и проверка подписи токена как JFR-событие
+public class ProfiledJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    // X-Request-Id текущего запроса; у каждого сервиса свой способ его хранить
+    private final Supplier<String> requestId;
+
+    public ProfiledJwtDecoder(JwtDecoder delegate, Supplier<String> requestId) {
+        this.delegate = delegate;
+        this.requestId = requestId;
+    }
+
+    // Этап "jwt" в разбивке SlowRequestRecorder
+    public static SlowRequestRecorder.StageType stage() {
+        return new SlowRequestRecorder.StageType(JwtDecodeEvent.NAME, event -> "jwt",
+                event -> event.getBoolean("valid") ? "valid" : "invalid");
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        JwtDecodeEvent event = new JwtDecodeEvent();
+        event.begin();
+        try {
+            Jwt jwt = delegate.decode(token);
+            event.valid = true;
+            return jwt;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.requestId = requestId.get();
+                event.commit();
+            }
+        }
+    }
+}
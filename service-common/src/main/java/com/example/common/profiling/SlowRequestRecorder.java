@@ -0,0 +1,154 @@
+package com.example.common.profiling;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Постоянно включённый in-process поток JFR-событий: этапы собираются по X-Request-Id, а когда
+ * приходит событие HTTP-запроса, запрос с разбивкой по этапам попадает в топ самых медленных.
+ * В записи только свои события без стека, история в JFR-репозитории — секунды, поэтому
+ * накладные расходы — запись события в буфер потока.
+ *
+ * События задаёт сервис: событие запроса с полями requestId, method, route, status,
+ * servletAllocatedBytes (и async, если ответ бывает асинхронным) и события этапов с полем requestId.
+ */
+public class SlowRequestRecorder {
+
+    // Событие этапа: из него берутся имя этапа и подробности
+    public record StageType(String eventName, Function<RecordedEvent, String> name,
+                            Function<RecordedEvent, String> detail) { }
+
+    public record Stage(String name, String detail, double offsetMillis, double durationMillis) { }
+
+    /**
+     * servletAllocatedBytes — выделения servlet-потока; для асинхронных запросов (чат) null: их работа
+     * идёт в потоках Netty и boundedElastic, и число из servlet-потока выглядело бы как стоимость ответа.
+     */
+    public record SlowRequest(String requestId, String method, String route, int status, Instant startedAt,
+                              double durationMillis, Long servletAllocatedBytes, List<Stage> stages) { }
+
+    private record PendingStage(String name, String detail, Instant start, Duration duration) { }
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowRequestRecorder.class);
+
+    private static final Comparator<SlowRequest> BY_DURATION = Comparator.comparingDouble(SlowRequest::durationMillis);
+
+    private final boolean enabled;
+    private final int slowest;
+    private final int maxStages;
+    private final String requestEvent;
+    private final List<StageType> stageTypes;
+    // этапы запросов, которые ещё не завершились; читается и пишется только потоком RecordingStream
+    private final Map<String, List<PendingStage>> pending;
+    private final PriorityQueue<SlowRequest> top = new PriorityQueue<>(BY_DURATION);
+    private RecordingStream stream;
+
+    public SlowRequestRecorder(boolean enabled, int slowest, int maxPending, int maxStages,
+                               String requestEvent, List<StageType> stageTypes) {
+        this.enabled = enabled;
+        this.slowest = slowest;
+        this.maxStages = maxStages;
+        this.requestEvent = requestEvent;
+        this.stageTypes = List.copyOf(stageTypes);
+        this.pending = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<PendingStage>> eldest) {
+                return size() > maxPending;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        stream = new RecordingStream();
+        stream.setMaxAge(Duration.ofSeconds(10));
+        stream.enable(requestEvent);
+        stream.onEvent(requestEvent, this::onRequest);
+        for (StageType type : stageTypes) {
+            stream.enable(type.eventName());
+            stream.onEvent(type.eventName(), event -> onStage(event, type.name().apply(event),
+                    type.detail().apply(event)));
+        }
+        stream.onError(e -> logger.warn("JFR event stream failed", e));
+        stream.startAsync();
+        logger.info("Slow request recorder started, keeping {} slowest requests", slowest);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) stream.close();
+    }
+
+    // Самые медленные сначала
+    public List<SlowRequest> slowest() {
+        List<SlowRequest> snapshot;
+        synchronized (top) {
+            snapshot = new ArrayList<>(top);
+        }
+        snapshot.sort(BY_DURATION.reversed());
+        return snapshot;
+    }
+
+    public void reset() {
+        synchronized (top) {
+            top.clear();
+        }
+    }
+
+    private void onStage(RecordedEvent event, String name, String detail) {
+        String requestId = event.getString("requestId");
+        // фоновая работа (обновление контекста, отправка писем) к запросу не относится
+        if (requestId == null || requestId.isEmpty()) return;
+        List<PendingStage> stages = pending.computeIfAbsent(requestId, id -> new ArrayList<>());
+        if (stages.size() < maxStages) {
+            stages.add(new PendingStage(name, detail, event.getStartTime(), event.getDuration()));
+        }
+    }
+
+    private void onRequest(RecordedEvent event) {
+        String requestId = event.getString("requestId");
+        List<PendingStage> stages = pending.remove(requestId);
+        double durationMillis = millis(event.getDuration());
+        synchronized (top) {
+            if (top.size() >= slowest && top.peek().durationMillis() >= durationMillis) return;
+        }
+
+        Instant startedAt = event.getStartTime();
+        List<Stage> breakdown = new ArrayList<>();
+        if (stages != null) {
+            stages.sort(Comparator.comparing(PendingStage::start));
+            for (PendingStage stage : stages) {
+                breakdown.add(new Stage(stage.name(), stage.detail(),
+                        millis(Duration.between(startedAt, stage.start())), millis(stage.duration())));
+            }
+        }
+        boolean async = event.hasField("async") && event.getBoolean("async");
+        Long allocated = async ? null : event.getLong("servletAllocatedBytes");
+        SlowRequest request = new SlowRequest(requestId, event.getString("method"), event.getString("route"),
+                event.getInt("status"), startedAt, durationMillis, allocated, breakdown);
+
+        synchronized (top) {
+            top.add(request);
+            if (top.size() > slowest) top.poll();
+        }
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.common.profiling;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+// GET /actuator/slowrequests — самые медленные запросы с разбивкой по этапам; DELETE — сбросить.
+// Бин объявляет конфигурация профилирования сервиса.
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+    private final SlowRequestRecorder recorder;
+
+    public SlowRequestsEndpoint(SlowRequestRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public List<SlowRequestRecorder.SlowRequest> slowest() {
+        return recorder.slowest();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        recorder.reset();
+    }
+}
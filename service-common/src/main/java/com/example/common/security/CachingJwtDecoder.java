@@ -0,0 +1,86 @@
+package com.example.common.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Кэш уже проверенных токенов: фронтенд час присылает один и тот же JWT, и без кэша каждый запрос
+ * заново декодирует base64, считает HMAC-SHA256 и разбирает claims.
+ *
+ * Таблица фиксированного размера с прямой адресацией по hashCode строки (в JDK 21 он векторизован);
+ * при коллизии новый токен вытесняет старый. Попадание засчитывается только при совпадении всего
+ * токена, сравнение — за постоянное время, чтобы по задержке нельзя было подбирать токен.
+ * Запись живёт до exp токена; токены без exp и ошибки проверки не кэшируются.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private record Entry(String token, Jwt jwt, Instant expiresAt) {
+    }
+
+    private final JwtDecoder delegate;
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final Clock clock;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxSize, MeterRegistry meterRegistry) {
+        this(delegate, maxSize, meterRegistry, Clock.systemUTC());
+    }
+
+    CachingJwtDecoder(JwtDecoder delegate, int maxSize, MeterRegistry meterRegistry, Clock clock) {
+        this.delegate = delegate;
+        // степень двойки не меньше maxSize: слот берётся маской
+        int size = Math.max(1, Integer.highestOneBit(Math.max(1, maxSize) - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.clock = clock;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        int slot = slot(token);
+        Entry entry = slots.get(slot);
+        if (entry != null && constantTimeEquals(entry.token(), token) && clock.instant().isBefore(entry.expiresAt())) {
+            hits.increment();
+            return entry.jwt();
+        }
+        misses.increment();
+        Jwt jwt = delegate.decode(token);
+        if (jwt.getExpiresAt() != null) {
+            slots.set(slot, new Entry(token, jwt, jwt.getExpiresAt()));
+        }
+        return jwt;
+    }
+
+    private int slot(String token) {
+        int h = token.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // без раннего выхода: время не зависит от того, в каком символе расхождение
+    private static boolean constantTimeEquals(String a, String b) {
+        if (a.length() != b.length()) return false;
+        int diff = 0;
+        for (int i = 0; i < a.length(); i++) {
+            diff |= a.charAt(i) ^ b.charAt(i);
+        }
+        return diff == 0;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("jwt.cache.requests")
+                .description("Проверки JWT: hit — из кэша, miss — полная проверка подписи")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.common.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Спан — одна JSON-строка в логгер "tracing" или в файл (JSON Lines). Работает без коллектора:
+ * трассу можно собрать по traceId grep-ом по логам обоих сервисов.
+ */
+public class JsonSpanExporter implements SpanExporter {
+
+    private static final Logger tracingLog = LoggerFactory.getLogger("tracing");
+    private static final Logger logger = LoggerFactory.getLogger(JsonSpanExporter.class);
+    private static final AttributeKey<String> SERVICE_NAME = AttributeKey.stringKey("service.name");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BufferedWriter writer;
+
+    private JsonSpanExporter(BufferedWriter writer) {
+        this.writer = writer;
+    }
+
+    public static JsonSpanExporter toLog() {
+        return new JsonSpanExporter(null);
+    }
+
+    public static JsonSpanExporter toFile(Path file) {
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            return new JsonSpanExporter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open trace file " + file, e);
+        }
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        try {
+            for (SpanData span : spans) {
+                String line = objectMapper.writeValueAsString(toJson(span));
+                if (writer == null) {
+                    tracingLog.info(line);
+                } else {
+                    synchronized (writer) {
+                        writer.write(line);
+                        writer.newLine();
+                    }
+                }
+            }
+            if (writer != null) {
+                synchronized (writer) {
+                    writer.flush();
+                }
+            }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            logger.warn("Failed to export {} spans: {}", spans.size(), e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        if (writer != null) {
+            try {
+                synchronized (writer) {
+                    writer.close();
+                }
+            } catch (IOException e) {
+                return CompletableResultCode.ofFailure();
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private static Map<String, Object> toJson(SpanData span) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("traceId", span.getTraceId());
+        json.put("spanId", span.getSpanId());
+        if (span.getParentSpanContext().isValid()) json.put("parentSpanId", span.getParentSpanId());
+        json.put("service", span.getResource().getAttribute(SERVICE_NAME));
+        json.put("name", span.getName());
+        json.put("kind", span.getKind().name());
+        json.put("start", Instant.ofEpochSecond(0, span.getStartEpochNanos()).toString());
+        json.put("durationMillis", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0);
+        json.put("status", span.getStatus().getStatusCode().name());
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), value));
+        json.put("attributes", attributes);
+        return json;
+    }
+}
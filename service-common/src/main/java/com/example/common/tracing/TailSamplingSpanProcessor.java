@@ -0,0 +1,144 @@
+package com.example.common.tracing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tail-based отбор трасс: законченные спаны копятся по traceId, пока не закончится локальный
+ * корень (серверный спан запроса или спан без родителя). Тогда трасса целиком уходит в delegate,
+ * если она медленная, содержит ошибку или попала в долю sampleRatio. Доля считается по traceId,
+ * поэтому ai-service и auth-service сохраняют одни и те же "случайные" трассы.
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private final SpanProcessor delegate;
+    private final long sampleBound;
+    private final long keepSlowerThanNanos;
+    private final boolean keepErrors;
+    private final int maxPendingTraces;
+    private final long pendingTimeoutNanos;
+
+    private final Map<String, PendingTrace> pending = new LinkedHashMap<>();
+
+    private final Counter keptSlow;
+    private final Counter keptError;
+    private final Counter keptSampled;
+    private final Counter dropped;
+
+    private static final class PendingTrace {
+        private final long createdAt = System.nanoTime();
+        private final List<ReadableSpan> spans = new ArrayList<>();
+        private boolean error;
+    }
+
+    public TailSamplingSpanProcessor(SpanProcessor delegate, TracingProperties properties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.sampleBound = (long) (Math.max(0, Math.min(1, properties.getSampleRatio())) * Long.MAX_VALUE);
+        this.keepSlowerThanNanos = properties.getKeepSlowerThan().toNanos();
+        this.keepErrors = properties.isKeepErrors();
+        this.maxPendingTraces = properties.getMaxPendingTraces();
+        this.pendingTimeoutNanos = properties.getPendingTimeout().toNanos();
+
+        this.keptSlow = decisions(meterRegistry, "kept_slow");
+        this.keptError = decisions(meterRegistry, "kept_error");
+        this.keptSampled = decisions(meterRegistry, "kept_sampled");
+        this.dropped = decisions(meterRegistry, "dropped");
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        String traceId = span.getSpanContext().getTraceId();
+        SpanContext parent = span.getParentSpanContext();
+        boolean localRoot = !parent.isValid() || parent.isRemote();
+        boolean error = span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR;
+
+        List<ReadableSpan> kept = new ArrayList<>();
+        synchronized (pending) {
+            PendingTrace trace = pending.computeIfAbsent(traceId, id -> new PendingTrace());
+            trace.spans.add(span);
+            trace.error |= error;
+            if (localRoot) {
+                pending.remove(traceId);
+                if (keep(traceId, trace, span.getLatencyNanos())) kept.addAll(trace.spans);
+            }
+            evict(kept);
+        }
+        kept.forEach(delegate::onEnd);
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return delegate.shutdown();
+    }
+
+    // Трассы без корня (корень потерян или ещё идёт сверх таймаута) решаются без учёта длительности
+    private void evict(List<ReadableSpan> kept) {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, PendingTrace>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, PendingTrace> eldest = it.next();
+            if (pending.size() <= maxPendingTraces && now - eldest.getValue().createdAt < pendingTimeoutNanos) break;
+            it.remove();
+            if (keep(eldest.getKey(), eldest.getValue(), -1)) kept.addAll(eldest.getValue().spans);
+        }
+    }
+
+    private boolean keep(String traceId, PendingTrace trace, long rootLatencyNanos) {
+        if (rootLatencyNanos >= keepSlowerThanNanos) {
+            keptSlow.increment();
+            return true;
+        }
+        if (keepErrors && trace.error) {
+            keptError.increment();
+            return true;
+        }
+        if (sampled(traceId)) {
+            keptSampled.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    // Как TraceIdRatioBased: младшие 8 байт traceId против доли от Long.MAX_VALUE
+    private boolean sampled(String traceId) {
+        long random = Long.parseUnsignedLong(traceId.substring(16), 16) >>> 1;
+        return random < sampleBound;
+    }
+
+    private static Counter decisions(MeterRegistry meterRegistry, String decision) {
+        return Counter.builder("tracing.tail.decisions").tag("decision", decision).register(meterRegistry);
+    }
+}
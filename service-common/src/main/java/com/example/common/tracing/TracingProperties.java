@@ -0,0 +1,28 @@
+package com.example.common.tracing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Экспорт трасс (app.tracing). Спаны пишутся все (management.tracing.sampling.probability: 1.0),
+ * а решение, сохранять ли трассу, принимается по её завершении: медленные и с ошибкой — всегда,
+ * остальные — доля sample-ratio. Подключается в TracingConfig сервиса через @EnableConfigurationProperties.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.tracing")
+public class TracingProperties {
+
+    // log — JSON-строка на спан в логгер "tracing"; file — JSON Lines в файл; otlp — коллектор; none
+    private String exporter = "log";
+    private Path file = Path.of("./data/traces.jsonl");
+    private String otlpEndpoint = "http://localhost:4318/v1/traces";
+    private double sampleRatio = 0.1;
+    private Duration keepSlowerThan = Duration.ofSeconds(2);
+    private boolean keepErrors = true;
+    // трассы, чей корневой спан ещё не закончился; сверх лимита старейшие решаются досрочно
+    private int maxPendingTraces = 10_000;
+    private Duration pendingTimeout = Duration.ofMinutes(1);
+}
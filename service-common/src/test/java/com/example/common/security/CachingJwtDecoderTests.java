@@ -0,0 +1,90 @@
+package com.example.common.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingJwtDecoderTests {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    private final AtomicInteger verifications = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final JwtDecoder verifier = token -> {
+        verifications.incrementAndGet();
+        if (token.startsWith("bad")) throw new BadJwtException("signature");
+        return Jwt.withTokenValue(token)
+                .header("alg", "HS256")
+                .subject(token)
+                .issuedAt(NOW)
+                .expiresAt(NOW.plus(Duration.ofHours(1)))
+                .build();
+    };
+
+    @Test
+    void sameTokenIsVerifiedOnceUntilExpiry() {
+        MutableClock clock = new MutableClock(NOW);
+        CachingJwtDecoder decoder = new CachingJwtDecoder(verifier, 16, meterRegistry, clock);
+
+        assertThat(decoder.decode("token-a").getSubject()).isEqualTo("token-a");
+        assertThat(decoder.decode("token-a").getSubject()).isEqualTo("token-a");
+        assertThat(verifications).hasValue(1);
+        assertThat(meterRegistry.counter("jwt.cache.requests", "result", "hit").count()).isEqualTo(1);
+
+        clock.now = NOW.plus(Duration.ofHours(1));
+        decoder.decode("token-a");
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void collidingOrInvalidTokensAreNeverServedFromCache() {
+        // один слот: каждый токен вытесняет предыдущий, и чужой Jwt не должен вернуться
+        CachingJwtDecoder decoder = new CachingJwtDecoder(verifier, 1, meterRegistry, new MutableClock(NOW));
+
+        assertThat(decoder.decode("token-a").getSubject()).isEqualTo("token-a");
+        assertThat(decoder.decode("token-b").getSubject()).isEqualTo("token-b");
+        assertThat(decoder.decode("token-a").getSubject()).isEqualTo("token-a");
+        assertThat(verifications).hasValue(3);
+
+        assertThatThrownBy(() -> decoder.decode("bad-token")).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> decoder.decode("bad-token")).isInstanceOf(BadJwtException.class);
+        assertThat(verifications).hasValue(5);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.common.tracing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TailSamplingSpanProcessorTests {
+
+    private final List<ReadableSpan> exported = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SdkTracerProvider provider;
+
+    @AfterEach
+    void close() {
+        provider.close();
+    }
+
+    @Test
+    void keepsWholeSlowTraceAndDropsFastOne() {
+        Tracer tracer = tracer(0.0);
+
+        trace(tracer, "slow", Duration.ofSeconds(3), false);
+        trace(tracer, "fast", Duration.ofMillis(50), false);
+
+        assertThat(exported).extracting(ReadableSpan::getName).containsExactly("slow-child", "slow");
+        assertThat(meterRegistry.counter("tracing.tail.decisions", "decision", "dropped").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void keepsFastTraceWithError() {
+        Tracer tracer = tracer(0.0);
+
+        trace(tracer, "failed", Duration.ofMillis(50), true);
+
+        assertThat(exported).extracting(ReadableSpan::getName).containsExactly("failed-child", "failed");
+    }
+
+    @Test
+    void ratioOneKeepsEverything() {
+        Tracer tracer = tracer(1.0);
+
+        trace(tracer, "fast", Duration.ofMillis(50), false);
+
+        assertThat(exported).hasSize(2);
+    }
+
+    private Tracer tracer(double sampleRatio) {
+        TracingProperties properties = new TracingProperties();
+        properties.setSampleRatio(sampleRatio);
+        properties.setKeepSlowerThan(Duration.ofSeconds(2));
+        provider = SdkTracerProvider.builder()
+                .addSpanProcessor(new TailSamplingSpanProcessor(new Collecting(), properties, meterRegistry))
+                .build();
+        return provider.get("test");
+    }
+
+    // Корень длительностью duration с одним дочерним спаном; дочерний заканчивается раньше
+    private static void trace(Tracer tracer, String name, Duration duration, boolean childFails) {
+        Span root = tracer.spanBuilder(name).setStartTimestamp(0, TimeUnit.NANOSECONDS).startSpan();
+        Span child = tracer.spanBuilder(name + "-child")
+                .setParent(Context.root().with(root))
+                .setStartTimestamp(1, TimeUnit.NANOSECONDS)
+                .startSpan();
+        if (childFails) child.setStatus(StatusCode.ERROR);
+        child.end(2, TimeUnit.NANOSECONDS);
+        root.end(duration.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private final class Collecting implements SpanProcessor {
+
+        @Override
+        public void onStart(Context parentContext, ReadWriteSpan span) {
+        }
+
+        @Override
+        public boolean isStartRequired() {
+            return false;
+        }
+
+        @Override
+        public void onEnd(ReadableSpan span) {
+            exported.add(span);
+        }
+
+        @Override
+        public boolean isEndRequired() {
+            return true;
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}